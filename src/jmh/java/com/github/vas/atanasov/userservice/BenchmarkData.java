@@ -0,0 +1,44 @@
+package com.github.vas.atanasov.userservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.webapp.api.BaseController;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Deterministic fixtures shared by the benchmarks, sized like a default page. */
+@UtilityClass
+public final class BenchmarkData {
+
+  public static final int PAGE_SIZE = BaseController.DEFAULT_PAGE_SIZE;
+
+  public static User user(int i) {
+    return User.of(
+        UidStrategy.TIME_ORDERED.next(),
+        "username" + i + "abcdef",
+        "FirstName" + i,
+        "LastName" + i);
+  }
+
+  public static List<User> users(int count) {
+    List<User> users = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) users.add(user(i));
+    return users;
+  }
+
+  public static List<UserServiceModel> models(int count) {
+    List<UserServiceModel> models = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) models.add(UserServiceModel.from(user(i)));
+    return models;
+  }
+
+  /** Configured the same way Spring Boot configures the application's mapper. */
+  public static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json().simpleDateFormat("dd-MMM-yyyy HH:mm").build();
+  }
+}
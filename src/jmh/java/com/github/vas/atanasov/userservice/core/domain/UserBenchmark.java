@@ -0,0 +1,19 @@
+package com.github.vas.atanasov.userservice.core.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserBenchmark {
+
+  @Benchmark
+  public User of() {
+    return User.of(UidStrategy.TIME_ORDERED.next(), "fancyUsername", "Peter", "Peter");
+  }
+}
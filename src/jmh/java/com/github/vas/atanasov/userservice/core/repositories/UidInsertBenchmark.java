@@ -0,0 +1,106 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Batched inserts into a file backed H2 copy of the user table, already holding {@code rows} users
+ * with uids of the same strategy. The page cache is kept far smaller than the uid index, like a
+ * buffer pool on a large table, so inserts that land on random index pages have to read and write
+ * them back while time-ordered uids keep hitting the same rightmost pages. One operation is a
+ * committed batch of {@link #BATCH_SIZE} users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UidInsertBenchmark {
+  private static final int BATCH_SIZE = 1_000;
+
+  @Param({"RANDOM", "TIME_ORDERED"})
+  private UidStrategy strategy;
+
+  @Param({"1000000"})
+  private int rows;
+
+  // Page cache in KB
+  @Param({"4096"})
+  private int cacheSize;
+
+  private Path directory;
+  private Connection connection;
+  private PreparedStatement insert;
+  private long nextId;
+
+  @Setup
+  public void setUp() throws IOException, SQLException {
+    directory = Files.createTempDirectory("uid-insert-benchmark");
+    connection =
+        DriverManager.getConnection(
+            "jdbc:h2:file:" + directory.resolve("users") + ";CACHE_SIZE=" + cacheSize, "sa", "");
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TABLE user (id BIGINT PRIMARY KEY, uid BINARY(16) NOT NULL,"
+              + " username VARCHAR(50) NOT NULL, first_name VARCHAR(30) NOT NULL,"
+              + " last_name VARCHAR(30), created_date_time TIMESTAMP NOT NULL)");
+      statement.execute("CREATE UNIQUE INDEX idx_user_uid ON user (uid)");
+    }
+    insert =
+        connection.prepareStatement(
+            "INSERT INTO user (id, uid, username, first_name, last_name, created_date_time)"
+                + " VALUES (?, ?, ?, ?, ?, ?)");
+    while (nextId < rows) insertBatch();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException, SQLException {
+    connection.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public long insertBatch() throws SQLException {
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      long id = nextId++;
+      insert.setLong(1, id);
+      insert.setBytes(2, bytes(strategy.next()));
+      insert.setString(3, "username" + id);
+      insert.setString(4, "FirstName");
+      insert.setString(5, "LastName");
+      insert.setTimestamp(6, now);
+      insert.addBatch();
+    }
+    insert.executeBatch();
+    connection.commit();
+    return nextId;
+  }
+
+  // Same layout as Hibernate's binary uuid mapping, most significant bits first
+  private static byte[] bytes(UUID uid) {
+    return ByteBuffer.allocate(16)
+        .putLong(uid.getMostSignificantBits())
+        .putLong(uid.getLeastSignificantBits())
+        .array();
+  }
+}
@@ -0,0 +1,70 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import com.github.vas.atanasov.userservice.BenchmarkData;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precompiled mappers against the configured {@link ModelMapper} that {@link MappingUtils} used for
+ * every call before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingUtilsBenchmark {
+
+  private final ModelMapper modelMapper = MappingUtils.createConfigured();
+  private User user;
+  private List<User> page;
+  private UserCreateRequest request;
+
+  @Setup
+  public void setUp() {
+    user = BenchmarkData.user(1);
+    page = BenchmarkData.users(BenchmarkData.PAGE_SIZE);
+    request = new UserCreateRequest();
+    request.setUsername(user.getUsername());
+    request.setFirstName(user.getFirstName());
+    request.setLastName(user.getLastName());
+  }
+
+  @Benchmark
+  public UserServiceModel mapUser() {
+    return MappingUtils.map(user, UserServiceModel.class);
+  }
+
+  @Benchmark
+  public UserServiceModel mapUserModelMapper() {
+    return MappingUtils.map(user, UserServiceModel.class, modelMapper);
+  }
+
+  @Benchmark
+  public UserCreateServiceModel mapRequest() {
+    return MappingUtils.map(request, UserCreateServiceModel.class);
+  }
+
+  @Benchmark
+  public UserCreateServiceModel mapRequestModelMapper() {
+    return MappingUtils.map(request, UserCreateServiceModel.class, modelMapper);
+  }
+
+  @Benchmark
+  public List<UserServiceModel> mapAllPage() {
+    return MappingUtils.mapAll(page, UserServiceModel.class);
+  }
+
+  @Benchmark
+  public List<UserServiceModel> mapAllPageModelMapper() {
+    return MappingUtils.mapAll(page, UserServiceModel.class, modelMapper);
+  }
+}
@@ -0,0 +1,213 @@
+package com.github.vas.atanasov.userservice.webapp;
+
+import com.github.vas.atanasov.userservice.UserServiceApplication;
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the request execution modes. The application runs in embedded Tomcat with a small
+ * worker pool against H2, every statement is delayed to stand in for a MySQL round trip, and {@link
+ * #CLIENTS} threads keep requesting user slices. JMH reports the latency percentiles, the highest
+ * number of requests that were inside the service layer at the same time is printed at the end of
+ * each trial.
+ *
+ * <p>VIRTUAL needs a Java 21 benchmark JVM, pass {@code -jvm <jdk21>/bin/java} in {@code
+ * benchmark.args}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(RequestExecutionModeBenchmark.CLIENTS)
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=" + RequestExecutionModeBenchmark.CLIENTS)
+public class RequestExecutionModeBenchmark {
+  static final int CLIENTS = 200;
+
+  @Param({"PLATFORM", "VIRTUAL"})
+  public String mode;
+
+  @Param("32")
+  public int containerThreads;
+
+  @Param("20")
+  public long statementLatencyMillis;
+
+  private ServletWebServerApplicationContext context;
+  private InFlight inFlight;
+  private URL sliceUrl;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    context =
+        (ServletWebServerApplicationContext)
+            new SpringApplicationBuilder(UserServiceApplication.class, LoadTestBeans.class)
+                .profiles("test")
+                .run(
+                    "--server.port=0",
+                    "--server.tomcat.threads.max=" + containerThreads,
+                    "--server.tomcat.accept-count=" + CLIENTS,
+                    // The pool is larger than the container pool, so threads run out first
+                    "--spring.datasource.hikari.maximum-pool-size=" + CLIENTS,
+                    "--user-service.request-execution.mode=" + mode,
+                    // Measures how the modes queue, not how requests are shed or rate limited
+                    "--user-service.concurrency-limit.enabled=false",
+                    "--user-service.rate-limit.enabled=false",
+                    "--benchmark.statement-latency-ms=" + statementLatencyMillis,
+                    "--logging.level.org.springframework=WARN",
+                    "--logging.level.org.hibernate=WARN",
+                    "--logging.level.web=WARN",
+                    "--logging.level.com.github.vas.atanasov=WARN");
+    inFlight = context.getBean(InFlight.class);
+
+    List<UserCreateServiceModel> users = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      UserCreateServiceModel user = new UserCreateServiceModel();
+      user.setUsername("loadUser" + i);
+      user.setFirstName("First" + i);
+      users.add(user);
+    }
+    context.getBean(UserService.class).createUsers(users);
+    int port = context.getWebServer().getPort();
+    sliceUrl = new URL("http://localhost:" + port + "/v1/users/scroll?size=15");
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    System.out.printf(
+        "%n%s mode: max requests in flight=%d with %d container threads%n",
+        mode, inFlight.max.get(), containerThreads);
+    context.close();
+  }
+
+  @Benchmark
+  public int usersSlice() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) sliceUrl.openConnection();
+    int status = connection.getResponseCode();
+    try (InputStream body = connection.getInputStream()) {
+      byte[] buffer = new byte[8192];
+      while (body.read(buffer) != -1) {
+        // drain so the connection can be kept alive
+      }
+    }
+    return status;
+  }
+
+  /** Tracks how many calls are inside the service at once. */
+  public static class InFlight {
+    final AtomicInteger current = new AtomicInteger();
+    final AtomicInteger max = new AtomicInteger();
+
+    void enter() {
+      int now = current.incrementAndGet();
+      max.accumulateAndGet(now, Math::max);
+    }
+
+    void exit() {
+      current.decrementAndGet();
+    }
+  }
+
+  /** Registered as a source, not scanned, so only the load test sees these beans. */
+  public static class LoadTestBeans {
+
+    @Bean
+    public static InFlight inFlight() {
+      return new InFlight();
+    }
+
+    @Bean
+    public static BeanPostProcessor loadTestProxies(Environment environment, InFlight inFlight) {
+      long latency = environment.getRequiredProperty("benchmark.statement-latency-ms", Long.class);
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          if (bean instanceof DataSource) return delayStatements((DataSource) bean, latency);
+          if (bean instanceof UserService) return countInFlight((UserService) bean, inFlight);
+          return bean;
+        }
+      };
+    }
+  }
+
+  // Every statement execution sleeps first, the sleep parks a virtual thread but blocks a platform
+  // thread just like waiting for the MySQL response does
+  private static DataSource delayStatements(DataSource dataSource, long latencyMillis) {
+    return proxy(
+        DataSource.class,
+        (proxy, method, args) -> {
+          Object result = invoke(dataSource, method, args);
+          return result instanceof Connection
+              ? delayStatements((Connection) result, latencyMillis)
+              : result;
+        });
+  }
+
+  private static Connection delayStatements(Connection connection, long latencyMillis) {
+    return proxy(
+        Connection.class,
+        (proxy, method, args) -> {
+          Object result = invoke(connection, method, args);
+          return result instanceof PreparedStatement
+              ? delayExecution((PreparedStatement) result, latencyMillis)
+              : result;
+        });
+  }
+
+  private static PreparedStatement delayExecution(PreparedStatement statement, long latencyMillis) {
+    return proxy(
+        PreparedStatement.class,
+        (proxy, method, args) -> {
+          if (method.getName().startsWith("execute")) Thread.sleep(latencyMillis);
+          return invoke(statement, method, args);
+        });
+  }
+
+  private static UserService countInFlight(UserService userService, InFlight inFlight) {
+    return proxy(
+        UserService.class,
+        (proxy, method, args) -> {
+          inFlight.enter();
+          try {
+            return invoke(userService, method, args);
+          } finally {
+            inFlight.exit();
+          }
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.github.vas.atanasov.userservice.webapp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.vas.atanasov.userservice.BenchmarkData;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.webapp.enums.RestMessage;
+import com.github.vas.atanasov.userservice.webapp.enums.RestStatus;
+import com.github.vas.atanasov.userservice.webapp.json.UserServiceModelSerializer;
+import com.github.vas.atanasov.userservice.webapp.models.response.UserPageResponse;
+import com.github.vas.atanasov.userservice.webapp.models.wrappers.ResponseWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code usersPage} is the raw {@link PageImpl} with bean serialization that the listing returned
+ * before, {@code usersPageEnvelope} the {@link UserPageResponse} written with {@link
+ * UserServiceModelSerializer}. The {@code Cbor} and {@code Smile} variants write the same envelope in
+ * the binary formats negotiated by {@code Accept}. Payload sizes are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+  private ObjectWriter writer;
+  private ObjectWriter serializerWriter;
+  private ObjectWriter cborWriter;
+  private ObjectWriter smileWriter;
+  private ResponseWrapper created;
+  private Page<UserServiceModel> page;
+  private UserPageResponse envelope;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    writer = BenchmarkData.objectMapper().writer();
+    serializerWriter =
+        BenchmarkData.objectMapper()
+            .registerModule(new SimpleModule().addSerializer(new UserServiceModelSerializer()))
+            .writer();
+    cborWriter = binaryWriter(new CBORFactory());
+    smileWriter = binaryWriter(new SmileFactory());
+    created =
+        ResponseWrapper.builder()
+            .status(RestStatus.SUCCESS)
+            .message(RestMessage.USER_CREATED)
+            .data(UserServiceModel.from(BenchmarkData.user(1)))
+            .build();
+    List<UserServiceModel> content = BenchmarkData.models(BenchmarkData.PAGE_SIZE);
+    PageRequest pageable =
+        PageRequest.of(3, BenchmarkData.PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdDateTime"));
+    page = new PageImpl<>(content, pageable, 10_000);
+    envelope = UserPageResponse.from(page);
+    System.out.printf(
+        "%nPayload bytes: usersPage=%d, usersPageEnvelope=%d, cbor=%d, smile=%d%n",
+        usersPage().length,
+        usersPageEnvelope().length,
+        usersPageEnvelopeCbor().length,
+        usersPageEnvelopeSmile().length);
+  }
+
+  private static ObjectWriter binaryWriter(JsonFactory factory) {
+    return Jackson2ObjectMapperBuilder.json()
+        .factory(factory)
+        .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .modulesToInstall(new SimpleModule().addSerializer(new UserServiceModelSerializer()))
+        .build()
+        .writer();
+  }
+
+  @Benchmark
+  public byte[] responseWrapper() throws JsonProcessingException {
+    return writer.writeValueAsBytes(created);
+  }
+
+  @Benchmark
+  public byte[] usersPage() throws JsonProcessingException {
+    return writer.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public byte[] usersPageEnvelope() throws JsonProcessingException {
+    return serializerWriter.writeValueAsBytes(envelope);
+  }
+
+  @Benchmark
+  public byte[] usersPageEnvelopeBeanSerializer() throws JsonProcessingException {
+    return writer.writeValueAsBytes(envelope);
+  }
+
+  @Benchmark
+  public byte[] usersPageEnvelopeCbor() throws JsonProcessingException {
+    return cborWriter.writeValueAsBytes(envelope);
+  }
+
+  @Benchmark
+  public byte[] usersPageEnvelopeSmile() throws JsonProcessingException {
+    return smileWriter.writeValueAsBytes(envelope);
+  }
+}
@@ -0,0 +1,52 @@
+package com.github.vas.atanasov.userservice.webapp;
+
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserCreateRequestValidationBenchmark {
+
+  private ValidatorFactory validatorFactory;
+  private Validator validator;
+  private UserCreateRequest valid;
+  private UserCreateRequest invalid;
+
+  @Setup
+  public void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    validator = validatorFactory.getValidator();
+    valid = new UserCreateRequest();
+    valid.setUsername("fancyUsername");
+    valid.setFirstName("Peter");
+    valid.setLastName("Peter");
+    invalid = new UserCreateRequest();
+    invalid.setUsername("shrt");
+  }
+
+  @TearDown
+  public void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<UserCreateRequest>> validRequest() {
+    return validator.validate(valid);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<UserCreateRequest>> invalidRequest() {
+    return validator.validate(invalid);
+  }
+}
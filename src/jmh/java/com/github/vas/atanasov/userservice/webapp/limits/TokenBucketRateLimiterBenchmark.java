@@ -0,0 +1,94 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of taking a token under contention, from one thread and from eight, against a baseline that
+ * guards a map of buckets with a single lock. With {@code clients=1} all threads hit the same
+ * bucket, the worst case for the CAS loop; with more clients threads mostly land on different
+ * stripes. The rate is high enough that no request is refused, only the bookkeeping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBucketRateLimiterBenchmark {
+  private static final double RATE = 1e12;
+  private static final int BURST = 1_000_000;
+
+  @Param({"1", "1024"})
+  private int clients;
+
+  private String[] keys;
+  private TokenBucketRateLimiter limiter;
+  private LockedRateLimiter locked;
+
+  @State(Scope.Thread)
+  public static class Client {
+    private int next;
+  }
+
+  @Setup
+  public void setUp() {
+    keys = new String[clients];
+    for (int i = 0; i < clients; i++) keys[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+    limiter = new TokenBucketRateLimiter(RATE, BURST, 100_000);
+    locked = new LockedRateLimiter(RATE, BURST);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean stripedOneThread(Client client) {
+    return limiter.tryAcquire(key(client)).isAllowed();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean stripedEightThreads(Client client) {
+    return limiter.tryAcquire(key(client)).isAllowed();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean lockedOneThread(Client client) {
+    return locked.tryAcquire(key(client));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean lockedEightThreads(Client client) {
+    return locked.tryAcquire(key(client));
+  }
+
+  private String key(Client client) {
+    int next = client.next;
+    client.next = next + 1 == keys.length ? 0 : next + 1;
+    return keys[next];
+  }
+
+  // The same buckets behind one lock
+  private static final class LockedRateLimiter {
+    private final long interval;
+    private final long tolerance;
+    private final Map<String, Long> buckets = new HashMap<>();
+
+    private LockedRateLimiter(double tokensPerSecond, int burst) {
+      this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+      this.tolerance = interval * burst;
+    }
+
+    private synchronized boolean tryAcquire(String client) {
+      long now = System.nanoTime();
+      long next = Math.max(buckets.getOrDefault(client, now), now) + interval;
+      if (next - now > tolerance) return false;
+      buckets.put(client, next);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a timer with a percentile histogram per invoked method, tagged with the method name, and
+ * counts thrown exceptions by type. Meters are created on the first call of a method and looked up
+ * by identity afterwards, so a call allocates nothing. With a phase, the time of outermost calls is
+ * also added to the {@link RequestTimings} of the current request.
+ */
+public class MethodTimingInterceptor implements MethodInterceptor {
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+  private final String metricPrefix;
+  private final RequestTimings.Phase phase;
+  private final ThreadLocal<Boolean> nested = new ThreadLocal<>();
+  private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+  /**
+   * @param meterRegistry resolved on the first call, advisors are created before the registry is
+   *     fully configured
+   * @param metricPrefix timers are named {@code <prefix>.calls}, counters {@code
+   *     <prefix>.exceptions}
+   */
+  public MethodTimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry, String metricPrefix) {
+    this(meterRegistry, metricPrefix, null);
+  }
+
+  /** @param phase request phase the calls are added to, {@code null} for none */
+  public MethodTimingInterceptor(
+      ObjectProvider<MeterRegistry> meterRegistry,
+      String metricPrefix,
+      RequestTimings.Phase phase) {
+    this.meterRegistry = meterRegistry;
+    this.metricPrefix = metricPrefix;
+    this.phase = phase;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    MethodMeters methodMeters = meters.get(invocation.getMethod());
+    if (methodMeters == null) {
+      methodMeters = meters.computeIfAbsent(invocation.getMethod(), MethodMeters::new);
+    }
+    // Calls made from within another call of the same phase are already part of its time
+    boolean outermost = phase != null && nested.get() == null;
+    if (outermost) nested.set(Boolean.TRUE);
+    long start = System.nanoTime();
+    try {
+      return invocation.proceed();
+    } catch (Throwable e) {
+      methodMeters.exceptions(e.getClass()).increment();
+      throw e;
+    } finally {
+      long nanos = System.nanoTime() - start;
+      methodMeters.timer.record(nanos, TimeUnit.NANOSECONDS);
+      if (outermost) {
+        nested.remove();
+        RequestTimings.record(phase, nanos);
+      }
+    }
+  }
+
+  private final class MethodMeters {
+    private final String method;
+    private final Timer timer;
+    private final ConcurrentMap<Class<?>, Counter> exceptions = new ConcurrentHashMap<>();
+
+    private MethodMeters(Method method) {
+      this.method = method.getName();
+      this.timer =
+          Timer.builder(metricPrefix + ".calls")
+              .tag("method", this.method)
+              .publishPercentileHistogram()
+              .register(meterRegistry.getObject());
+    }
+
+    private Counter exceptions(Class<?> type) {
+      Counter counter = exceptions.get(type);
+      if (counter == null) {
+        counter =
+            exceptions.computeIfAbsent(
+                type,
+                key ->
+                    Counter.builder(metricPrefix + ".exceptions")
+                        .tag("method", method)
+                        .tag("exception", key.getSimpleName())
+                        .register(meterRegistry.getObject()));
+      }
+      return counter;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Times every {@link UserService} and {@link UserRepository} call. Endpoint timers come from the
+ * actuator's {@code http.server.requests} and connection pool gauges from its Hikari binder.
+ *
+ * <p>The advisors are infrastructure beans, so the auto proxy creator registered for transactions
+ * applies them as well. They are ordered first so that service timings include the commit. Both
+ * also feed the service and db phases of the {@code Server-Timing} header.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  public static Advisor userServiceTimingAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+    return timingAdvisor(
+        UserService.class,
+        new MethodTimingInterceptor(meterRegistry, "users.service", RequestTimings.Phase.SERVICE));
+  }
+
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  public static Advisor userRepositoryTimingAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+    return timingAdvisor(
+        UserRepository.class,
+        new MethodTimingInterceptor(meterRegistry, "users.repository", RequestTimings.Phase.DB));
+  }
+
+  private static Advisor timingAdvisor(Class<?> type, MethodTimingInterceptor interceptor) {
+    DefaultPointcutAdvisor advisor =
+        new DefaultPointcutAdvisor(new ComposablePointcut(new RootClassFilter(type)), interceptor);
+    advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return advisor;
+  }
+}
@@ -0,0 +1,85 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to the replicas in {@code user-service.datasource.replica.urls}.
+ * Without replicas the datasource is left to Spring Boot. Replicas are reached with the primary's
+ * credentials unless their own are set, and get their own pools, named {@code replica-<n>}. The
+ * primary pool is named {@code primary} unless {@code spring.datasource.hikari.pool-name} is set.
+ */
+@Configuration
+@ConditionalOnProperty("user-service.datasource.replica.urls")
+public class ReplicaRoutingConfiguration {
+
+  // The only datasource bean, the pools are not beans so that Boot's datasource initialization and
+  // health check see a single datasource
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public ReplicaRoutingDataSource dataSource(
+      DataSourceProperties properties,
+      Environment environment,
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${user-service.datasource.replica.urls}") String[] urls,
+      @Value("${user-service.datasource.replica.username:}") String username,
+      @Value("${user-service.datasource.replica.password:}") String password,
+      @Value("${user-service.datasource.replica.selection:ROUND_ROBIN}") ReplicaSelection selection,
+      @Value("${user-service.datasource.replica.connection-timeout-ms:1000}")
+          long connectionTimeoutMillis,
+      @Value("${user-service.datasource.replica.health-check-interval-ms:5000}")
+          long healthCheckIntervalMillis,
+      @Value("${user-service.datasource.replica.read-your-writes-window-ms:0}")
+          long readYourWritesWindowMillis) {
+    HikariDataSource primary =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+    if (primary.getPoolName() == null) primary.setPoolName("primary");
+    monitor(primary, meterRegistry);
+    List<HikariDataSource> replicas = new ArrayList<>();
+    for (int i = 0; i < urls.length; i++) {
+      HikariDataSource replica = new HikariDataSource();
+      replica.setPoolName("replica-" + i);
+      replica.setJdbcUrl(urls[i].trim());
+      replica.setDriverClassName(properties.determineDriverClassName());
+      replica.setUsername(
+          StringUtils.hasLength(username) ? username : properties.determineUsername());
+      replica.setPassword(
+          StringUtils.hasLength(password) ? password : properties.determinePassword());
+      replica.setReadOnly(true);
+      if (primary.getMaximumPoolSize() > 0) {
+        replica.setMaximumPoolSize(primary.getMaximumPoolSize());
+      }
+      replica.setConnectionTimeout(connectionTimeoutMillis);
+      // Start while a replica is down, reads fall back to the primary until it is up
+      replica.setInitializationFailTimeout(-1);
+      monitor(replica, meterRegistry);
+      replicas.add(replica);
+    }
+    return new ReplicaRoutingDataSource(
+        primary,
+        replicas,
+        selection,
+        readYourWritesWindowMillis,
+        healthCheckIntervalMillis);
+  }
+
+  // Boot binds pool metrics only to pools that are not started yet, the routing datasource starts
+  // the primary pool on initialization
+  static void monitor(HikariDataSource pool, ObjectProvider<MeterRegistry> meterRegistry) {
+    meterRegistry.ifAvailable(
+        registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+  }
+}
@@ -0,0 +1,213 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.repositories.PrimaryReadTransactions;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything
+ * else. The transaction manager asks for a connection before the transaction is marked read-only,
+ * so connections are {@link LazyConnectionDataSourceProxy lazy} and the target is chosen on the
+ * first statement.
+ *
+ * <p>A replica that fails to hand out a connection is skipped until the periodic health check
+ * validates it again, its reads go to the primary meanwhile. With a read-your-writes window, reads
+ * shortly after a committed write go to the primary as well, so a client reading back what it just
+ * wrote does not see a replica that is behind. The window is kept per instance, not per client, it
+ * should be about the replication lag. Transactions of {@link PrimaryReadTransactions} always read
+ * from the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+  private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+  private final HikariDataSource primary;
+  private final List<Replica> replicas = new ArrayList<>();
+  private final ReplicaSelection selection;
+  private final long readYourWritesWindowNanos;
+  private final long healthCheckIntervalMillis;
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private final TransactionSynchronization writeCommitted =
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          lastWriteNanos = System.nanoTime();
+          lastWriteCommitted = true;
+        }
+      };
+  private volatile long lastWriteNanos;
+  private volatile boolean lastWriteCommitted;
+  private ScheduledExecutorService healthChecker;
+
+  public ReplicaRoutingDataSource(
+      HikariDataSource primary,
+      List<HikariDataSource> replicas,
+      ReplicaSelection selection,
+      long readYourWritesWindowMillis,
+      long healthCheckIntervalMillis) {
+    if (replicas.isEmpty()) {
+      throw new IllegalArgumentException("At least one replica is required");
+    }
+    this.primary = primary;
+    setTargetDataSource(new Router());
+    replicas.forEach(replica -> this.replicas.add(new Replica(replica)));
+    this.selection = selection;
+    this.readYourWritesWindowNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesWindowMillis);
+    this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+  }
+
+  public void start() {
+    healthChecker =
+        Executors.newSingleThreadScheduledExecutor(DaemonThreads.factory("replica-health-check-"));
+    healthChecker.scheduleWithFixedDelay(
+        this::checkReplicas,
+        healthCheckIntervalMillis,
+        healthCheckIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void close() {
+    if (healthChecker != null) healthChecker.shutdownNow();
+    replicas.forEach(replica -> replica.dataSource.close());
+    primary.close();
+  }
+
+  private Connection route() throws SQLException {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (readYourWritesWindowNanos > 0
+          && TransactionSynchronizationManager.isActualTransactionActive()) {
+        TransactionSynchronizationManager.registerSynchronization(writeCommitted);
+      }
+      return primary.getConnection();
+    }
+    if (PrimaryReadTransactions.isCurrent()
+        || lastWriteCommitted && System.nanoTime() - lastWriteNanos < readYourWritesWindowNanos) {
+      return primary.getConnection();
+    }
+    Replica replica = selectReplica();
+    if (replica != null) {
+      try {
+        return replica.dataSource.getConnection();
+      } catch (SQLException e) {
+        replica.markDown(e);
+      }
+    }
+    return primary.getConnection();
+  }
+
+  private Replica selectReplica() {
+    if (selection == ReplicaSelection.LEAST_CONNECTIONS) {
+      Replica selected = null;
+      int fewest = Integer.MAX_VALUE;
+      for (Replica replica : replicas) {
+        if (!replica.healthy) continue;
+        int active = replica.activeConnections();
+        if (active < fewest) {
+          selected = replica;
+          fewest = active;
+        }
+      }
+      return selected;
+    }
+    int start = nextReplica.getAndIncrement();
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+      if (replica.healthy) return replica;
+    }
+    return null;
+  }
+
+  // Package-private so tests can run a check without waiting for the interval
+  void checkReplicas() {
+    for (Replica replica : replicas) {
+      try (Connection connection = replica.dataSource.getConnection()) {
+        if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+          replica.markUp();
+        } else {
+          replica.markDown(null);
+        }
+      } catch (SQLException e) {
+        replica.markDown(e);
+      } catch (RuntimeException e) {
+        log.error("Checking replica {} failed", replica.dataSource.getPoolName(), e);
+      }
+    }
+  }
+
+  boolean isHealthy(String poolName) {
+    return replicas.stream()
+        .filter(replica -> replica.dataSource.getPoolName().equals(poolName))
+        .anyMatch(replica -> replica.healthy);
+  }
+
+  // Connections of the lazy proxy, unwraps to the primary pool for its metrics and health
+  private final class Router extends AbstractDataSource {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return route();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      throw new SQLFeatureNotSupportedException("Connections use the configured credentials");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+      return type.isInstance(this) ? type.cast(this) : primary.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+      return type.isInstance(this) || primary.isWrapperFor(type);
+    }
+  }
+
+  private static final class Replica {
+    private final HikariDataSource dataSource;
+    private volatile boolean healthy = true;
+
+    private Replica(HikariDataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    private int activeConnections() {
+      HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+      return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    private void markUp() {
+      if (!healthy) log.info("Replica {} is back, routing reads to it", dataSource.getPoolName());
+      healthy = true;
+    }
+
+    private void markDown(SQLException cause) {
+      if (healthy) {
+        log.warn(
+            "Replica {} is unavailable, routing its reads to the primary: {}",
+            dataSource.getPoolName(),
+            cause == null ? "connection is not valid" : cause.getMessage());
+      }
+      healthy = false;
+    }
+  }
+}
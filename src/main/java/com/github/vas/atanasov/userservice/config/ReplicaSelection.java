@@ -0,0 +1,8 @@
+package com.github.vas.atanasov.userservice.config;
+
+public enum ReplicaSelection {
+  /** Healthy replicas take turns. */
+  ROUND_ROBIN,
+  /** The healthy replica with the fewest connections in use. */
+  LEAST_CONNECTIONS
+}
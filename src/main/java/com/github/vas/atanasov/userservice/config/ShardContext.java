@@ -0,0 +1,28 @@
+package com.github.vas.atanasov.userservice.config;
+
+/** The shard connections of the current thread go to, see {@link ShardRoutingDataSource}. */
+public final class ShardContext {
+  private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+  private ShardContext() {}
+
+  /** @return the bound shard, {@code null} when none is bound */
+  public static Integer get() {
+    return SHARD.get();
+  }
+
+  /** Binds a shard to the current thread, returns the previous one to {@link #restore(Integer)}. */
+  public static Integer bind(int shard) {
+    Integer previous = SHARD.get();
+    SHARD.set(shard);
+    return previous;
+  }
+
+  public static void restore(Integer previous) {
+    if (previous == null) {
+      SHARD.remove();
+    } else {
+      SHARD.set(previous);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hands out connections of the shard bound with {@link ShardContext}, shard 0 when none is bound.
+ * Users are placed by a hash of their uid, shard 0 also holds the {@code username_directory}.
+ *
+ * <p>Connections are {@link LazyConnectionDataSourceProxy lazy}, a transaction reaches the shard
+ * bound at its first statement. A transaction therefore stays on one shard.
+ */
+public class ShardRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+  private final List<HikariDataSource> shards;
+
+  public ShardRoutingDataSource(List<HikariDataSource> shards) {
+    if (shards.isEmpty()) {
+      throw new IllegalArgumentException("At least one shard is required");
+    }
+    this.shards = new ArrayList<>(shards);
+    setTargetDataSource(new Router());
+  }
+
+  public int getShardCount() {
+    return shards.size();
+  }
+
+  public HikariDataSource getShard(int shard) {
+    return shards.get(shard);
+  }
+
+  /**
+   * @return the shard a user with this uid is stored on. Uids are hashed with {@link
+   *     UUID#hashCode()}, which is specified, so placement does not depend on the JVM. Changing the
+   *     number of shards moves users, there is no rebalancing.
+   */
+  public int shardOf(UUID uid) {
+    return Math.floorMod(uid.hashCode(), shards.size());
+  }
+
+  @Override
+  public void close() {
+    shards.forEach(HikariDataSource::close);
+  }
+
+  // Connections of the lazy proxy, unwraps to the shard 0 pool for Boot's health check
+  private final class Router extends AbstractDataSource {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      Integer shard = ShardContext.get();
+      return shards.get(shard == null ? 0 : shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      throw new SQLFeatureNotSupportedException("Connections use the configured credentials");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+      return type.isInstance(this) ? type.cast(this) : shards.get(0).unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+      return type.isInstance(this) || shards.get(0).isWrapperFor(type);
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UsernameDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.tool.schema.Action;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps ids unique over all shards. Shard {@code n} owns the ids from {@code n << 48}, the pooled
+ * id optimizer is shared by all shards and takes its blocks from whichever shard it writes to, so
+ * each shard's id sequence has to stay within its range. Merged pages and the keyset cursor rely on
+ * it.
+ *
+ * <p>When Hibernate creates the schema, on shard 0, it also writes its drop and create scripts.
+ * Those are run on every other shard once the context is up, and each shard's sequence starts at
+ * its range. With any other {@code ddl-auto} the schemas are left alone, but the ranges are checked
+ * on every start: the sequence of an empty shard is moved into its range, a shard with ids or a
+ * sequence outside of it fails the startup.
+ */
+@Slf4j
+public class ShardSchemaInitializer
+    implements HibernatePropertiesCustomizer, SmartInitializingSingleton {
+  // Ids of shard n start at n << 48, far apart enough for any shard
+  private static final int ID_RANGE_BITS = 48;
+  private static final Pattern ID_SEQUENCE =
+      Pattern.compile("create\\s+sequence\\s+user_id_seq", Pattern.CASE_INSENSITIVE);
+
+  private final ShardRoutingDataSource dataSource;
+  private final UsernameDirectory usernameDirectory;
+  private final String ddlAuto;
+  private final boolean create;
+  private final StringWriter dropScript = new StringWriter();
+  private final StringWriter createScript = new StringWriter();
+
+  public ShardSchemaInitializer(
+      ShardRoutingDataSource dataSource, UsernameDirectory usernameDirectory, String ddlAuto) {
+    this.dataSource = dataSource;
+    this.usernameDirectory = usernameDirectory;
+    this.ddlAuto = ddlAuto;
+    this.create = ddlAuto.startsWith("create");
+  }
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    if (!create) return;
+    // With a script action set Hibernate ignores hbm2ddl.auto for the database itself
+    hibernateProperties.put(
+        "javax.persistence.schema-generation.database.action",
+        Action.interpretHbm2ddlSetting(ddlAuto));
+    hibernateProperties.put(
+        "javax.persistence.schema-generation.scripts.action", "drop-and-create");
+    hibernateProperties.put("javax.persistence.schema-generation.scripts.drop-target", dropScript);
+    hibernateProperties.put(
+        "javax.persistence.schema-generation.scripts.create-target", createScript);
+    hibernateProperties.put("hibernate.hbm2ddl.delimiter", ";");
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    if (create) createSchemas();
+    for (int shard = 0; shard < dataSource.getShardCount(); shard++) {
+      try (Connection connection = dataSource.getShard(shard).getConnection()) {
+        checkIdRange(shard, connection);
+        if (!connection.getAutoCommit()) connection.commit();
+      } catch (SQLException e) {
+        throw new IllegalStateException("Checking the ids of shard " + shard + " failed", e);
+      }
+    }
+  }
+
+  private void createSchemas() {
+    String create = createScript.toString();
+    boolean sequence = ID_SEQUENCE.matcher(create).find();
+    for (int shard = 1; shard < dataSource.getShardCount(); shard++) {
+      try (Connection connection = dataSource.getShard(shard).getConnection()) {
+        ScriptUtils.executeSqlScript(
+            connection,
+            script(dropScript.toString()),
+            true,
+            true,
+            ScriptUtils.DEFAULT_COMMENT_PREFIX,
+            ScriptUtils.DEFAULT_STATEMENT_SEPARATOR,
+            ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+            ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+        ScriptUtils.executeSqlScript(connection, script(create));
+        restartSequence(connection, sequence, (long) shard << ID_RANGE_BITS);
+        if (!connection.getAutoCommit()) connection.commit();
+      } catch (SQLException e) {
+        throw new IllegalStateException("Creating the schema on shard " + shard + " failed", e);
+      }
+      log.info("Created the user schema on shard {}", shard);
+    }
+    // The user tables are new, so are their usernames
+    usernameDirectory.clear();
+  }
+
+  private static void checkIdRange(int shard, Connection connection) throws SQLException {
+    long first = (long) shard << ID_RANGE_BITS;
+    long end = first + (1L << ID_RANGE_BITS);
+    boolean sequence = !hasTable(connection, "user_id_seq");
+    long next = nextId(connection, sequence);
+    try (Statement statement = connection.createStatement();
+        ResultSet ids = statement.executeQuery("select min(id), max(id) from user")) {
+      ids.next();
+      long min = ids.getLong(1);
+      boolean empty = ids.wasNull();
+      long max = ids.getLong(2);
+      if (!empty && (min < first || max >= end)) {
+        throw new IllegalStateException(
+            String.format(
+                "Shard %d holds ids %d to %d, outside of its range %d to %d",
+                shard, min, max, first, end - 1));
+      }
+      if (empty && next < first) {
+        restartSequence(connection, sequence, first);
+        log.info("Moved the id sequence of shard {} to {}", shard, first);
+        return;
+      }
+      if (next < first || next > end - User.ID_ALLOCATION_SIZE || (!empty && next <= max)) {
+        throw new IllegalStateException(
+            String.format(
+                "The id sequence of shard %d is at %d, it has to be above its ids and within %d"
+                    + " to %d",
+                shard, next, first, end - 1));
+      }
+    }
+  }
+
+  // MySQL has no sequences, Hibernate emulates them with a table
+  private static void restartSequence(Connection connection, boolean sequence, long next)
+      throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(
+          sequence
+              ? "alter sequence user_id_seq restart with " + next
+              : "update user_id_seq set next_val = " + next);
+    }
+  }
+
+  private static long nextId(Connection connection, boolean sequence) throws SQLException {
+    String query =
+        sequence
+            ? "select current_value + increment from information_schema.sequences"
+                + " where upper(sequence_name) = 'USER_ID_SEQ'"
+            : "select next_val from user_id_seq";
+    try (Statement statement = connection.createStatement();
+        ResultSet next = statement.executeQuery(query)) {
+      if (!next.next()) throw new IllegalStateException("No user_id_seq sequence");
+      return next.getLong(1);
+    }
+  }
+
+  private static boolean hasTable(Connection connection, String name) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    for (String candidate : new String[] {name, name.toUpperCase(Locale.ROOT)}) {
+      try (ResultSet tables =
+          metaData.getTables(connection.getCatalog(), null, candidate, new String[] {"TABLE"})) {
+        if (tables.next()) return true;
+      }
+    }
+    return false;
+  }
+
+  private static EncodedResource script(String sql) {
+    return new EncodedResource(
+        new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,91 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.core.repositories.UsernameDirectory;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash shards users over the databases in {@code user-service.sharding.urls}, all reached with the
+ * {@code spring.datasource} credentials and pool settings. Pools are named {@code shard-<n>}, shard
+ * 0 also holds the username directory. Excludes read replicas, both provide the datasource.
+ *
+ * <p>The number of shards decides where users live, changing it needs the users to be moved, there
+ * is no rebalancing. {@code data.sql} would only reach shard 0, keep datasource initialization off.
+ */
+@Configuration
+@ConditionalOnProperty("user-service.sharding.urls")
+public class ShardingConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public ShardRoutingDataSource dataSource(
+      DataSourceProperties properties,
+      Environment environment,
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${user-service.sharding.urls}") String[] urls) {
+    List<HikariDataSource> shards = new ArrayList<>();
+    for (int i = 0; i < urls.length; i++) {
+      HikariDataSource shard =
+          properties
+              .initializeDataSourceBuilder()
+              .type(HikariDataSource.class)
+              .url(urls[i].trim())
+              .build();
+      Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+      shard.setPoolName("shard-" + i);
+      ReplicaRoutingConfiguration.monitor(shard, meterRegistry);
+      shards.add(shard);
+    }
+    return new ShardRoutingDataSource(shards);
+  }
+
+  @Bean(initMethod = "createTable")
+  public UsernameDirectory usernameDirectory(ShardRoutingDataSource dataSource) {
+    return new UsernameDirectory(dataSource.getShard(0));
+  }
+
+  // Hibernate creates the schema on shard 0 only, the others get the same script. Id ranges are
+  // checked with any ddl-auto
+  @Bean
+  public ShardSchemaInitializer shardSchemaInitializer(
+      ShardRoutingDataSource dataSource,
+      UsernameDirectory usernameDirectory,
+      @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+    return new ShardSchemaInitializer(dataSource, usernameDirectory, ddlAuto);
+  }
+
+  // Ordered after the timing advisor, so repository timings include the whole scatter
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  public static Advisor userRepositoryShardingAdvisor(
+      ObjectProvider<ShardRoutingDataSource> dataSource,
+      ObjectProvider<PlatformTransactionManager> transactionManager,
+      ObjectProvider<UsernameDirectory> usernameDirectory) {
+    DefaultPointcutAdvisor advisor =
+        new DefaultPointcutAdvisor(
+            new ComposablePointcut(new RootClassFilter(UserRepository.class)),
+            new ShardingRepositoryInterceptor(dataSource, transactionManager, usernameDirectory));
+    advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+    return advisor;
+  }
+}
@@ -0,0 +1,565 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.core.repositories.UsernameDirectory;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spreads {@link UserRepository} calls over the shards of a {@link ShardRoutingDataSource}. Calls
+ * by uid go to the uid's shard, batches are split by shard, and queries over all users are sent to
+ * every shard in parallel and merged. Usernames are reserved in the {@link UsernameDirectory}
+ * before users are written, a taken username fails the write like the unique index would.
+ *
+ * <p>Every shard call runs in a transaction of its own on that shard, so a caller's transaction
+ * does not span shards and a batch over several shards is not atomic: shards that succeeded stay
+ * committed when another one fails. Every {@link UserRepository} method needs a sharded
+ * implementation, the interceptor fails to start when one is missing.
+ */
+public class ShardingRepositoryInterceptor implements MethodInterceptor, DisposableBean {
+  // Sort of pages requested without one, a merge needs the same total order on every shard
+  private static final Sort DEFAULT_PAGE_SORT = Sort.by("createdDateTime", "id");
+  private static final Comparator<Object> NEWEST_FIRST =
+      new PropertyComparator<>("createdDateTime", false, false)
+          .thenComparing(new PropertyComparator<>("id", false, false));
+
+  private final ObjectProvider<ShardRoutingDataSource> dataSource;
+  private final ObjectProvider<PlatformTransactionManager> transactionManager;
+  private final ObjectProvider<UsernameDirectory> usernameDirectory;
+  private final ExecutorService executor;
+  private final Map<String, ShardedCall> calls = shardedCalls();
+
+  /**
+   * @param dataSource resolved on the first call like the other collaborators, advisors are created
+   *     before them
+   */
+  public ShardingRepositoryInterceptor(
+      ObjectProvider<ShardRoutingDataSource> dataSource,
+      ObjectProvider<PlatformTransactionManager> transactionManager,
+      ObjectProvider<UsernameDirectory> usernameDirectory) {
+    this.dataSource = dataSource;
+    this.transactionManager = transactionManager;
+    this.usernameDirectory = usernameDirectory;
+    checkSharded(UserRepository.class);
+    // Unbounded, a scatter waits for its shard calls and must not queue behind other scatters.
+    // Connections are bounded by the shard pools.
+    this.executor = Executors.newCachedThreadPool(DaemonThreads.factory("user-shard-"));
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    // Already on a shard, or nothing that reaches the database
+    if (ShardContext.get() != null || ReflectionUtils.isObjectMethod(invocation.getMethod())) {
+      return invocation.proceed();
+    }
+    // checkSharded made sure every repository method has one
+    return calls.get(invocation.getMethod().getName()).invoke(invocation);
+  }
+
+  /**
+   * Fails when the repository has a method without a sharded implementation, so a method added to
+   * {@link UserRepository} fails on startup instead of on its first call.
+   */
+  void checkSharded(Class<?> repository) {
+    List<String> missing =
+        Arrays.stream(repository.getMethods())
+            .filter(method -> !Modifier.isStatic(method.getModifiers()))
+            .map(Method::getName)
+            .filter(name -> !calls.containsKey(name))
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+    if (!missing.isEmpty()) {
+      throw new IllegalStateException(
+          repository.getSimpleName() + " methods without a sharded implementation: " + missing);
+    }
+  }
+
+  // Sharded implementations by repository method name
+  @SuppressWarnings("unchecked")
+  private Map<String, ShardedCall> shardedCalls() {
+    Map<String, ShardedCall> calls = new HashMap<>();
+    calls.put("detach", MethodInvocation::proceed);
+    calls.put(
+        "findByUid",
+        invocation ->
+            onShard(
+                dataSource.getObject().shardOf((UUID) invocation.getArguments()[0]),
+                invocation,
+                invocation.getArguments(),
+                true));
+    ShardedCall save = invocation -> save(invocation, (User) invocation.getArguments()[0]);
+    calls.put("save", save);
+    calls.put("saveAndFlush", save);
+    ShardedCall saveAll =
+        invocation -> saveAll(invocation, (Iterable<User>) invocation.getArguments()[0]);
+    calls.put("saveAll", saveAll);
+    calls.put("insertAll", saveAll);
+    calls.put(
+        "findExistingUsernames",
+        invocation ->
+            usernameDirectory
+                .getObject()
+                .findExisting((Collection<String>) invocation.getArguments()[0]));
+    calls.put(
+        "findExistingUids",
+        invocation ->
+            concat(
+                byUid(invocation, (Collection<UUID>) invocation.getArguments()[0], true)
+                    .values()));
+    calls.put(
+        "deleteByUids",
+        invocation -> deleteByUids(invocation, (Collection<UUID>) invocation.getArguments()[0]));
+    calls.put(
+        "count",
+        invocation ->
+            everyShard(invocation, invocation.getArguments()).values().stream()
+                .mapToLong(count -> (Long) count)
+                .sum());
+    calls.put("findAllBy", invocation -> findPage(invocation, 0));
+    calls.put("findNewest", invocation -> findPage(invocation, 0));
+    calls.put("findNewestBefore", invocation -> findPage(invocation, 2));
+    calls.put("findUidsCreatedBefore", this::findUids);
+    calls.put("streamAll", this::stream);
+    calls.put("streamAllUsernames", this::stream);
+    return calls;
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private Object save(MethodInvocation invocation, User user) throws Throwable {
+    boolean reserved = user.getId() == null;
+    if (reserved && !usernameDirectory.getObject().reserve(Collections.singletonList(user))) {
+      throw usernameTaken();
+    }
+    try {
+      return onShard(
+          dataSource.getObject().shardOf(user.getUid()),
+          invocation,
+          invocation.getArguments(),
+          false);
+    } catch (Throwable e) {
+      if (reserved) usernameDirectory.getObject().release(Collections.singleton(user.getUid()));
+      throw e;
+    }
+  }
+
+  // Results in the order of the given users, whatever shards they went to
+  private List<User> saveAll(MethodInvocation invocation, Iterable<User> users) throws Throwable {
+    List<User> all = new ArrayList<>();
+    users.forEach(all::add);
+    List<User> reserved =
+        all.stream().filter(user -> user.getId() == null).collect(Collectors.toList());
+    if (!usernameDirectory.getObject().reserve(reserved)) throw usernameTaken();
+    Set<UUID> reservedUids = reserved.stream().map(User::getUid).collect(Collectors.toSet());
+
+    ShardRoutingDataSource shards = dataSource.getObject();
+    Map<Integer, List<Integer>> positions = new TreeMap<>();
+    for (int i = 0; i < all.size(); i++) {
+      positions
+          .computeIfAbsent(shards.shardOf(all.get(i).getUid()), shard -> new ArrayList<>())
+          .add(i);
+    }
+    Map<Integer, Object[]> calls = new TreeMap<>();
+    positions.forEach(
+        (shard, indexes) ->
+            calls.put(
+                shard,
+                new Object[] {indexes.stream().map(all::get).collect(Collectors.toList())}));
+    Map<Integer, ShardResult> results = scatter(invocation, calls, false);
+
+    // Failed shards wrote nothing, their users give up the usernames
+    List<UUID> failed = new ArrayList<>();
+    results.forEach(
+        (shard, result) -> {
+          if (result.failure == null) return;
+          for (int i : positions.get(shard)) {
+            if (reservedUids.contains(all.get(i).getUid())) failed.add(all.get(i).getUid());
+          }
+        });
+    if (!failed.isEmpty()) {
+      usernameDirectory.getObject().release(failed);
+      throw firstFailure(results);
+    }
+
+    User[] saved = new User[all.size()];
+    results.forEach(
+        (shard, result) -> {
+          List<?> shardUsers = (List<?>) result.value;
+          List<Integer> indexes = positions.get(shard);
+          for (int i = 0; i < indexes.size(); i++) saved[indexes.get(i)] = (User) shardUsers.get(i);
+        });
+    return Arrays.asList(saved);
+  }
+
+  // Shards that deleted release their usernames also when another shard failed
+  private int deleteByUids(MethodInvocation invocation, Collection<UUID> uids) throws Throwable {
+    Map<Integer, List<UUID>> uidsByShard = byShard(uids);
+    Map<Integer, ShardResult> results = scatter(invocation, calls(uidsByShard), false);
+    List<UUID> deletedUids = new ArrayList<>();
+    int deleted = 0;
+    Throwable failure = null;
+    for (Map.Entry<Integer, ShardResult> result : results.entrySet()) {
+      if (result.getValue().failure != null) {
+        if (failure == null) failure = result.getValue().failure;
+        continue;
+      }
+      deleted += (Integer) result.getValue().value;
+      deletedUids.addAll(uidsByShard.get(result.getKey()));
+    }
+    usernameDirectory.getObject().release(deletedUids);
+    if (failure != null) throw failure;
+    return deleted;
+  }
+
+  /**
+   * Asks every shard for the first {@code offset + size} rows in the page's order and merges them.
+   * The cost grows with the offset on every shard, slices by cursor stay cheap.
+   */
+  private List<Object> findPage(MethodInvocation invocation, int pageableIndex) throws Throwable {
+    Object[] arguments = invocation.getArguments().clone();
+    Pageable pageable = (Pageable) arguments[pageableIndex];
+    Comparator<Object> order = NEWEST_FIRST;
+    if (invocation.getMethod().getName().equals("findAllBy")) {
+      Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : DEFAULT_PAGE_SORT;
+      // Ids are unique over all shards, they break ties the same way everywhere
+      if (sort.getOrderFor("id") == null) sort = sort.and(Sort.by("id"));
+      arguments[pageableIndex] = firstRows(pageable, sort);
+      order = comparator(sort);
+    } else {
+      arguments[pageableIndex] = firstRows(pageable, pageable.getSort());
+    }
+
+    Map<Integer, Object> pages = everyShard(invocation, arguments);
+    PriorityQueue<PeekingIterator> heads =
+        new PriorityQueue<>(pages.size() + 1, Comparator.comparing(head -> head.peek(), order));
+    for (Object page : pages.values()) {
+      PeekingIterator head = new PeekingIterator(((List<?>) page).iterator());
+      if (head.hasNext()) heads.add(head);
+    }
+    List<Object> merged = new ArrayList<>(pageable.getPageSize());
+    for (long skipped = 0; !heads.isEmpty() && merged.size() < pageable.getPageSize(); ) {
+      PeekingIterator head = heads.poll();
+      Object row = head.next();
+      if (skipped < pageable.getOffset()) {
+        skipped++;
+      } else {
+        merged.add(row);
+      }
+      if (head.hasNext()) heads.add(head);
+    }
+    return merged;
+  }
+
+  // The callers delete what they find and ask again, any uids of the limit do
+  private List<Object> findUids(MethodInvocation invocation) throws Throwable {
+    Object[] arguments = invocation.getArguments().clone();
+    Pageable pageable = (Pageable) arguments[1];
+    arguments[1] = firstRows(pageable, pageable.getSort());
+    return concat(everyShard(invocation, arguments).values()).stream()
+        .skip(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .collect(Collectors.toList());
+  }
+
+  // Shards one after the other, each streamed in a read-only transaction of its own
+  private Stream<Object> stream(MethodInvocation invocation) {
+    ShardStream shardStream = new ShardStream(invocation);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(shardStream, Spliterator.ORDERED), false)
+        .onClose(shardStream::close);
+  }
+
+  private Map<Integer, Object> byUid(
+      MethodInvocation invocation, Collection<UUID> uids, boolean readOnly) throws Throwable {
+    return values(scatter(invocation, calls(byShard(uids)), readOnly));
+  }
+
+  private Map<Integer, List<UUID>> byShard(Collection<UUID> uids) {
+    ShardRoutingDataSource shards = dataSource.getObject();
+    return uids.stream()
+        .collect(Collectors.groupingBy(shards::shardOf, TreeMap::new, Collectors.toList()));
+  }
+
+  // A call per shard with the shard's uids as the only argument
+  private static Map<Integer, Object[]> calls(Map<Integer, List<UUID>> uidsByShard) {
+    Map<Integer, Object[]> calls = new TreeMap<>();
+    uidsByShard.forEach((shard, shardUids) -> calls.put(shard, new Object[] {shardUids}));
+    return calls;
+  }
+
+  private Map<Integer, Object> everyShard(MethodInvocation invocation, Object[] arguments)
+      throws Throwable {
+    Map<Integer, Object[]> calls = new TreeMap<>();
+    for (int shard = 0; shard < dataSource.getObject().getShardCount(); shard++) {
+      calls.put(shard, arguments);
+    }
+    return values(scatter(invocation, calls, true));
+  }
+
+  // Runs the calls in parallel, the first one on the calling thread, and waits for all of them
+  private Map<Integer, ShardResult> scatter(
+      MethodInvocation invocation, Map<Integer, Object[]> calls, boolean readOnly) {
+    Map<Integer, CompletableFuture<Object>> futures = new TreeMap<>();
+    Map.Entry<Integer, Object[]> first = null;
+    for (Map.Entry<Integer, Object[]> call : calls.entrySet()) {
+      if (first == null) {
+        first = call;
+        continue;
+      }
+      futures.put(
+          call.getKey(),
+          CompletableFuture.supplyAsync(
+              () -> onShard(call.getKey(), invocation, call.getValue(), readOnly), executor));
+    }
+
+    Map<Integer, ShardResult> results = new TreeMap<>();
+    if (first != null) {
+      try {
+        results.put(
+            first.getKey(),
+            ShardResult.of(onShard(first.getKey(), invocation, first.getValue(), readOnly)));
+      } catch (RuntimeException | Error e) {
+        results.put(first.getKey(), ShardResult.failed(e));
+      }
+    }
+    futures.forEach(
+        (shard, future) -> {
+          try {
+            results.put(shard, ShardResult.of(future.join()));
+          } catch (CompletionException e) {
+            results.put(shard, ShardResult.failed(e.getCause()));
+          }
+        });
+    return results;
+  }
+
+  private Object onShard(
+      int shard, MethodInvocation invocation, Object[] arguments, boolean readOnly) {
+    TransactionTemplate transaction =
+        new TransactionTemplate(transactionManager.getObject(), definition(readOnly));
+    Integer previous = ShardContext.bind(shard);
+    try {
+      return transaction.execute(status -> proceed(invocation, arguments));
+    } finally {
+      ShardContext.restore(previous);
+    }
+  }
+
+  private static Object proceed(MethodInvocation invocation, Object[] arguments) {
+    try {
+      return ((ProxyMethodInvocation) invocation).invocableClone(arguments).proceed();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
+  private static TransactionDefinition definition(boolean readOnly) {
+    DefaultTransactionDefinition definition =
+        new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    definition.setReadOnly(readOnly);
+    return definition;
+  }
+
+  private static Map<Integer, Object> values(Map<Integer, ShardResult> results) throws Throwable {
+    Map<Integer, Object> values = new TreeMap<>();
+    for (Map.Entry<Integer, ShardResult> result : results.entrySet()) {
+      if (result.getValue().failure != null) throw result.getValue().failure;
+      values.put(result.getKey(), result.getValue().value);
+    }
+    return values;
+  }
+
+  private static Throwable firstFailure(Map<Integer, ShardResult> results) {
+    return results.values().stream()
+        .map(result -> result.failure)
+        .filter(Objects::nonNull)
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+  }
+
+  private static Pageable firstRows(Pageable pageable, Sort sort) {
+    long rows = pageable.getOffset() + pageable.getPageSize();
+    if (rows > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Page offset is too large: " + pageable.getOffset());
+    }
+    return PageRequest.of(0, (int) rows, sort);
+  }
+
+  private static Comparator<Object> comparator(Sort sort) {
+    Comparator<Object> comparator = null;
+    for (Sort.Order order : sort) {
+      Comparator<Object> next =
+          new PropertyComparator<>(order.getProperty(), order.isIgnoreCase(), order.isAscending());
+      comparator = comparator == null ? next : comparator.thenComparing(next);
+    }
+    return comparator;
+  }
+
+  private static List<Object> concat(Collection<Object> lists) {
+    List<Object> all = new ArrayList<>();
+    lists.forEach(list -> all.addAll((List<?>) list));
+    return all;
+  }
+
+  // What the unique username index raises, so callers handle both the same way
+  private static DataIntegrityViolationException usernameTaken() {
+    return new DataIntegrityViolationException(
+        "Username is taken",
+        new ConstraintViolationException("Username is taken", null, User.USERNAME_CONSTRAINT));
+  }
+
+  @FunctionalInterface
+  private interface ShardedCall {
+    Object invoke(MethodInvocation invocation) throws Throwable;
+  }
+
+  private static final class ShardResult {
+    private final Object value;
+    private final Throwable failure;
+
+    private ShardResult(Object value, Throwable failure) {
+      this.value = value;
+      this.failure = failure;
+    }
+
+    static ShardResult of(Object value) {
+      return new ShardResult(value, null);
+    }
+
+    static ShardResult failed(Throwable failure) {
+      return new ShardResult(null, failure);
+    }
+  }
+
+  private static final class PeekingIterator {
+    private final Iterator<?> iterator;
+    private Object head;
+    private boolean peeked;
+
+    PeekingIterator(Iterator<?> iterator) {
+      this.iterator = iterator;
+    }
+
+    boolean hasNext() {
+      return peeked || iterator.hasNext();
+    }
+
+    Object peek() {
+      if (!peeked) {
+        head = iterator.next();
+        peeked = true;
+      }
+      return head;
+    }
+
+    Object next() {
+      Object next = peek();
+      peeked = false;
+      head = null;
+      return next;
+    }
+  }
+
+  /**
+   * Streams of the shards in turn. A shard's transaction is committed once its stream is consumed,
+   * so the caller's transactions in between have to be completed by then, as with any nested
+   * transaction.
+   */
+  private final class ShardStream implements Iterator<Object> {
+    private final MethodInvocation invocation;
+    private int nextShard;
+    private TransactionStatus transaction;
+    private Stream<?> stream;
+    private Iterator<?> current = Collections.emptyIterator();
+
+    ShardStream(MethodInvocation invocation) {
+      this.invocation = invocation;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!current.hasNext()) {
+        closeCurrent();
+        if (nextShard == dataSource.getObject().getShardCount()) return false;
+        open(nextShard++);
+      }
+      return true;
+    }
+
+    @Override
+    public Object next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      return current.next();
+    }
+
+    void close() {
+      closeCurrent();
+      nextShard = dataSource.getObject().getShardCount();
+    }
+
+    private void open(int shard) {
+      PlatformTransactionManager manager = transactionManager.getObject();
+      Integer previous = ShardContext.bind(shard);
+      try {
+        transaction = manager.getTransaction(definition(true));
+        stream = (Stream<?>) proceed(invocation, invocation.getArguments());
+      } catch (RuntimeException | Error e) {
+        TransactionStatus failed = transaction;
+        transaction = null;
+        if (failed != null) manager.rollback(failed);
+        throw e;
+      } finally {
+        ShardContext.restore(previous);
+      }
+      current = stream.iterator();
+    }
+
+    private void closeCurrent() {
+      current = Collections.emptyIterator();
+      if (stream != null) {
+        stream.close();
+        stream = null;
+      }
+      if (transaction != null) {
+        TransactionStatus completed = transaction;
+        transaction = null;
+        transactionManager.getObject().commit(completed);
+      }
+    }
+  }
+}
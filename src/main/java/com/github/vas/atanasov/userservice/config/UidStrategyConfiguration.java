@@ -0,0 +1,21 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.domain.UidGenerator;
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** The {@link UidGenerator} of new users, picked with {@code user-service.uid.strategy}. */
+@Slf4j
+@Configuration
+public class UidStrategyConfiguration {
+
+  @Bean
+  public UidGenerator uidGenerator(
+      @Value("${user-service.uid.strategy:TIME_ORDERED}") UidStrategy strategy) {
+    log.info("User uid strategy: {}", strategy);
+    return strategy;
+  }
+}
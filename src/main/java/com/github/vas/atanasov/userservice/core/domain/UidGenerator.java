@@ -0,0 +1,9 @@
+package com.github.vas.atanasov.userservice.core.domain;
+
+import java.util.UUID;
+
+/** Hands out the uids of new users, configured with {@code user-service.uid.strategy}. */
+@FunctionalInterface
+public interface UidGenerator {
+  UUID next();
+}
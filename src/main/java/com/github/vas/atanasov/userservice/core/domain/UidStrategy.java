@@ -0,0 +1,25 @@
+package com.github.vas.atanasov.userservice.core.domain;
+
+import com.github.vas.atanasov.userservice.utils.TimeOrderedUuids;
+
+import java.util.UUID;
+
+public enum UidStrategy implements UidGenerator {
+  /** Version 4 uids, inserts land on random pages of the uid index. */
+  RANDOM {
+    @Override
+    public UUID next() {
+      return UUID.randomUUID();
+    }
+  },
+  /**
+   * Version 7 uids, increasing with creation time so inserts append to the uid index. Existing
+   * version 4 uids stay valid, both are looked up the same way.
+   */
+  TIME_ORDERED {
+    @Override
+    public UUID next() {
+      return TimeOrderedUuids.next();
+    }
+  }
+}
@@ -1,31 +1,51 @@
 package com.github.vas.atanasov.userservice.core.domain;
 
 import lombok.Getter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.UUID;
 
 @Getter
 @Entity
 @Table(
     name = "user",
-    indexes = {@Index(name = "idx_user_uid", columnList = "uid")})
+    uniqueConstraints =
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+    indexes = {
+      @Index(name = "idx_user_uid", columnList = "uid"),
+      @Index(name = "idx_user_created_date_time_id", columnList = "created_date_time, id")
+    })
 public class User implements HasID<Long> {
 
   public static final int MAX_USERNAME_LENGTH = 50;
   public static final int MAX_NAME_LENGTH = 30;
+  public static final int ID_ALLOCATION_SIZE = 50;
+  public static final String USERNAME_CONSTRAINT = "uk_user_username";
 
+  // IDENTITY columns force Hibernate to insert row by row to read back the key, which disables
+  // JDBC batching. A pooled sequence (emulated with a table on MySQL) hands out ids in blocks.
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_generator")
+  @GenericGenerator(
+      name = "user_id_generator",
+      strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+      parameters = {
+        @Parameter(name = "sequence_name", value = "user_id_seq"),
+        @Parameter(name = "increment_size", value = "" + ID_ALLOCATION_SIZE),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+      })
   @Column(name = "id", nullable = false, updatable = false, unique = true)
   private Long id;
 
   @Column(name = "uid", nullable = false, unique = true, columnDefinition = "BINARY(16)")
   private UUID uid;
 
-  @Column(name = "username", nullable = false, unique = true, length = MAX_USERNAME_LENGTH)
+  @Column(name = "username", nullable = false, length = MAX_USERNAME_LENGTH)
   private String username;
 
   @Column(name = "first_name", nullable = false, length = MAX_NAME_LENGTH)
@@ -39,24 +59,41 @@ public class User implements HasID<Long> {
 
   protected User() {}
 
-  public static User empty() {
-    User user = new User();
-    user.uid = UUID.randomUUID();
-    return user;
+  /** Creates a new user under a uid of the configured {@link UidGenerator}. */
+  public static User of(UUID uid, String username, String firstName, String lastName) {
+    return of(uid, username, firstName, lastName, LocalDateTime.now());
   }
 
-  public static User of(String username, String firstName, String lastName) {
+  /** Creates a user under a uid and creation time handed out before the user is stored. */
+  public static User of(
+      UUID uid,
+      String username,
+      String firstName,
+      String lastName,
+      LocalDateTime createdDateTime) {
+    if (uid == null) {
+      throw new IllegalArgumentException("Uid cannot be null!");
+    }
     if (!StringUtils.hasLength(username) && !StringUtils.hasLength(firstName)) {
       throw new IllegalArgumentException("Username and First Name cannot both be null!");
     }
-    User user = empty();
+    User user = new User();
+    user.uid = uid;
     user.username = username;
     user.firstName = firstName;
     user.lastName = StringUtils.hasLength(lastName) ? lastName : null;
-    user.createdDateTime = LocalDateTime.now();
+    user.createdDateTime = createdDateTime;
     return user;
   }
 
+  /**
+   * Key under which the database compares usernames. The username column uses a case insensitive
+   * collation, so in-memory lookups have to ignore case as well.
+   */
+  public static String usernameKey(String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
+
   @PreUpdate
   @PrePersist
   public void updateTimeStamps() {
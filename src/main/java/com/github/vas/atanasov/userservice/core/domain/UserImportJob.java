@@ -0,0 +1,136 @@
+package com.github.vas.atanasov.userservice.core.domain;
+
+import lombok.Getter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A bulk import of users from an uploaded file. {@code rowsRead} counts the rows of the file whose
+ * outcome is committed, the users of a chunk are stored in the same transaction that advances it,
+ * so an interrupted import continues after the last committed chunk.
+ */
+@Getter
+@Entity
+@Table(
+    name = "user_import_job",
+    indexes = {
+      @Index(name = "idx_user_import_job_uid", columnList = "uid", unique = true),
+      @Index(name = "idx_user_import_job_status", columnList = "status")
+    })
+public class UserImportJob implements HasID<Long> {
+  public static final int MAX_ERROR_LENGTH = 500;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", nullable = false, updatable = false)
+  private Long id;
+
+  @Column(name = "uid", nullable = false, updatable = false, columnDefinition = "BINARY(16)")
+  private UUID uid;
+
+  @Column(name = "format", nullable = false, updatable = false, length = 10)
+  private String format;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false, length = 10)
+  private UserImportStatus status;
+
+  @Column(name = "rows_read", nullable = false)
+  private long rowsRead;
+
+  @Column(name = "created", nullable = false)
+  private long created;
+
+  @Column(name = "skipped", nullable = false)
+  private long skipped;
+
+  @Column(name = "rejected", nullable = false)
+  private long rejected;
+
+  // Only the first rejections are kept, the counters cover all of them
+  @ElementCollection
+  @CollectionTable(
+      name = "user_import_rejection",
+      joinColumns = @JoinColumn(name = "job_id", nullable = false))
+  @OrderColumn(name = "rejection_order")
+  private List<UserImportRejection> rejections = new ArrayList<>();
+
+  @Column(name = "error", length = MAX_ERROR_LENGTH)
+  private String error;
+
+  @Column(name = "created_date_time", updatable = false, nullable = false)
+  private LocalDateTime createdDateTime;
+
+  @Column(name = "updated_date_time", nullable = false)
+  private LocalDateTime updatedDateTime;
+
+  protected UserImportJob() {}
+
+  public static UserImportJob of(UUID uid, String format) {
+    if (uid == null || format == null) {
+      throw new IllegalArgumentException("Uid and format cannot be null!");
+    }
+    UserImportJob job = new UserImportJob();
+    job.uid = uid;
+    job.format = format;
+    job.status = UserImportStatus.PENDING;
+    return job;
+  }
+
+  public boolean isFinished() {
+    return status == UserImportStatus.COMPLETED || status == UserImportStatus.FAILED;
+  }
+
+  public void start() {
+    status = UserImportStatus.RUNNING;
+  }
+
+  /**
+   * Records the outcome of the next chunk of rows.
+   *
+   * @param rows number of rows in the chunk
+   * @param skipped rows whose username or uid is taken or repeated
+   * @param rejected rows that failed to parse or validate
+   * @param rejections details of the skipped and rejected rows
+   * @param maxRejections number of rejections kept for the whole job
+   */
+  public void recordChunk(
+      long rows,
+      long created,
+      long skipped,
+      long rejected,
+      List<UserImportRejection> rejections,
+      int maxRejections) {
+    rowsRead += rows;
+    this.created += created;
+    this.skipped += skipped;
+    this.rejected += rejected;
+    for (UserImportRejection rejection : rejections) {
+      if (this.rejections.size() >= maxRejections) break;
+      this.rejections.add(rejection);
+    }
+  }
+
+  public void complete() {
+    status = UserImportStatus.COMPLETED;
+  }
+
+  public void fail(String error) {
+    status = UserImportStatus.FAILED;
+    this.error =
+        error == null || error.length() <= MAX_ERROR_LENGTH
+            ? error
+            : error.substring(0, MAX_ERROR_LENGTH);
+  }
+
+  @PreUpdate
+  @PrePersist
+  public void updateTimeStamps() {
+    updatedDateTime = LocalDateTime.now();
+    if (createdDateTime == null) createdDateTime = updatedDateTime;
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.vas.atanasov.userservice.core.domain;
+
+import lombok.Getter;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/** A row of an import that did not become a user, and why. */
+@Getter
+@Embeddable
+public class UserImportRejection {
+  public static final int MAX_VALUE_LENGTH = 255;
+
+  @Column(name = "source_row", nullable = false)
+  private long row;
+
+  @Column(name = "username", length = MAX_VALUE_LENGTH)
+  private String username;
+
+  @Column(name = "reason", nullable = false, length = MAX_VALUE_LENGTH)
+  private String reason;
+
+  protected UserImportRejection() {}
+
+  public static UserImportRejection of(long row, String username, String reason) {
+    UserImportRejection rejection = new UserImportRejection();
+    rejection.row = row;
+    rejection.username = truncate(username);
+    rejection.reason = truncate(reason);
+    return rejection;
+  }
+
+  private static String truncate(String value) {
+    return value == null || value.length() <= MAX_VALUE_LENGTH
+        ? value
+        : value.substring(0, MAX_VALUE_LENGTH);
+  }
+}
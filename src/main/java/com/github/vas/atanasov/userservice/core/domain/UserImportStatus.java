@@ -0,0 +1,8 @@
+package com.github.vas.atanasov.userservice.core.domain;
+
+public enum UserImportStatus {
+  PENDING,
+  RUNNING,
+  COMPLETED,
+  FAILED
+}
@@ -0,0 +1,31 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Read-only transactions that stay on the primary when reads are routed to replicas. Meant for
+ * scans rebuilding in-memory state from the table, which would otherwise miss the writes a replica
+ * has not applied yet. They are marked by their name, the routing checks {@link #isCurrent()}.
+ */
+public final class PrimaryReadTransactions {
+  private static final String NAME_PREFIX = "primary-read:";
+
+  private PrimaryReadTransactions() {}
+
+  /** @param name describes the scan, e.g. in transaction logs */
+  public static TransactionTemplate create(
+      PlatformTransactionManager transactionManager, String name) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    transaction.setName(NAME_PREFIX + name);
+    return transaction;
+  }
+
+  /** @return whether the transaction of the current thread was created here */
+  public static boolean isCurrent() {
+    String name = TransactionSynchronizationManager.getCurrentTransactionName();
+    return name != null && name.startsWith(NAME_PREFIX);
+  }
+}
@@ -0,0 +1,19 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import com.github.vas.atanasov.userservice.core.domain.UserImportJob;
+import com.github.vas.atanasov.userservice.core.domain.UserImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserImportJobRepository extends JpaRepository<UserImportJob, Long> {
+
+  Optional<UserImportJob> findByUid(UUID uid);
+
+  List<UserImportJob> findByStatusIn(Collection<UserImportStatus> statuses);
+}
@@ -1,15 +1,91 @@
 package com.github.vas.atanasov.userservice.core.repositories;
 
 import com.github.vas.atanasov.userservice.core.domain.User;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * Users, declaring only the CRUD methods in use instead of extending {@code JpaRepository}. Every
+ * method needs a sharded implementation in {@code ShardingRepositoryInterceptor}, which checks for
+ * them on startup.
+ */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-  boolean existsByUsername(String username);
+public interface UserRepository
+    extends org.springframework.data.repository.Repository<User, Long>, UserRepositoryCustom {
+  // With useCursorFetch on the connection a positive fetch size opens a server side cursor, so rows
+  // are pulled from MySQL in chunks of this size instead of materializing the whole result set.
+  String STREAM_FETCH_SIZE = "1000";
+
+  <S extends User> S save(S user);
+
+  <S extends User> S saveAndFlush(S user);
+
+  <S extends User> List<S> saveAll(Iterable<S> users);
+
+  long count();
 
   Optional<User> findByUid(UUID uid);
+
+  /** Page content without a count query. */
+  List<User> findAllBy(Pageable pageable);
+
+  @Query("select u.username from User u where u.username in :usernames")
+  List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+  @Query("select u.uid from User u where u.uid in :uids")
+  List<UUID> findExistingUids(@Param("uids") Collection<UUID> uids);
+
+  @Query("select u.uid from User u where u.createdDateTime < :createdBefore")
+  List<UUID> findUidsCreatedBefore(
+      @Param("createdBefore") LocalDateTime createdBefore, Pageable pageable);
+
+  /** Set based delete, bypasses the persistence context and entity callbacks. */
+  @Modifying
+  @Query("delete from User u where u.uid in :uids")
+  int deleteByUids(@Param("uids") Collection<UUID> uids);
+
+  @Query("select u from User u order by u.createdDateTime desc, u.id desc")
+  List<User> findNewest(Pageable pageable);
+
+  @Query(
+      "select u from User u"
+          + " where u.createdDateTime < :createdDateTime"
+          + " or (u.createdDateTime = :createdDateTime and u.id < :id)"
+          + " order by u.createdDateTime desc, u.id desc")
+  List<User> findNewestBefore(
+      @Param("createdDateTime") LocalDateTime createdDateTime,
+      @Param("id") Long id,
+      Pageable pageable);
+
+  /**
+   * Streams all users in id order over a forward only cursor. Has to be consumed and closed inside a
+   * transaction, detach the entities once processed to keep the persistence context empty.
+   */
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+    @QueryHint(name = HINT_READONLY, value = "true"),
+    @QueryHint(name = HINT_CACHEABLE, value = "false")
+  })
+  @Query("select u from User u order by u.id")
+  Stream<User> streamAll();
+
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+  @Query("select u.username from User u")
+  Stream<String> streamAllUsernames();
 }
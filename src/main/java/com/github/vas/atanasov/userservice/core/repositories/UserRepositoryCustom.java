@@ -0,0 +1,20 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+  /**
+   * Persists new users and flushes them in chunks of the configured JDBC batch size, clearing the
+   * persistence context after every chunk so memory stays bounded for large inputs. The returned
+   * entities are detached.
+   *
+   * @param users transient users, none of them may have an id assigned
+   * @return the persisted users with their ids populated
+   */
+  List<User> insertAll(List<User> users);
+
+  void detach(User user);
+}
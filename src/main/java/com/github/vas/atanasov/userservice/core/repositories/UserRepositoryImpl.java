@@ -0,0 +1,37 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize;
+
+  @Override
+  @Transactional
+  public List<User> insertAll(List<User> users) {
+    for (int i = 0; i < users.size(); i++) {
+      entityManager.persist(users.get(i));
+      if ((i + 1) % batchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+    return users;
+  }
+
+  @Override
+  public void detach(User user) {
+    entityManager.detach(user);
+  }
+}
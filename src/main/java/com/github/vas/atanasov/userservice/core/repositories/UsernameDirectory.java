@@ -0,0 +1,106 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Usernames of all users, kept in one table when users are spread over shards, so that the unique
+ * index on {@code username_key} decides globally which create gets a username. A reservation is
+ * committed before the user is written to its shard and released when that write or a later delete
+ * removes the user.
+ */
+public class UsernameDirectory {
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transaction;
+
+  public UsernameDirectory(DataSource dataSource) {
+    this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    this.transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+
+  public void createTable() {
+    jdbcTemplate
+        .getJdbcOperations()
+        .execute(
+            "create table if not exists username_directory ("
+                + " username_key varchar("
+                + User.MAX_USERNAME_LENGTH
+                + ") not null primary key,"
+                + " uid binary(16) not null,"
+                + " index idx_username_directory_uid (uid))");
+  }
+
+  /** Drops all reservations, for a directory next to freshly created user tables. */
+  public void clear() {
+    jdbcTemplate.getJdbcOperations().update("delete from username_directory");
+  }
+
+  /**
+   * Reserves the usernames of the given users, all or none of them.
+   *
+   * @return {@code false} if one of the usernames is already taken, nothing is reserved then
+   */
+  public boolean reserve(Collection<User> users) {
+    if (users.isEmpty()) return true;
+    MapSqlParameterSource[] rows =
+        users.stream()
+            .map(
+                user ->
+                    new MapSqlParameterSource()
+                        .addValue("usernameKey", User.usernameKey(user.getUsername()))
+                        .addValue("uid", bytes(user.getUid())))
+            .toArray(MapSqlParameterSource[]::new);
+    try {
+      transaction.executeWithoutResult(
+          status ->
+              jdbcTemplate.batchUpdate(
+                  "insert into username_directory (username_key, uid)"
+                      + " values (:usernameKey, :uid)",
+                  rows));
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  /** @return the keys of the given usernames that are taken, see {@link User#usernameKey} */
+  public List<String> findExisting(Collection<String> usernames) {
+    if (usernames.isEmpty()) return Collections.emptyList();
+    List<String> keys = usernames.stream().map(User::usernameKey).collect(Collectors.toList());
+    return jdbcTemplate.queryForList(
+        "select username_key from username_directory where username_key in (:keys)",
+        new MapSqlParameterSource("keys", keys),
+        String.class);
+  }
+
+  /** Releases the usernames of the users with the given uids. */
+  public void release(Collection<UUID> uids) {
+    if (uids.isEmpty()) return;
+    List<byte[]> keys = new ArrayList<>(uids.size());
+    uids.forEach(uid -> keys.add(bytes(uid)));
+    jdbcTemplate.update(
+        "delete from username_directory where uid in (:uids)",
+        new MapSqlParameterSource("uids", keys));
+  }
+
+  // Same layout as Hibernate's binary uuid mapping, most significant bits first
+  private static byte[] bytes(UUID uid) {
+    return ByteBuffer.allocate(16)
+        .putLong(uid.getMostSignificantBits())
+        .putLong(uid.getLeastSignificantBits())
+        .array();
+  }
+}
@@ -0,0 +1,185 @@
+package com.github.vas.atanasov.userservice.service.bloom;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.PrimaryReadTransactions;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.BloomFilter;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this username definitely free" without a query, so batch creates only look up the
+ * usernames that might be taken. The filter is built from a streaming scan of the user table when
+ * the application starts, receives every new username before the creating transaction commits and,
+ * since Bloom filters cannot forget, is rebuilt in the background after deletes. Until the first
+ * build completes every username is reported as possibly taken.
+ *
+ * <p>A username missed by a rebuild racing with a create fails its insert on the unique constraint,
+ * which stays the final arbiter. A single create reports the username as taken, buffered and batch
+ * creates then write their users one by one so only that user is rejected, an import chunk fails
+ * its job.
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter {
+  private static final String METRIC_PREFIX = "users.username.filter";
+
+  private final UserRepository userRepository;
+  private final TransactionTemplate readOnlyTransaction;
+  private final boolean enabled;
+  private final long expectedInsertions;
+  private final double falsePositiveRate;
+  private final long rebuildDelayMillis;
+  private final ScheduledExecutorService executor;
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+  private final Counter absentCounter;
+  private final Counter presentCounter;
+  private final Counter falsePositiveCounter;
+
+  private volatile BloomFilter active;
+  private volatile BloomFilter building;
+
+  public UsernameBloomFilter(
+      UserRepository userRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${user-service.username-filter.enabled:true}") boolean enabled,
+      @Value("${user-service.username-filter.expected-insertions:1000000}") long expectedInsertions,
+      @Value("${user-service.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${user-service.username-filter.rebuild-delay-ms:30000}") long rebuildDelayMillis) {
+    this.userRepository = userRepository;
+    this.readOnlyTransaction =
+        PrimaryReadTransactions.create(transactionManager, "username-filter-build");
+    this.enabled = enabled;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+    this.rebuildDelayMillis = rebuildDelayMillis;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            DaemonThreads.factory("username-filter-builder-"));
+
+    Gauge.builder(METRIC_PREFIX + ".size", this, filter -> filter.bitSize())
+        .description("Number of bits in the username Bloom filter")
+        .baseUnit("bits")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".fpp", this, filter -> filter.falsePositiveRate())
+        .description("Expected false positive rate of the username Bloom filter")
+        .register(meterRegistry);
+    absentCounter = checkCounter(meterRegistry, "absent");
+    presentCounter = checkCounter(meterRegistry, "present");
+    falsePositiveCounter = checkCounter(meterRegistry, "false_positive");
+  }
+
+  private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder(METRIC_PREFIX + ".checks")
+        .description("Username Bloom filter lookups by result")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /** @return false only if no user with this username exists */
+  public boolean mightContain(String username) {
+    BloomFilter filter = active;
+    if (filter == null) return true;
+    boolean present = filter.mightContain(User.usernameKey(username));
+    (present ? presentCounter : absentCounter).increment();
+    return present;
+  }
+
+  /** Records usernames the filter reported as present but the database did not have. */
+  public void recordFalsePositives(int count) {
+    if (count > 0) falsePositiveCounter.increment(count);
+  }
+
+  public void put(String username) {
+    String key = User.usernameKey(username);
+    BloomFilter filter = active;
+    if (filter != null) filter.put(key);
+    BloomFilter next = building;
+    if (next != null) next.put(key);
+  }
+
+  public long bitSize() {
+    BloomFilter filter = active;
+    return filter == null ? 0 : filter.bitSize();
+  }
+
+  public double falsePositiveRate() {
+    BloomFilter filter = active;
+    return filter == null ? 1 : filter.expectedFalsePositiveRate();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (enabled) scheduleRebuild(0);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onUsersCreated(UsersCreatedEvent event) {
+    for (UserServiceModel user : event.getUsers()) put(user.getUsername());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersDeleted(UsersDeletedEvent event) {
+    if (enabled) scheduleRebuild(rebuildDelayMillis);
+  }
+
+  private void scheduleRebuild(long delayMillis) {
+    if (rebuildScheduled.compareAndSet(false, true)) {
+      executor.schedule(this::rebuild, delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  void rebuild() {
+    // Deletes arriving from now on need another rebuild, this scan may already have passed them
+    rebuildScheduled.set(false);
+    try {
+      long count = readOnlyTransaction.execute(status -> userRepository.count());
+      BloomFilter next =
+          BloomFilter.create(Math.max(expectedInsertions, 2 * count), falsePositiveRate);
+      building = next;
+      readOnlyTransaction.executeWithoutResult(
+          status -> {
+            try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+              usernames.forEach(username -> next.put(User.usernameKey(username)));
+            }
+          });
+      active = next;
+      log.info(
+          "Built username filter: users={}, bits={}, expectedFpp={}",
+          count,
+          next.bitSize(),
+          next.expectedFalsePositiveRate());
+    } catch (RuntimeException e) {
+      log.error("Building the username filter failed, lookups fall back to the database", e);
+    } finally {
+      building = null;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,254 @@
+package com.github.vas.atanasov.userservice.service.buffer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.enums.UserAsyncCreateStatus;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.exceptions.UserCreateBufferFullException;
+import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded buffer of accepted but not yet stored users. A background flusher drains it in batches,
+ * each written in one transaction, so accepting a user holds no database connection. A username can
+ * be queued once at a time; whether it is already taken in the table is only known when the batch
+ * is written, the outcome is kept per uid for {@code status-ttl-ms}. Outcomes are bounded apart from
+ * the queue by {@code status-maximum-size}, which should hold the users accepted within the ttl so
+ * that outcomes expire by time rather than being evicted.
+ *
+ * <p>Queued users are lost if the process dies, a regular shutdown writes them before the
+ * datasource is closed.
+ */
+@Slf4j
+@Component
+public class UserCreateBuffer {
+  private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transaction;
+  private final int batchSize;
+  private final long flushIntervalMillis;
+  private final BlockingQueue<UserServiceModel> queue;
+  // Queued users and the ones of the batch being written, by uid and by username key
+  private final ConcurrentMap<UUID, UserServiceModel> pendingUsers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, UUID> pendingUsernames = new ConcurrentHashMap<>();
+  private final Cache<UUID, UserAsyncCreateStatus> results;
+  private final ScheduledExecutorService executor;
+  private final Counter rejected;
+  private final Map<UserAsyncCreateStatus, Counter> written =
+      new EnumMap<>(UserAsyncCreateStatus.class);
+
+  private volatile boolean closed;
+
+  public UserCreateBuffer(
+      UserRepository userRepository,
+      ApplicationEventPublisher eventPublisher,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${user-service.create-buffer.capacity:10000}") int capacity,
+      @Value("${user-service.create-buffer.batch-size:500}") int batchSize,
+      @Value("${user-service.create-buffer.flush-interval-ms:100}") long flushIntervalMillis,
+      @Value("${user-service.create-buffer.status-ttl-ms:600000}") long statusTtlMillis,
+      @Value("${user-service.create-buffer.status-maximum-size:1000000}")
+          long statusMaximumSize) {
+    this.userRepository = userRepository;
+    this.eventPublisher = eventPublisher;
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.results =
+        Caffeine.newBuilder()
+            .maximumSize(statusMaximumSize)
+            .expireAfterWrite(statusTtlMillis, TimeUnit.MILLISECONDS)
+            .build();
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(DaemonThreads.factory("user-create-flusher-"));
+
+    Gauge.builder("users.create.buffer.size", queue, Collection::size)
+        .description("Accepted users waiting to be written")
+        .register(meterRegistry);
+    rejected =
+        Counter.builder("users.create.buffer.rejected")
+            .description("Accepted creates turned away because the buffer was full")
+            .register(meterRegistry);
+    for (UserAsyncCreateStatus status : UserAsyncCreateStatus.values()) {
+      if (status == UserAsyncCreateStatus.PENDING) continue;
+      written.put(
+          status,
+          Counter.builder("users.create.buffer.written")
+              .description("Buffered users by the outcome of writing them")
+              .tag("status", status.name().toLowerCase(Locale.ROOT))
+              .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Queues the user to be written by the next flush.
+   *
+   * @throws UserExistsException if a user with the same username is already queued
+   * @throws UserCreateBufferFullException if the buffer is full or shutting down
+   */
+  public void add(UserServiceModel user)
+      throws UserExistsException, UserCreateBufferFullException {
+    if (closed) throw new UserCreateBufferFullException();
+    String key = User.usernameKey(user.getUsername());
+    if (pendingUsernames.putIfAbsent(key, user.getUid()) != null) throw new UserExistsException();
+    pendingUsers.put(user.getUid(), user);
+    if (!queue.offer(user)) {
+      pendingUsers.remove(user.getUid());
+      pendingUsernames.remove(key, user.getUid());
+      rejected.increment();
+      throw new UserCreateBufferFullException();
+    }
+  }
+
+  /** Returns the state of a queued user, empty if the uid is unknown or its outcome expired. */
+  public Optional<UserAsyncCreateStatus> getStatus(UUID uid) {
+    if (pendingUsers.containsKey(uid)) return Optional.of(UserAsyncCreateStatus.PENDING);
+    return Optional.ofNullable(results.getIfPresent(uid));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    executor.scheduleWithFixedDelay(
+        this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Writes everything queued so far in batches of {@code batch-size}.
+   *
+   * @return the number of written or rejected users
+   */
+  synchronized int flush() {
+    List<UserServiceModel> batch = new ArrayList<>(batchSize);
+    int flushed = 0;
+    while (queue.drainTo(batch, batchSize) > 0) {
+      complete(batch, write(batch));
+      flushed += batch.size();
+      batch.clear();
+    }
+    return flushed;
+  }
+
+  private Map<UUID, UserAsyncCreateStatus> write(List<UserServiceModel> batch) {
+    try {
+      return transaction.execute(status -> insert(batch));
+    } catch (DataIntegrityViolationException e) {
+      // A username was taken by a direct create after the check, write the batch one by one so
+      // only that user is rejected
+      log.warn("Writing {} buffered users failed, retrying one by one", batch.size());
+      Map<UUID, UserAsyncCreateStatus> statuses = new HashMap<>();
+      for (UserServiceModel user : batch) {
+        statuses.put(user.getUid(), writeOne(user));
+      }
+      return statuses;
+    } catch (RuntimeException e) {
+      log.error("Writing {} buffered users failed", batch.size(), e);
+      return Collections.emptyMap();
+    }
+  }
+
+  private UserAsyncCreateStatus writeOne(UserServiceModel user) {
+    try {
+      Map<UUID, UserAsyncCreateStatus> statuses =
+          transaction.execute(status -> insert(Collections.singletonList(user)));
+      return statuses.get(user.getUid());
+    } catch (DataIntegrityViolationException e) {
+      return UserAsyncCreateStatus.ALREADY_EXISTS;
+    } catch (RuntimeException e) {
+      log.error("Writing buffered user with username={} failed", user.getUsername(), e);
+      return UserAsyncCreateStatus.FAILED;
+    }
+  }
+
+  private Map<UUID, UserAsyncCreateStatus> insert(List<UserServiceModel> batch) {
+    Set<String> taken =
+        userRepository
+            .findExistingUsernames(
+                batch.stream().map(UserServiceModel::getUsername).collect(Collectors.toSet()))
+            .stream()
+            .map(User::usernameKey)
+            .collect(Collectors.toSet());
+
+    Map<UUID, UserAsyncCreateStatus> statuses = new HashMap<>();
+    List<User> users = new ArrayList<>(batch.size());
+    List<UserServiceModel> created = new ArrayList<>(batch.size());
+    for (UserServiceModel user : batch) {
+      if (taken.contains(User.usernameKey(user.getUsername()))) {
+        statuses.put(user.getUid(), UserAsyncCreateStatus.ALREADY_EXISTS);
+        continue;
+      }
+      statuses.put(user.getUid(), UserAsyncCreateStatus.CREATED);
+      users.add(
+          User.of(
+              user.getUid(),
+              user.getUsername(),
+              user.getFirstName(),
+              user.getLastName(),
+              user.getCreatedDateTime()));
+      created.add(user);
+    }
+    if (!users.isEmpty()) {
+      userRepository.insertAll(users);
+      eventPublisher.publishEvent(new UsersCreatedEvent(created));
+    }
+    return statuses;
+  }
+
+  // The outcome is recorded before the pending entries are dropped, so a status lookup in between
+  // finds one of them
+  private void complete(List<UserServiceModel> batch, Map<UUID, UserAsyncCreateStatus> statuses) {
+    for (UserServiceModel user : batch) {
+      UserAsyncCreateStatus status =
+          statuses.getOrDefault(user.getUid(), UserAsyncCreateStatus.FAILED);
+      results.put(user.getUid(), status);
+      written.get(status).increment();
+      pendingUsers.remove(user.getUid());
+      pendingUsernames.remove(User.usernameKey(user.getUsername()), user.getUid());
+    }
+    log.info("Wrote {} buffered users", batch.size());
+  }
+
+  private void flushSafely() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.error("Flushing buffered users failed", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    closed = true;
+    executor.shutdown();
+    executor.awaitTermination(30, TimeUnit.SECONDS);
+    int flushed = flush();
+    if (flushed > 0) log.info("Wrote {} buffered users on shutdown", flushed);
+  }
+}
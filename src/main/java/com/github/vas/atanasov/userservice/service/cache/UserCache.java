@@ -0,0 +1,104 @@
+package com.github.vas.atanasov.userservice.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of users by uid, bounded by size and expiring entries after a fixed time.
+ * Unknown uids are cached as empty for a shorter time, so repeated lookups of a missing user do not
+ * reach the database either. Concurrent misses for the same uid share one load.
+ *
+ * <p>Cached models are shared between callers and must not be modified.
+ */
+@Component
+public class UserCache {
+  public static final String CACHE_NAME = "users.by.uid";
+
+  private final UserRepository userRepository;
+  private final LoadingCache<UUID, Optional<UserServiceModel>> cache;
+
+  public UserCache(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${user-service.user-cache.maximum-size:10000}") long maximumSize,
+      @Value("${user-service.user-cache.ttl-ms:300000}") long ttlMillis,
+      @Value("${user-service.user-cache.negative-ttl-ms:5000}") long negativeTtlMillis) {
+    this.userRepository = userRepository;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new PresenceExpiry(ttlMillis, negativeTtlMillis))
+            .recordStats()
+            .build(this::load);
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  public Optional<UserServiceModel> get(UUID uid) {
+    return cache.get(uid);
+  }
+
+  public void invalidate(Collection<UUID> uids) {
+    cache.invalidateAll(uids);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersDeleted(UsersDeletedEvent event) {
+    invalidate(event.getUids());
+  }
+
+  // Drops negative entries, a uid looked up before its user was committed would otherwise stay
+  // missing until the entry expires.
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersCreated(UsersCreatedEvent event) {
+    event.getUsers().forEach(user -> cache.invalidate(user.getUid()));
+  }
+
+  private Optional<UserServiceModel> load(UUID uid) {
+    return userRepository
+        .findByUid(uid)
+        .map(user -> MappingUtils.map(user, UserServiceModel.class));
+  }
+
+  private static final class PresenceExpiry implements Expiry<UUID, Optional<UserServiceModel>> {
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private PresenceExpiry(long ttlMillis, long negativeTtlMillis) {
+      this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+      this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+    }
+
+    @Override
+    public long expireAfterCreate(UUID uid, Optional<UserServiceModel> user, long currentTime) {
+      return user.isPresent() ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        UUID uid, Optional<UserServiceModel> user, long currentTime, long currentDuration) {
+      return expireAfterCreate(uid, user, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        UUID uid, Optional<UserServiceModel> user, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.github.vas.atanasov.userservice.service.count;
+
+import com.github.vas.atanasov.userservice.core.repositories.PrimaryReadTransactions;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.enums.UserCountMode;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.version.UserTableVersion;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total number of users for paged listings. In {@link UserCountMode#APPROXIMATE} mode the total is
+ * seeded with a count query at startup, adjusted by every committed create and delete of this
+ * instance and periodically reconciled with the table, which also corrects changes made by other
+ * instances. In {@link UserCountMode#EXACT} mode every total is a count query.
+ */
+@Slf4j
+@Component
+public class UserCounter {
+  private final UserRepository userRepository;
+  private final TransactionTemplate countTransaction;
+  private final UserTableVersion tableVersion;
+  private final UserCountMode mode;
+  private final long reconcileIntervalMillis;
+  private final ScheduledExecutorService executor;
+  // Sum of all committed changes, the total is the last counted base plus the changes since
+  private final LongAdder changes = new LongAdder();
+
+  private volatile boolean seeded;
+  private volatile long base;
+  private volatile long lastDrift;
+
+  public UserCounter(
+      UserRepository userRepository,
+      PlatformTransactionManager transactionManager,
+      UserTableVersion tableVersion,
+      MeterRegistry meterRegistry,
+      @Value("${user-service.user-count.mode:APPROXIMATE}") UserCountMode mode,
+      @Value("${user-service.user-count.reconcile-interval-ms:60000}")
+          long reconcileIntervalMillis) {
+    this.userRepository = userRepository;
+    this.countTransaction = PrimaryReadTransactions.create(transactionManager, "user-count");
+    this.tableVersion = tableVersion;
+    this.mode = mode;
+    this.reconcileIntervalMillis = reconcileIntervalMillis;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(DaemonThreads.factory("user-count-reconciler-"));
+
+    Gauge.builder("users.count", this, counter -> counter.seeded ? counter.approximateTotal() : 0)
+        .description("Number of users as maintained in memory")
+        .register(meterRegistry);
+    Gauge.builder("users.count.drift", this, counter -> counter.lastDrift)
+        .description("Difference between the counted and the maintained total at the last reconcile")
+        .register(meterRegistry);
+  }
+
+  public UserCountMode getMode() {
+    return mode;
+  }
+
+  public long getTotal() {
+    if (mode == UserCountMode.EXACT) return userRepository.count();
+    if (!seeded) reconcile();
+    return approximateTotal();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (mode != UserCountMode.APPROXIMATE) return;
+    executor.scheduleWithFixedDelay(
+        this::reconcileSafely, 0, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersCreated(UsersCreatedEvent event) {
+    changes.add(event.getUsers().size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersDeleted(UsersDeletedEvent event) {
+    changes.add(-event.getUids().size());
+  }
+
+  /**
+   * Replaces the maintained total with a count query. Changes committed while the query runs may be
+   * counted twice, the next reconcile corrects them. A drift means the table was changed elsewhere,
+   * so the table version moves on as well. The count is read from the primary, a lagging replica
+   * would turn the replication lag into drift.
+   */
+  synchronized void reconcile() {
+    long changesBefore = changes.sum();
+    long count = countTransaction.execute(status -> userRepository.count());
+    if (seeded) {
+      lastDrift = count - (base + changesBefore);
+      if (lastDrift != 0) tableVersion.increment();
+    }
+    base = count - changesBefore;
+    seeded = true;
+    log.debug("Reconciled user count: total={}, drift={}", count, lastDrift);
+  }
+
+  private void reconcileSafely() {
+    try {
+      reconcile();
+    } catch (RuntimeException e) {
+      log.error("Reconciling the user count failed", e);
+    }
+  }
+
+  private long approximateTotal() {
+    return Math.max(0, base + changes.sum());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,8 @@
+package com.github.vas.atanasov.userservice.service.enums;
+
+public enum UserAsyncCreateStatus {
+  PENDING,
+  CREATED,
+  ALREADY_EXISTS,
+  FAILED
+}
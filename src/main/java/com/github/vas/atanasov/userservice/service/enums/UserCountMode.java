@@ -0,0 +1,8 @@
+package com.github.vas.atanasov.userservice.service.enums;
+
+public enum UserCountMode {
+  /** Every total is a count query. */
+  EXACT,
+  /** Totals come from an in-memory counter, reconciled with the table periodically. */
+  APPROXIMATE
+}
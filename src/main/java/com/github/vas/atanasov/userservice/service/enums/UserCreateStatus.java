@@ -0,0 +1,8 @@
+package com.github.vas.atanasov.userservice.service.enums;
+
+public enum UserCreateStatus {
+  CREATED,
+  ALREADY_EXISTS,
+  DUPLICATE_IN_BATCH,
+  INVALID
+}
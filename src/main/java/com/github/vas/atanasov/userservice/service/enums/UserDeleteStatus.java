@@ -0,0 +1,6 @@
+package com.github.vas.atanasov.userservice.service.enums;
+
+public enum UserDeleteStatus {
+  DELETED,
+  NOT_FOUND
+}
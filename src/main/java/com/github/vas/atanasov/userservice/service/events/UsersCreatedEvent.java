@@ -0,0 +1,12 @@
+package com.github.vas.atanasov.userservice.service.events;
+
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import lombok.Value;
+
+import java.util.List;
+
+/** Published by the service inside the transaction that inserted the users. */
+@Value
+public class UsersCreatedEvent {
+  List<UserServiceModel> users;
+}
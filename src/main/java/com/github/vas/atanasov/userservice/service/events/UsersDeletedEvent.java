@@ -0,0 +1,12 @@
+package com.github.vas.atanasov.userservice.service.events;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Published by the service inside the transaction that deleted the users. */
+@Value
+public class UsersDeletedEvent {
+  List<UUID> uids;
+}
@@ -0,0 +1,3 @@
+package com.github.vas.atanasov.userservice.service.exceptions;
+
+public class UserCreateBufferFullException extends RuntimeException {}
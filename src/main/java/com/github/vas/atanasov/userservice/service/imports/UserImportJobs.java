@@ -0,0 +1,128 @@
+package com.github.vas.atanasov.userservice.service.imports;
+
+import com.github.vas.atanasov.userservice.core.domain.UserImportJob;
+import com.github.vas.atanasov.userservice.core.domain.UserImportRejection;
+import com.github.vas.atanasov.userservice.core.domain.UserImportStatus;
+import com.github.vas.atanasov.userservice.core.repositories.UserImportJobRepository;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserImportJobServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserImportRejectionServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * State of bulk imports. Parsing and validation are left to the caller, which hands over the rows
+ * of a file chunk by chunk. A chunk's users and the job's progress are committed together.
+ */
+@Component
+@Transactional(readOnly = true)
+public class UserImportJobs {
+  private final UserImportJobRepository jobRepository;
+  private final UserService userService;
+  private final int maxRejections;
+
+  public UserImportJobs(
+      UserImportJobRepository jobRepository,
+      UserService userService,
+      @Value("${user-service.import.max-reported-rejections:100}") int maxRejections) {
+    this.jobRepository = jobRepository;
+    this.userService = userService;
+    this.maxRejections = maxRejections;
+  }
+
+  @Transactional
+  public UserImportJobServiceModel create(UUID uid, String format) {
+    return UserImportJobServiceModel.from(jobRepository.save(UserImportJob.of(uid, format)));
+  }
+
+  public Optional<UserImportJobServiceModel> get(UUID uid) {
+    Assert.notNull(uid, "UUID cannot be null");
+    return jobRepository.findByUid(uid).map(UserImportJobServiceModel::from);
+  }
+
+  /** @return jobs that were accepted or interrupted, to be continued */
+  public List<UserImportJobServiceModel> getUnfinished() {
+    return jobRepository
+        .findByStatusIn(Arrays.asList(UserImportStatus.PENDING, UserImportStatus.RUNNING))
+        .stream()
+        .map(UserImportJobServiceModel::from)
+        .collect(Collectors.toList());
+  }
+
+  /** @return the job, with the number of rows already committed by an earlier run */
+  @Transactional
+  public UserImportJobServiceModel start(UUID uid) throws UserNotFoundException {
+    UserImportJob job = find(uid);
+    job.start();
+    return UserImportJobServiceModel.from(job);
+  }
+
+  /**
+   * Creates the valid users of the next chunk of rows and records the outcome of all of them.
+   *
+   * @param rows number of rows in the chunk
+   * @param users valid rows, with or without uid, {@code userRows} holds their row numbers
+   * @param rejections rows that failed to parse or validate
+   */
+  @Transactional
+  public void commitChunk(
+      UUID uid,
+      long rows,
+      List<UserServiceModel> users,
+      List<Long> userRows,
+      List<UserImportRejectionServiceModel> rejections)
+      throws UserNotFoundException {
+    Assert.isTrue(users.size() == userRows.size(), "Every user needs its row number");
+    List<UserImportRejection> outcome = new ArrayList<>(rejections.size());
+    for (UserImportRejectionServiceModel rejection : rejections) {
+      outcome.add(
+          UserImportRejection.of(
+              rejection.getRow(), rejection.getUsername(), rejection.getReason()));
+    }
+    long created = 0;
+    long skipped = 0;
+    for (UserCreateResultServiceModel result : userService.importUsers(users)) {
+      if (result.getStatus() == UserCreateStatus.CREATED) {
+        created++;
+        continue;
+      }
+      skipped++;
+      outcome.add(
+          UserImportRejection.of(
+              userRows.get(result.getIndex()),
+              result.getUsername(),
+              result.getStatus().name()));
+    }
+    outcome.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+    // Loaded after the inserts, they clear the persistence context
+    UserImportJob job = find(uid);
+    job.recordChunk(rows, created, skipped, rejections.size(), outcome, maxRejections);
+  }
+
+  @Transactional
+  public void complete(UUID uid) throws UserNotFoundException {
+    find(uid).complete();
+  }
+
+  @Transactional
+  public void fail(UUID uid, String error) throws UserNotFoundException {
+    find(uid).fail(error);
+  }
+
+  private UserImportJob find(UUID uid) {
+    return jobRepository.findByUid(uid).orElseThrow(UserNotFoundException::new);
+  }
+}
@@ -0,0 +1,27 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.utils.MapperRegistrar;
+import com.github.vas.atanasov.userservice.utils.MapperRegistry;
+
+/** Precompiled mappers from users and between the service models. */
+public class ServiceModelMapperRegistrar implements MapperRegistrar {
+
+  @Override
+  public void register(MapperRegistry.Builder registry) {
+    registry
+        .register(User.class, UserServiceModel.class, UserServiceModel::from)
+        .register(
+            User.class,
+            UserCreateServiceModel.class,
+            user ->
+                UserCreateServiceModel.of(
+                    user.getUsername(), user.getFirstName(), user.getLastName()))
+        .register(
+            UserServiceModel.class,
+            UserCreateServiceModel.class,
+            user ->
+                UserCreateServiceModel.of(
+                    user.getUsername(), user.getFirstName(), user.getLastName()));
+  }
+}
@@ -0,0 +1,16 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import com.github.vas.atanasov.userservice.service.enums.UserAsyncCreateStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAsyncCreateServiceModel {
+  private UUID uid;
+  private UserAsyncCreateStatus status;
+}
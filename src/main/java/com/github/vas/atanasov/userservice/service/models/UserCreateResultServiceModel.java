@@ -0,0 +1,16 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCreateResultServiceModel {
+  private int index;
+  private String username;
+  private UserCreateStatus status;
+  private UserServiceModel user;
+}
@@ -7,4 +7,12 @@ public class UserCreateServiceModel {
   private String username;
   private String firstName;
   private String lastName;
+
+  public static UserCreateServiceModel of(String username, String firstName, String lastName) {
+    UserCreateServiceModel model = new UserCreateServiceModel();
+    model.setUsername(username);
+    model.setFirstName(firstName);
+    model.setLastName(lastName);
+    return model;
+  }
 }
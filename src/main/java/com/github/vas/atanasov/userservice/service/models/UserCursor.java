@@ -0,0 +1,47 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position of a row in the {@code (createdDateTime desc, id desc)} ordering. Clients only see the
+ * encoded form, a URL safe token that has to be passed back unchanged to continue from that row.
+ */
+@Value
+public class UserCursor {
+  private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+  LocalDateTime createdDateTime;
+  Long id;
+
+  public static UserCursor of(User user) {
+    return new UserCursor(user.getCreatedDateTime(), user.getId());
+  }
+
+  public String encode() {
+    ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+    buffer.putLong(createdDateTime.toEpochSecond(ZoneOffset.UTC));
+    buffer.putInt(createdDateTime.getNano());
+    buffer.putLong(id);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  public static UserCursor decode(String token) throws IllegalArgumentException {
+    try {
+      byte[] bytes = Base64.getUrlDecoder().decode(token);
+      if (bytes.length != ENCODED_BYTES) throw new IllegalArgumentException("Malformed cursor");
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      LocalDateTime createdDateTime =
+          LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+      return new UserCursor(createdDateTime, buffer.getLong());
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Malformed cursor", e);
+    }
+  }
+}
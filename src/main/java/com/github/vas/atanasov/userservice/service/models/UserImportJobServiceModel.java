@@ -0,0 +1,44 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import com.github.vas.atanasov.userservice.core.domain.UserImportJob;
+import com.github.vas.atanasov.userservice.core.domain.UserImportStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Data
+public class UserImportJobServiceModel {
+  private UUID uid;
+  private String format;
+  private UserImportStatus status;
+  private long rowsRead;
+  private long created;
+  private long skipped;
+  private long rejected;
+  private List<UserImportRejectionServiceModel> rejections;
+  private String error;
+  private LocalDateTime createdDateTime;
+  private LocalDateTime updatedDateTime;
+
+  public static UserImportJobServiceModel from(UserImportJob job) {
+    UserImportJobServiceModel model = new UserImportJobServiceModel();
+    model.setUid(job.getUid());
+    model.setFormat(job.getFormat());
+    model.setStatus(job.getStatus());
+    model.setRowsRead(job.getRowsRead());
+    model.setCreated(job.getCreated());
+    model.setSkipped(job.getSkipped());
+    model.setRejected(job.getRejected());
+    model.setRejections(
+        job.getRejections().stream()
+            .map(UserImportRejectionServiceModel::from)
+            .collect(Collectors.toList()));
+    model.setError(job.getError());
+    model.setCreatedDateTime(job.getCreatedDateTime());
+    model.setUpdatedDateTime(job.getUpdatedDateTime());
+    return model;
+  }
+}
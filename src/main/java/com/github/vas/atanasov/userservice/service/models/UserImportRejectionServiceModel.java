@@ -0,0 +1,20 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import com.github.vas.atanasov.userservice.core.domain.UserImportRejection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRejectionServiceModel {
+  private long row;
+  private String username;
+  private String reason;
+
+  public static UserImportRejectionServiceModel from(UserImportRejection rejection) {
+    return new UserImportRejectionServiceModel(
+        rejection.getRow(), rejection.getUsername(), rejection.getReason());
+  }
+}
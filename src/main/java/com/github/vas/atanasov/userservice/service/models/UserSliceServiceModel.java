@@ -0,0 +1,17 @@
+package com.github.vas.atanasov.userservice.service.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSliceServiceModel {
+  private List<UserServiceModel> content;
+  private int size;
+  private boolean hasNext;
+  private String nextCursor;
+}
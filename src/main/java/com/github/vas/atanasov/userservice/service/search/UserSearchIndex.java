@@ -0,0 +1,223 @@
+package com.github.vas.atanasov.userservice.service.search;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.PrimaryReadTransactions;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over username, first name and last name for typeahead search. Every field
+ * value is a term in a sorted set, so a prefix lookup is a seek followed by a scan of the matching
+ * terms only. The index is filled by a streaming scan of the user table when the application starts
+ * and follows every committed create and delete; until the scan completes searches only see users
+ * created since startup.
+ *
+ * <p>The memory footprint is an estimate from the number of users, terms and characters, published
+ * as {@code users.search.index.memory}.
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+  private static final String METRIC_PREFIX = "users.search.index";
+  private static final UUID MIN_UID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+  // Compressed oops: skip list node and its share of index nodes plus the term object
+  private static final int TERM_OVERHEAD_BYTES = 64;
+  // Model, its four string headers, the map entry and the uid
+  private static final int USER_OVERHEAD_BYTES = 240;
+  private static final int STRING_OVERHEAD_BYTES = 40;
+
+  private final UserRepository userRepository;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ExecutorService executor;
+  private final ConcurrentSkipListSet<Term> terms = new ConcurrentSkipListSet<>();
+  private final ConcurrentMap<UUID, UserServiceModel> users = new ConcurrentHashMap<>();
+  private final Set<UUID> deletedWhileBuilding = ConcurrentHashMap.newKeySet();
+  private final LongAdder termCount = new LongAdder();
+  private final LongAdder estimatedBytes = new LongAdder();
+
+  private volatile boolean building;
+
+  public UserSearchIndex(
+      UserRepository userRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.userRepository = userRepository;
+    this.readOnlyTransaction =
+        PrimaryReadTransactions.create(transactionManager, "user-search-index-build");
+    this.executor =
+        Executors.newSingleThreadExecutor(DaemonThreads.factory("user-search-indexer-"));
+
+    Gauge.builder(METRIC_PREFIX + ".users", users, Map::size)
+        .description("Users in the search index")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".terms", termCount, LongAdder::sum)
+        .description("Distinct user and term pairs in the search index")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".memory", estimatedBytes, LongAdder::sum)
+        .description("Estimated heap used by the search index")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns up to {@code limit} users with a username, first name or last name starting with
+   * {@code prefix}, ignoring case. Users are ordered by the matching value, so exact matches come
+   * before longer ones.
+   */
+  public List<UserServiceModel> search(String prefix, int limit) {
+    String key = normalize(prefix);
+    List<UserServiceModel> results = new ArrayList<>(Math.min(limit, 16));
+    Set<UUID> seen = new HashSet<>();
+    for (Term term : terms.tailSet(new Term(key, MIN_UID))) {
+      if (results.size() == limit || !term.text.startsWith(key)) break;
+      if (!seen.add(term.uid)) continue;
+      UserServiceModel user = users.get(term.uid);
+      if (user != null) results.add(user);
+    }
+    return results;
+  }
+
+  public long estimatedMemoryBytes() {
+    return estimatedBytes.sum();
+  }
+
+  void add(UserServiceModel user) {
+    UserServiceModel previous = users.put(user.getUid(), user);
+    if (previous != null) removeTerms(previous);
+    estimatedBytes.add(USER_OVERHEAD_BYTES + 2L * characters(user));
+    for (String value : values(user)) {
+      String text = normalize(value);
+      if (terms.add(new Term(text, user.getUid()))) {
+        termCount.increment();
+        estimatedBytes.add(TERM_OVERHEAD_BYTES + termStringBytes(value, text));
+      }
+    }
+  }
+
+  void remove(UUID uid) {
+    if (building) deletedWhileBuilding.add(uid);
+    UserServiceModel user = users.remove(uid);
+    if (user != null) removeTerms(user);
+  }
+
+  private void removeTerms(UserServiceModel user) {
+    estimatedBytes.add(-(USER_OVERHEAD_BYTES + 2L * characters(user)));
+    for (String value : values(user)) {
+      String text = normalize(value);
+      if (terms.remove(new Term(text, user.getUid()))) {
+        termCount.decrement();
+        estimatedBytes.add(-(TERM_OVERHEAD_BYTES + termStringBytes(value, text)));
+      }
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    executor.execute(this::build);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersCreated(UsersCreatedEvent event) {
+    event.getUsers().forEach(this::add);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersDeleted(UsersDeletedEvent event) {
+    event.getUids().forEach(this::remove);
+  }
+
+  void build() {
+    building = true;
+    try {
+      readOnlyTransaction.executeWithoutResult(
+          status -> {
+            try (Stream<User> stream = userRepository.streamAll()) {
+              stream.forEach(
+                  user -> {
+                    if (!deletedWhileBuilding.contains(user.getUid())) {
+                      add(MappingUtils.map(user, UserServiceModel.class));
+                    }
+                    userRepository.detach(user);
+                  });
+            }
+          });
+      log.info(
+          "Built user search index: users={}, terms={}, estimatedBytes={}",
+          users.size(),
+          termCount.sum(),
+          estimatedBytes.sum());
+    } catch (RuntimeException e) {
+      log.error("Building the user search index failed, searches only see new users", e);
+    } finally {
+      building = false;
+      // The scan may have read a user before its delete committed
+      deletedWhileBuilding.forEach(this::remove);
+      deletedWhileBuilding.clear();
+    }
+  }
+
+  private static List<String> values(UserServiceModel user) {
+    return user.getLastName() == null
+        ? Arrays.asList(user.getUsername(), user.getFirstName())
+        : Arrays.asList(user.getUsername(), user.getFirstName(), user.getLastName());
+  }
+
+  private static long characters(UserServiceModel user) {
+    long characters = 0;
+    for (String value : values(user)) characters += value.length();
+    return characters;
+  }
+
+  // Lower casing returns the same string when there is nothing to change
+  private static long termStringBytes(String value, String text) {
+    return value == text ? 0 : STRING_OVERHEAD_BYTES + 2L * text.length();
+  }
+
+  private static String normalize(String value) {
+    return value.toLowerCase(Locale.ROOT);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static final class Term implements Comparable<Term> {
+    private final String text;
+    private final UUID uid;
+
+    private Term(String text, UUID uid) {
+      this.text = text;
+      this.uid = uid;
+    }
+
+    @Override
+    public int compareTo(Term other) {
+      int result = text.compareTo(other.text);
+      return result != 0 ? result : uid.compareTo(other.uid);
+    }
+  }
+}
@@ -1,18 +1,114 @@
 package com.github.vas.atanasov.userservice.service.services;
 
+import com.github.vas.atanasov.userservice.service.exceptions.UserCreateBufferFullException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
+import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserAsyncCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserDeleteResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserSliceServiceModel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface UserService {
   UserServiceModel createUser(UserCreateServiceModel model)
       throws UserExistsException, IllegalArgumentException;
 
+  /**
+   * Accepts the user to be stored by a background flush, without touching the database. The uid is
+   * assigned right away, the outcome is reported by {@link #getAsyncCreateStatus(UUID)}.
+   *
+   * @throws UserExistsException if a user with the same username is waiting to be stored
+   * @throws UserCreateBufferFullException if too many users are waiting to be stored
+   */
+  UserAsyncCreateServiceModel createUserAsync(UserCreateServiceModel model)
+      throws UserExistsException, UserCreateBufferFullException, IllegalArgumentException;
+
+  /**
+   * Returns the state of a user accepted by {@link #createUserAsync(UserCreateServiceModel)}.
+   *
+   * @throws UserNotFoundException if the uid is unknown or its outcome is no longer kept
+   */
+  UserAsyncCreateServiceModel getAsyncCreateStatus(UUID uid) throws UserNotFoundException;
+
+  /**
+   * Creates all users whose username is neither taken nor repeated earlier in the same list. The
+   * result holds one entry per input model, in input order.
+   */
+  List<UserCreateResultServiceModel> createUsers(List<UserCreateServiceModel> models)
+      throws IllegalArgumentException;
+
+  /**
+   * Like {@link #createUsers(List)} for users that already exist elsewhere: a user keeps its uid
+   * and creation time, both are assigned only when missing. A given uid that is taken or repeated
+   * earlier in the list is rejected the same way as such a username.
+   */
+  List<UserCreateResultServiceModel> importUsers(List<UserServiceModel> users)
+      throws IllegalArgumentException;
+
+  /**
+   * Returns a page of users. The total is read from {@link
+   * com.github.vas.atanasov.userservice.service.count.UserCounter} and, in approximate mode, can be
+   * off by recent changes until the next reconcile.
+   */
   Page<UserServiceModel> getUsersPage(Pageable pageable);
 
-  void deleteUserByUid(UUID uid);
+  /**
+   * Returns up to {@code size} users, newest first, that come after the position encoded in {@code
+   * cursor}. Unlike {@link #getUsersPage(Pageable)} no total count is computed and the cost does not
+   * grow with the position.
+   *
+   * @param cursor token returned as {@code nextCursor} by the previous call, null for the first
+   *     slice
+   * @param size maximum number of users in the slice
+   * @throws IllegalArgumentException if the cursor is not a valid token
+   */
+  UserSliceServiceModel getUsersSlice(String cursor, int size) throws IllegalArgumentException;
+
+  /**
+   * Returns up to {@code limit} users whose username, first name or last name starts with {@code
+   * prefix}, ignoring case, from an in-memory index without a query.
+   */
+  List<UserServiceModel> searchUsers(String prefix, int limit) throws IllegalArgumentException;
+
+  /**
+   * Returns the user with the given uid. Lookups are served from a cache, so a user deleted by
+   * another instance may still be returned until its entry expires.
+   *
+   * @throws UserNotFoundException if there is no such user
+   */
+  UserServiceModel getUserByUid(UUID uid) throws UserNotFoundException;
+
+  void deleteUserByUid(UUID uid) throws UserNotFoundException;
+
+  /**
+   * Deletes the users with the given uids in one transaction, using set based statements over
+   * chunks of uids instead of loading the users. The result holds one entry per input uid, in input
+   * order.
+   */
+  List<UserDeleteResultServiceModel> deleteUsersByUid(List<UUID> uids)
+      throws IllegalArgumentException;
+
+  /**
+   * Deletes all users created before the given time in chunks, each committed on its own, so the
+   * number of deleted users is not bounded by one transaction.
+   *
+   * @return the number of deleted users
+   */
+  long deleteUsersCreatedBefore(LocalDateTime createdBefore) throws IllegalArgumentException;
+
+  /**
+   * Passes every stored user to {@code consumer}, one at a time, reading them with a single query
+   * over one connection. Memory use does not depend on the number of users.
+   *
+   * @return the number of exported users
+   */
+  long exportUsers(Consumer<UserServiceModel> consumer);
 }
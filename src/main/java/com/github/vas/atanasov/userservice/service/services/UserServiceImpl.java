@@ -1,56 +1,401 @@
 package com.github.vas.atanasov.userservice.service.services;
 
+import com.github.vas.atanasov.userservice.core.domain.UidGenerator;
 import com.github.vas.atanasov.userservice.core.domain.User;
 import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.bloom.UsernameBloomFilter;
+import com.github.vas.atanasov.userservice.service.buffer.UserCreateBuffer;
+import com.github.vas.atanasov.userservice.service.cache.UserCache;
+import com.github.vas.atanasov.userservice.service.count.UserCounter;
+import com.github.vas.atanasov.userservice.service.enums.UserAsyncCreateStatus;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.enums.UserDeleteStatus;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.exceptions.UserCreateBufferFullException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserAsyncCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCursor;
+import com.github.vas.atanasov.userservice.service.models.UserDeleteResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserSliceServiceModel;
+import com.github.vas.atanasov.userservice.service.search.UserSearchIndex;
 import com.github.vas.atanasov.userservice.utils.MappingUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+  private static final int DELETE_CHUNK_SIZE = 1000;
+
   private final UserRepository userRepository;
+  private final UsernameBloomFilter usernameFilter;
+  private final UserCache userCache;
+  private final UserCounter userCounter;
+  private final UserCreateBuffer userCreateBuffer;
+  private final UserSearchIndex userSearchIndex;
+  private final ApplicationEventPublisher eventPublisher;
+  private final PlatformTransactionManager transactionManager;
+  private final UidGenerator uidGenerator;
 
   @Override
   @Transactional
   public UserServiceModel createUser(UserCreateServiceModel model)
       throws UserExistsException, IllegalArgumentException {
-    Assert.notNull(model, "UserCreateServiceModel cannot be null");
-    Assert.notNull(model.getUsername(), "UserCreateServiceModel.username cannot be null");
-    Assert.notNull(model.getFirstName(), "UserCreateServiceModel.firstName cannot be null");
-    if (userRepository.existsByUsername(model.getUsername())) throw new UserExistsException();
-    User user = User.of(model.getUsername(), model.getFirstName(), model.getLastName());
+    assertCreatable(model);
+    User user = userOf(model);
     log.info("Creating new user: username={}", model.getUsername());
-    user = userRepository.save(user);
-    return MappingUtils.map(user, UserServiceModel.class);
+    // Insert first and let the unique index reject taken usernames. A separate exists check costs a
+    // second statement and still lets two concurrent creates of the same username pass it.
+    try {
+      user = userRepository.saveAndFlush(user);
+    } catch (DataIntegrityViolationException e) {
+      if (!isUsernameConflict(e)) throw e;
+      throw new UserExistsException();
+    }
+    UserServiceModel created = MappingUtils.map(user, UserServiceModel.class);
+    eventPublisher.publishEvent(new UsersCreatedEvent(Collections.singletonList(created)));
+    return created;
+  }
+
+  // Not transactional, an accepted create must not hold a connection
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public UserAsyncCreateServiceModel createUserAsync(UserCreateServiceModel model)
+      throws UserExistsException, UserCreateBufferFullException, IllegalArgumentException {
+    assertCreatable(model);
+    User user = userOf(model);
+    userCreateBuffer.add(MappingUtils.map(user, UserServiceModel.class));
+    log.info("Accepted new user: username={}, uid={}", user.getUsername(), user.getUid());
+    return new UserAsyncCreateServiceModel(user.getUid(), UserAsyncCreateStatus.PENDING);
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public UserAsyncCreateServiceModel getAsyncCreateStatus(UUID uid) throws UserNotFoundException {
+    Assert.notNull(uid, "UUID cannot be null");
+    UserAsyncCreateStatus status =
+        userCreateBuffer.getStatus(uid).orElseThrow(UserNotFoundException::new);
+    return new UserAsyncCreateServiceModel(uid, status);
+  }
+
+  // Not transactional, a failed insert rolls back its transaction and the retry needs a new one
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public List<UserCreateResultServiceModel> createUsers(List<UserCreateServiceModel> models)
+      throws IllegalArgumentException {
+    Assert.notNull(models, "UserCreateServiceModel list cannot be null");
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    try {
+      return transaction.execute(status -> create(models, i -> null, i -> userOf(models.get(i))));
+    } catch (DataIntegrityViolationException e) {
+      if (!isUsernameConflict(e)) throw e;
+      // A username was taken by a concurrent create or missed by the filter, create the users one
+      // by one so only the conflicting ones are rejected
+      log.warn("Creating {} users failed, retrying one by one", models.size());
+      return createOneByOne(models, transaction);
+    }
+  }
+
+  private List<UserCreateResultServiceModel> createOneByOne(
+      List<UserCreateServiceModel> models, TransactionTemplate transaction) {
+    Set<String> seen = new HashSet<>();
+    List<UserCreateResultServiceModel> results = new ArrayList<>(models.size());
+    for (int i = 0; i < models.size(); i++) {
+      UserCreateServiceModel model = models.get(i);
+      UserCreateResultServiceModel result;
+      if (!seen.add(User.usernameKey(model.getUsername()))) {
+        result =
+            new UserCreateResultServiceModel(
+                i, model.getUsername(), UserCreateStatus.DUPLICATE_IN_BATCH, null);
+      } else {
+        result = createOne(model, transaction);
+        result.setIndex(i);
+      }
+      results.add(result);
+    }
+    return results;
+  }
+
+  private UserCreateResultServiceModel createOne(
+      UserCreateServiceModel model, TransactionTemplate transaction) {
+    List<UserCreateServiceModel> single = Collections.singletonList(model);
+    try {
+      return transaction.execute(status -> create(single, i -> null, i -> userOf(model))).get(0);
+    } catch (DataIntegrityViolationException e) {
+      if (!isUsernameConflict(e)) throw e;
+      return new UserCreateResultServiceModel(
+          0, model.getUsername(), UserCreateStatus.ALREADY_EXISTS, null);
+    }
+  }
+
+  @Override
+  @Transactional
+  public List<UserCreateResultServiceModel> importUsers(List<UserServiceModel> users)
+      throws IllegalArgumentException {
+    Assert.notNull(users, "UserServiceModel list cannot be null");
+    return create(
+        MappingUtils.mapAll(users, UserCreateServiceModel.class),
+        i -> users.get(i).getUid(),
+        i -> {
+          UserServiceModel user = users.get(i);
+          return user.getUid() == null
+              ? userOf(user.getUsername(), user.getFirstName(), user.getLastName())
+              : User.of(
+                  user.getUid(),
+                  user.getUsername(),
+                  user.getFirstName(),
+                  user.getLastName(),
+                  user.getCreatedDateTime() == null
+                      ? LocalDateTime.now()
+                      : user.getCreatedDateTime());
+        });
+  }
+
+  // Creates the user built for each model whose username and supplied uid, if any, are free
+  private List<UserCreateResultServiceModel> create(
+      List<UserCreateServiceModel> models,
+      IntFunction<UUID> suppliedUid,
+      IntFunction<User> newUser) {
+    models.forEach(this::assertCreatable);
+    if (models.isEmpty()) return Collections.emptyList();
+
+    Set<String> candidates =
+        models.stream()
+            .map(UserCreateServiceModel::getUsername)
+            .filter(usernameFilter::mightContain)
+            .collect(Collectors.toSet());
+    Set<String> taken =
+        candidates.isEmpty()
+            ? Collections.emptySet()
+            : userRepository.findExistingUsernames(candidates).stream()
+                .map(User::usernameKey)
+                .collect(Collectors.toSet());
+    usernameFilter.recordFalsePositives(candidates.size() - taken.size());
+    Set<UUID> uids = new HashSet<>();
+    for (int i = 0; i < models.size(); i++) {
+      UUID uid = suppliedUid.apply(i);
+      if (uid != null) uids.add(uid);
+    }
+    Set<UUID> takenUids =
+        uids.isEmpty()
+            ? Collections.emptySet()
+            : new HashSet<>(userRepository.findExistingUids(uids));
+
+    Set<String> seen = new HashSet<>();
+    Set<UUID> seenUids = new HashSet<>();
+    List<UserCreateResultServiceModel> results = new ArrayList<>(models.size());
+    List<User> users = new ArrayList<>(models.size());
+    for (int i = 0; i < models.size(); i++) {
+      UserCreateServiceModel model = models.get(i);
+      String key = User.usernameKey(model.getUsername());
+      UUID uid = suppliedUid.apply(i);
+      UserCreateStatus status;
+      if (taken.contains(key) || takenUids.contains(uid)) {
+        status = UserCreateStatus.ALREADY_EXISTS;
+      } else if (seen.contains(key) || seenUids.contains(uid)) {
+        status = UserCreateStatus.DUPLICATE_IN_BATCH;
+      } else {
+        seen.add(key);
+        if (uid != null) seenUids.add(uid);
+        status = UserCreateStatus.CREATED;
+        users.add(newUser.apply(i));
+      }
+      results.add(new UserCreateResultServiceModel(i, model.getUsername(), status, null));
+    }
+
+    log.info("Creating {} new users out of {} requested", users.size(), models.size());
+    Iterator<User> created = userRepository.insertAll(users).iterator();
+    List<UserServiceModel> createdModels = new ArrayList<>(users.size());
+    for (UserCreateResultServiceModel result : results) {
+      if (result.getStatus() == UserCreateStatus.CREATED) {
+        result.setUser(MappingUtils.map(created.next(), UserServiceModel.class));
+        createdModels.add(result.getUser());
+      }
+    }
+    if (!createdModels.isEmpty()) eventPublisher.publishEvent(new UsersCreatedEvent(createdModels));
+    return results;
   }
 
   @Override
   public Page<UserServiceModel> getUsersPage(Pageable pageable) {
     Assert.notNull(pageable, "Pageable cannot be null");
-    return userRepository
-        .findAll(pageable)
-        .map(user -> MappingUtils.map(user, UserServiceModel.class));
+    List<UserServiceModel> content =
+        MappingUtils.mapAll(userRepository.findAllBy(pageable), UserServiceModel.class);
+    // The total is only needed when it cannot be derived from the offset and a partial last page
+    return PageableExecutionUtils.getPage(content, pageable, userCounter::getTotal);
+  }
+
+  @Override
+  public UserSliceServiceModel getUsersSlice(String cursor, int size)
+      throws IllegalArgumentException {
+    Assert.isTrue(size > 0, "Slice size must be positive");
+    // One extra row tells whether there is a next slice without a count query
+    Pageable limit = PageRequest.of(0, size + 1);
+    List<User> users;
+    if (cursor == null) {
+      users = userRepository.findNewest(limit);
+    } else {
+      UserCursor after = UserCursor.decode(cursor);
+      users = userRepository.findNewestBefore(after.getCreatedDateTime(), after.getId(), limit);
+    }
+
+    boolean hasNext = users.size() > size;
+    if (hasNext) users = users.subList(0, size);
+    String nextCursor = hasNext ? UserCursor.of(users.get(size - 1)).encode() : null;
+    List<UserServiceModel> content = MappingUtils.mapAll(users, UserServiceModel.class);
+    return new UserSliceServiceModel(content, size, hasNext, nextCursor);
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public List<UserServiceModel> searchUsers(String prefix, int limit)
+      throws IllegalArgumentException {
+    Assert.hasText(prefix, "Search prefix cannot be empty");
+    Assert.isTrue(limit > 0, "Search limit must be positive");
+    return userSearchIndex.search(prefix.trim(), limit);
+  }
+
+  // Cache hits need no transaction, a load runs in the one opened by the repository
+  @Override
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public UserServiceModel getUserByUid(UUID uid) throws UserNotFoundException {
+    Assert.notNull(uid, "UUID cannot be null");
+    return userCache.get(uid).orElseThrow(UserNotFoundException::new);
   }
 
   @Override
   @Transactional
-  public void deleteUserByUid(UUID uid) {
+  public void deleteUserByUid(UUID uid) throws UserNotFoundException {
     Assert.notNull(uid, "UUID cannot be null");
-    User user = userRepository.findByUid(uid).orElseThrow(UserNotFoundException::new);
-    userRepository.delete(user);
+    List<UUID> uids = Collections.singletonList(uid);
+    if (userRepository.deleteByUids(uids) == 0) throw new UserNotFoundException();
+    eventPublisher.publishEvent(new UsersDeletedEvent(uids));
+  }
+
+  @Override
+  @Transactional
+  public List<UserDeleteResultServiceModel> deleteUsersByUid(List<UUID> uids)
+      throws IllegalArgumentException {
+    Assert.notNull(uids, "UUID list cannot be null");
+    Assert.noNullElements(uids, "UUID list cannot contain null");
+
+    List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(uids));
+    Set<UUID> deleted = new HashSet<>();
+    for (int from = 0; from < distinct.size(); from += DELETE_CHUNK_SIZE) {
+      List<UUID> chunk =
+          distinct.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinct.size()));
+      List<UUID> found = userRepository.findExistingUids(chunk);
+      if (found.isEmpty()) continue;
+      userRepository.deleteByUids(found);
+      deleted.addAll(found);
+    }
+    log.info("Deleted {} users out of {} requested", deleted.size(), uids.size());
+    if (!deleted.isEmpty()) {
+      eventPublisher.publishEvent(new UsersDeletedEvent(new ArrayList<>(deleted)));
+    }
+
+    List<UserDeleteResultServiceModel> results = new ArrayList<>(uids.size());
+    for (UUID uid : uids) {
+      UserDeleteStatus status =
+          deleted.contains(uid) ? UserDeleteStatus.DELETED : UserDeleteStatus.NOT_FOUND;
+      results.add(new UserDeleteResultServiceModel(uid, status));
+    }
+    return results;
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public long deleteUsersCreatedBefore(LocalDateTime createdBefore)
+      throws IllegalArgumentException {
+    Assert.notNull(createdBefore, "Created before cannot be null");
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    Pageable chunk = PageRequest.of(0, DELETE_CHUNK_SIZE);
+    long total = 0;
+    int chunkSize;
+    do {
+      // Deleted rows no longer match, so the first chunk is always the next one
+      List<UUID> uids =
+          transaction.execute(
+              status -> {
+                List<UUID> next = userRepository.findUidsCreatedBefore(createdBefore, chunk);
+                if (!next.isEmpty()) {
+                  userRepository.deleteByUids(next);
+                  eventPublisher.publishEvent(new UsersDeletedEvent(next));
+                }
+                return next;
+              });
+      chunkSize = uids == null ? 0 : uids.size();
+      total += chunkSize;
+    } while (chunkSize == DELETE_CHUNK_SIZE);
+    log.info("Deleted {} users created before {}", total, createdBefore);
+    return total;
+  }
+
+  @Override
+  public long exportUsers(Consumer<UserServiceModel> consumer) {
+    Assert.notNull(consumer, "Consumer cannot be null");
+    long count = 0;
+    try (Stream<User> users = userRepository.streamAll()) {
+      for (Iterator<User> iterator = users.iterator(); iterator.hasNext(); count++) {
+        User user = iterator.next();
+        consumer.accept(MappingUtils.map(user, UserServiceModel.class));
+        userRepository.detach(user);
+      }
+    }
+    return count;
+  }
+
+  private static boolean isUsernameConflict(DataIntegrityViolationException e) {
+    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException) {
+        String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+        // Not every driver reports the name, the username index is the only one a create can hit
+        // apart from the practically impossible uid collision
+        return constraintName == null
+            || constraintName.toLowerCase(Locale.ROOT).contains(User.USERNAME_CONSTRAINT);
+      }
+    }
+    return false;
+  }
+
+  private User userOf(UserCreateServiceModel model) {
+    return userOf(model.getUsername(), model.getFirstName(), model.getLastName());
+  }
+
+  private User userOf(String username, String firstName, String lastName) {
+    return User.of(uidGenerator.next(), username, firstName, lastName);
+  }
+
+  private void assertCreatable(UserCreateServiceModel model) {
+    Assert.notNull(model, "UserCreateServiceModel cannot be null");
+    Assert.notNull(model.getUsername(), "UserCreateServiceModel.username cannot be null");
+    Assert.notNull(model.getFirstName(), "UserCreateServiceModel.firstName cannot be null");
   }
 }
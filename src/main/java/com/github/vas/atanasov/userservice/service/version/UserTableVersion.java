@@ -0,0 +1,62 @@
+package com.github.vas.atanasov.userservice.service.version;
+
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the user table as seen by this instance, used as the strong ETag of listings. It
+ * changes after every committed create or delete and with every start. Changes made by other
+ * instances are only noticed when the {@link
+ * com.github.vas.atanasov.userservice.service.count.UserCounter} reconcile finds its total drifted,
+ * until then a tag of another instance's listing may match data that has changed. Tags are
+ * therefore only handed out when {@code user-service.listing-etag.enabled} is set, which is meant
+ * for a single instance owning all writes.
+ *
+ * <p>The version is read before the listing is queried, a change committed in between only costs
+ * the client one more full response.
+ */
+@Component
+public class UserTableVersion {
+  private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+  private final AtomicLong version = new AtomicLong();
+  private final boolean enabled;
+
+  public UserTableVersion(@Value("${user-service.listing-etag.enabled:true}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** @return the current version as a quoted entity tag, null when listings are not tagged */
+  public String getETag() {
+    if (!enabled) return null;
+    return "\"" + epoch + "-" + version.get() + "\"";
+  }
+
+  /**
+   * @param variant distinguishes representations of the same listing, e.g. the Accept header
+   * @return the current version of the given variant as a quoted entity tag, null when listings
+   *     are not tagged
+   */
+  public String getETag(String variant) {
+    if (!enabled || variant == null) return getETag();
+    return "\"" + epoch + "-" + version.get() + "-" + Integer.toHexString(variant.hashCode()) + "\"";
+  }
+
+  public void increment() {
+    version.incrementAndGet();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersCreated(UsersCreatedEvent event) {
+    increment();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUsersDeleted(UsersDeletedEvent event) {
+    increment();
+  }
+}
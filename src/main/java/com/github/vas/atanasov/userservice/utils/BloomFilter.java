@@ -0,0 +1,103 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe Bloom filter over strings. Bits are set with CAS, so puts and lookups can run
+ * concurrently without locking. Elements cannot be removed.
+ */
+public final class BloomFilter {
+  private static final long MAX_BIT_SIZE = (long) Integer.MAX_VALUE * Long.SIZE;
+
+  private final AtomicLongArray words;
+  private final long bitSize;
+  private final int hashFunctions;
+  private final AtomicLong bitCount = new AtomicLong();
+
+  private BloomFilter(long bitSize, int hashFunctions) {
+    this.words = new AtomicLongArray((int) ((bitSize + Long.SIZE - 1) / Long.SIZE));
+    this.bitSize = bitSize;
+    this.hashFunctions = hashFunctions;
+  }
+
+  /**
+   * Creates a filter sized so that after {@code expectedInsertions} distinct puts the false
+   * positive rate is about {@code falsePositiveRate}.
+   */
+  public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+    }
+    double ln2 = Math.log(2);
+    long bitSize =
+        (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+    bitSize = Math.max(Long.SIZE, Math.min(bitSize, MAX_BIT_SIZE));
+    int hashFunctions =
+        Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * ln2));
+    return new BloomFilter(bitSize, hashFunctions);
+  }
+
+  public void put(CharSequence value) {
+    long hash1 = mix(hash(value));
+    long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+    for (int i = 0; i < hashFunctions; i++) {
+      long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitSize;
+      if (setBit(index)) bitCount.incrementAndGet();
+    }
+  }
+
+  public boolean mightContain(CharSequence value) {
+    long hash1 = mix(hash(value));
+    long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+    for (int i = 0; i < hashFunctions; i++) {
+      long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitSize;
+      if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) return false;
+    }
+    return true;
+  }
+
+  public long bitSize() {
+    return bitSize;
+  }
+
+  public int hashFunctions() {
+    return hashFunctions;
+  }
+
+  /** Probability that {@link #mightContain} is true for an absent value given the bits set. */
+  public double expectedFalsePositiveRate() {
+    return Math.pow((double) bitCount.get() / bitSize, hashFunctions);
+  }
+
+  private boolean setBit(long index) {
+    int word = (int) (index >>> 6);
+    long mask = 1L << index;
+    long current;
+    do {
+      current = words.get(word);
+      if ((current & mask) != 0) return false;
+    } while (!words.compareAndSet(word, current, current | mask));
+    return true;
+  }
+
+  // 64-bit FNV-1a over the UTF-16 code units
+  private static long hash(CharSequence value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  // MurmurHash3 finalizer, spreads FNV output over all bits
+  private static long mix(long hash) {
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+}
@@ -0,0 +1,18 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/** Thread factory of the background workers, they must not keep the JVM alive on shutdown. */
+public final class DaemonThreads {
+
+  private DaemonThreads() {}
+
+  /** Creates daemon threads named {@code namePrefix} followed by a counter. */
+  public static ThreadFactory factory(String namePrefix) {
+    CustomizableThreadFactory factory = new CustomizableThreadFactory(namePrefix);
+    factory.setDaemon(true);
+    return factory;
+  }
+}
@@ -0,0 +1,11 @@
+package com.github.vas.atanasov.userservice.utils;
+
+/**
+ * Contributes precompiled mappers to {@link MappingUtils}. Each layer registers the pairs of the
+ * types it owns, implementations are found with {@link java.util.ServiceLoader} through {@code
+ * META-INF/services}, so they are in place without a Spring context as well.
+ */
+public interface MapperRegistrar {
+
+  void register(MapperRegistry.Builder registry);
+}
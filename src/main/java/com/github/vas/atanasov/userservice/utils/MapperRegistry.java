@@ -0,0 +1,72 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Immutable table of hand written mappers keyed by source and destination type. It is built once
+ * and then only read, so lookups need no synchronization.
+ */
+public final class MapperRegistry {
+
+  private final Map<Class<?>, Map<Class<?>, Function<Object, Object>>> mappers;
+
+  private MapperRegistry(Map<Class<?>, Map<Class<?>, Function<Object, Object>>> mappers) {
+    this.mappers = mappers;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Finds the mapper registered for the given pair. Subclasses of a registered source type, such as
+   * Hibernate proxies, resolve to the mapper of their closest registered superclass.
+   *
+   * @return the mapper or null if none is registered for the pair
+   */
+  @SuppressWarnings("unchecked")
+  public <D> Function<Object, D> find(Class<?> sourceClass, Class<D> destinationClass) {
+    for (Class<?> type = sourceClass; type != null; type = type.getSuperclass()) {
+      Map<Class<?>, Function<Object, Object>> byDestination = mappers.get(type);
+      if (byDestination != null) {
+        Function<Object, Object> mapper = byDestination.get(destinationClass);
+        if (mapper != null) return (Function<Object, D>) mapper;
+      }
+    }
+    return null;
+  }
+
+  public static final class Builder {
+    private final Map<Class<?>, Map<Class<?>, Function<Object, Object>>> mappers = new HashMap<>();
+
+    private Builder() {}
+
+    @SuppressWarnings("unchecked")
+    public <S, D> Builder register(
+        Class<S> sourceClass, Class<D> destinationClass, Function<? super S, ? extends D> mapper) {
+      Objects.requireNonNull(sourceClass, "Source type must not be null");
+      Objects.requireNonNull(destinationClass, "Destination type must not be null");
+      Objects.requireNonNull(mapper, "Mapper must not be null");
+      Function<Object, Object> previous =
+          mappers
+              .computeIfAbsent(sourceClass, type -> new HashMap<>())
+              .put(destinationClass, (Function<Object, Object>) mapper);
+      if (previous != null) {
+        throw new IllegalStateException(
+            "Mapper already registered for " + sourceClass + " -> " + destinationClass);
+      }
+      return this;
+    }
+
+    public MapperRegistry build() {
+      Map<Class<?>, Map<Class<?>, Function<Object, Object>>> copy = new HashMap<>();
+      mappers.forEach((type, byDestination) -> copy.put(type, new HashMap<>(byDestination)));
+      copy.replaceAll((type, byDestination) -> Collections.unmodifiableMap(byDestination));
+      return new MapperRegistry(Collections.unmodifiableMap(copy));
+    }
+  }
+}
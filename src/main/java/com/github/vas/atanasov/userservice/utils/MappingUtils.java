@@ -11,19 +11,36 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Helper class for {@link ModelMapper}.Two instances are created lazy. One with configuration and
- * one without. The utility class provides methods for mapping entities to target class/instance
- * with various overloaded methods.
+ * Helper class for mapping entities to target class/instance with various overloaded methods.
+ *
+ * <p>Type pairs used on request paths are mapped by precompiled mappers, which copy fields directly
+ * without reflection. The layers owning the types register them through {@link MapperRegistrar}.
+ * Any other pair, and every call that passes a custom {@link ModelMapper} or {@link PropertyMap},
+ * falls back to {@link ModelMapper}. Two {@link ModelMapper} instances are created lazily for that,
+ * one with configuration and one without.
+ *
+ * <p>Mappings made while handling a request add to its {@link RequestTimings.Phase#MAPPING} phase,
+ * a collection is timed as a whole.
  */
 @UtilityClass
 public final class MappingUtils {
 
-  private static ModelMapper configured;
-  private static ModelMapper defaultMapper;
+  private static final MapperRegistry PRECOMPILED = loadPrecompiled();
+
+  // Holder classes give lazy and thread safe initialization without locking
+  private static final class ConfiguredHolder {
+    private static final ModelMapper INSTANCE = createConfigured();
+  }
+
+  private static final class DefaultHolder {
+    private static final ModelMapper INSTANCE = createDefault();
+  }
 
   public static ModelMapper createDefault() {
     return new ModelMapper();
@@ -41,17 +58,25 @@ public final class MappingUtils {
   }
 
   private static ModelMapper getConfigured() {
-    if (configured == null) {
-      configured = createConfigured();
-    }
-    return configured;
+    return ConfiguredHolder.INSTANCE;
   }
 
   private static ModelMapper getDefault() {
-    if (defaultMapper == null) {
-      defaultMapper = createDefault();
+    return DefaultHolder.INSTANCE;
+  }
+
+  private static MapperRegistry loadPrecompiled() {
+    MapperRegistry.Builder registry = MapperRegistry.builder();
+    for (MapperRegistrar registrar :
+        ServiceLoader.load(MapperRegistrar.class, MappingUtils.class.getClassLoader())) {
+      registrar.register(registry);
     }
-    return defaultMapper;
+    return registry.build();
+  }
+
+  // Package-private so tests can check what the registrars contributed
+  static MapperRegistry precompiled() {
+    return PRECOMPILED;
   }
 
   public static <S, D> D map(final S entity, Class<D> outClass) {
@@ -69,7 +94,8 @@ public final class MappingUtils {
   /**
    * Instantiates and maps properties from source entity to the target instantiated with the help of
    * custom {@link PropertyMap} and custom {@link ModelMapper}. if {@link ModelMapper} is null a
-   * configured one will be provided.
+   * configured one will be provided. If both are null and a precompiled mapper is registered for
+   * the pair, it is used instead.
    *
    * @param entity source entity
    * @param outClass target entity class
@@ -79,9 +105,23 @@ public final class MappingUtils {
    */
   public static <S, D> D map(
       S entity, Class<D> outClass, ModelMapper modelMapper, PropertyMap<S, D> propertyMap) {
+    long start = started();
+    try {
+      return mapOne(entity, outClass, modelMapper, propertyMap);
+    } finally {
+      record(start);
+    }
+  }
+
+  private static <S, D> D mapOne(
+      S entity, Class<D> outClass, ModelMapper modelMapper, PropertyMap<S, D> propertyMap) {
     ModelMapper mapper = modelMapper;
     Objects.requireNonNull(entity, "Source object must not be null");
     Objects.requireNonNull(outClass, "Destination type must not be null");
+    if (modelMapper == null && propertyMap == null) {
+      Function<Object, D> precompiled = PRECOMPILED.find(entity.getClass(), outClass);
+      if (precompiled != null) return precompiled.apply(entity);
+    }
     if (modelMapper == null) mapper = getConfigured();
     if (propertyMap != null) mapper.addMappings(propertyMap);
     return mapper.map(entity, outClass);
@@ -120,9 +160,14 @@ public final class MappingUtils {
       ModelMapper modelMapper,
       PropertyMap<S, D> propertyMap) {
     Stream<S> safeStream = StreamUtils.nullSafeStream(entityStream);
-    return safeStream
-        .map(entity -> map(entity, outClass, modelMapper, propertyMap))
-        .collect(Collectors.toList());
+    long start = started();
+    try {
+      return safeStream
+          .map(entity -> mapOne(entity, outClass, modelMapper, propertyMap))
+          .collect(Collectors.toList());
+    } finally {
+      record(start);
+    }
   }
 
   public static <S, D> List<D> map(List<S> source, TypeToken<List<D>> typeToken) {
@@ -160,7 +205,12 @@ public final class MappingUtils {
     ModelMapper mapper = modelMapper;
     if (modelMapper == null) mapper = getConfigured();
     if (propertyMap != null) mapper.addMappings(propertyMap);
-    return mapper.map(source, typeToken.getType());
+    long start = started();
+    try {
+      return mapper.map(source, typeToken.getType());
+    } finally {
+      record(start);
+    }
   }
 
   public static <S, D> D map(final S source, D destination) {
@@ -193,7 +243,21 @@ public final class MappingUtils {
     Objects.requireNonNull(destination, "Destination type must not be null");
     if (modelMapper == null) mapper = getConfigured();
     if (propertyMap != null) mapper.addMappings(propertyMap);
-    mapper.map(entity, destination);
+    long start = started();
+    try {
+      mapper.map(entity, destination);
+    } finally {
+      record(start);
+    }
     return destination;
   }
+
+  // Zero outside of a request, which skips reading the clock
+  private static long started() {
+    return RequestTimings.current() == null ? 0 : System.nanoTime();
+  }
+
+  private static void record(long start) {
+    if (start != 0) RequestTimings.record(RequestTimings.Phase.MAPPING, System.nanoTime() - start);
+  }
 }
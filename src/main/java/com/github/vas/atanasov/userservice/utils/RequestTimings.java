@@ -0,0 +1,82 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each phase of a request, reported in its {@code Server-Timing} header and access
+ * log. The timings are bound to the thread handling the request, code running outside of a request
+ * finds none and records nothing. Phases may overlap: service time includes the database and most
+ * of the mapping.
+ */
+public final class RequestTimings {
+  private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+  private final long start;
+  private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+  private volatile long mark;
+
+  public RequestTimings(long start) {
+    this.start = start;
+  }
+
+  public static RequestTimings current() {
+    return CURRENT.get();
+  }
+
+  /** @return the timings bound before, to be bound again when the request is done */
+  public static RequestTimings bind(RequestTimings timings) {
+    RequestTimings previous = CURRENT.get();
+    if (timings == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(timings);
+    }
+    return previous;
+  }
+
+  /** Adds to a phase of the current request, if there is one. */
+  public static void record(Phase phase, long nanos) {
+    RequestTimings timings = CURRENT.get();
+    if (timings != null) timings.add(phase, nanos);
+  }
+
+  public void add(Phase phase, long nanos) {
+    this.nanos.addAndGet(phase.ordinal(), nanos);
+  }
+
+  public long get(Phase phase) {
+    return nanos.get(phase.ordinal());
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  /** Starts a phase that ends in another callback, see {@link #endMark(Phase, long)}. */
+  public void mark(long now) {
+    mark = now;
+  }
+
+  /** Adds the time since the last {@link #mark(long)} to the phase, if there was one. */
+  public void endMark(Phase phase, long now) {
+    long started = mark;
+    if (started == 0) return;
+    mark = 0;
+    add(phase, now - started);
+  }
+
+  public enum Phase {
+    BIND,
+    SERVICE,
+    DB,
+    MAPPING,
+    SERIALIZATION;
+
+    private final String metricName = name().toLowerCase(Locale.ROOT);
+
+    public String getMetricName() {
+      return metricName;
+    }
+  }
+}
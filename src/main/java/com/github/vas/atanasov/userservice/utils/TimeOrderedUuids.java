@@ -0,0 +1,55 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version 7 UUIDs (RFC 9562): a 48 bit Unix millisecond timestamp, a 12 bit sequence in {@code
+ * rand_a} and 62 random bits. Stored as {@code BINARY(16)} the timestamp is the leading part of the
+ * key, so new uids are appended to the right end of an index instead of landing on random pages.
+ *
+ * <p>Uids are strictly increasing within the JVM, also across threads: the timestamp and sequence
+ * are one counter advanced with a CAS. When more than 4096 uids are taken in one millisecond the
+ * sequence carries into the timestamp, which then runs slightly ahead of the clock until it catches
+ * up. The random part comes from {@link ThreadLocalRandom}, uids identify users, they are not
+ * secrets.
+ */
+public final class TimeOrderedUuids {
+  private static final int SEQUENCE_BITS = 12;
+  private static final long VERSION = 7L << SEQUENCE_BITS;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+  // Unix millis << SEQUENCE_BITS | sequence of the last uid handed out
+  private static final AtomicLong LAST = new AtomicLong();
+
+  private TimeOrderedUuids() {}
+
+  public static UUID next() {
+    long current = nextTimestampAndSequence(LAST, System.currentTimeMillis());
+    long millis = current >>> SEQUENCE_BITS;
+    long sequence = current & ((1L << SEQUENCE_BITS) - 1);
+    long msb = (millis << 16) | VERSION | sequence;
+    long lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & VARIANT_MASK);
+    return new UUID(msb, lsb);
+  }
+
+  /** @return the Unix millisecond timestamp of a version 7 uid */
+  public static long timestamp(UUID uid) {
+    if (uid.version() != 7) {
+      throw new IllegalArgumentException("Not a version 7 uuid: " + uid);
+    }
+    return uid.getMostSignificantBits() >>> 16;
+  }
+
+  // Next value after the last one, restarting the sequence at zero when the clock moved on
+  static long nextTimestampAndSequence(AtomicLong counter, long millis) {
+    long floor = millis << SEQUENCE_BITS;
+    while (true) {
+      long last = counter.get();
+      long next = Math.max(last + 1, floor);
+      if (counter.compareAndSet(last, next)) return next;
+    }
+  }
+}
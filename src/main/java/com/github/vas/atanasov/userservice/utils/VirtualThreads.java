@@ -0,0 +1,59 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads while the code is still compiled for Java 8. The API is looked up
+ * reflectively, so this class loads on every JVM and reports {@link #isSupported()} false before
+ * Java 21.
+ */
+public final class VirtualThreads {
+  private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+  private VirtualThreads() {}
+
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread per task, the threads are named {@code
+   * namePrefix} followed by a counter.
+   *
+   * @throws IllegalStateException if the JVM has no virtual threads
+   */
+  public static ExecutorService newExecutor(String namePrefix) {
+    if (!isSupported()) {
+      throw new IllegalStateException(
+          "Virtual threads require Java 21 or newer, running on "
+              + System.getProperty("java.version"));
+    }
+    try {
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Object builder = OF_VIRTUAL.invoke(null);
+      builder =
+          builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+      ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      return (ExecutorService)
+          Executors.class
+              .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+              .invoke(null, factory);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException("Cannot create a virtual thread executor", e);
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException("Cannot create a virtual thread executor", e.getCause());
+    }
+  }
+
+  private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
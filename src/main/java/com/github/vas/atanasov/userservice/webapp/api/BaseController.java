@@ -14,7 +14,11 @@ import static com.github.vas.atanasov.userservice.webapp.enums.RestStatus.SUCCES
 public interface BaseController {
 
   int DEFAULT_PAGE_SIZE = 15;
+  int MAX_PAGE_SIZE = 2000;
+  int DEFAULT_SEARCH_LIMIT = 10;
+  int MAX_SEARCH_LIMIT = 100;
   String SORT = "createdDateTime";
+  String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
 
   default List<RestValidationError> mapErrors(List<FieldError> fieldErrors) {
     return fieldErrors.stream()
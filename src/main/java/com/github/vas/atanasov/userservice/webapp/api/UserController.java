@@ -1,13 +1,30 @@
 package com.github.vas.atanasov.userservice.webapp.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.exceptions.UserCreateBufferFullException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserAsyncCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserDeleteResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserSliceServiceModel;
 import com.github.vas.atanasov.userservice.service.services.UserService;
+import com.github.vas.atanasov.userservice.service.version.UserTableVersion;
 import com.github.vas.atanasov.userservice.utils.MappingUtils;
 import com.github.vas.atanasov.userservice.webapp.enums.RestMessage;
+import com.github.vas.atanasov.userservice.webapp.export.UserExportFormat;
+import com.github.vas.atanasov.userservice.webapp.export.UserExportWriter;
+import com.github.vas.atanasov.userservice.webapp.idempotency.IdempotencyKeyReusedException;
+import com.github.vas.atanasov.userservice.webapp.idempotency.IdempotencyStore;
+import com.github.vas.atanasov.userservice.webapp.idempotency.IdempotentRequestInProgressException;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserBatchCreateRequest;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserBatchDeleteRequest;
 import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+import com.github.vas.atanasov.userservice.webapp.models.response.UserBatchItemResponse;
+import com.github.vas.atanasov.userservice.webapp.models.response.UserPageResponse;
 import com.github.vas.atanasov.userservice.webapp.models.wrappers.ResponseWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,15 +32,28 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import static com.github.vas.atanasov.userservice.webapp.enums.RestMessage.*;
@@ -34,16 +64,52 @@ import static com.github.vas.atanasov.userservice.webapp.enums.RestMessage.*;
 @RequestMapping(UserController.URL_USER_BASE)
 public class UserController implements BaseController {
   public static final String URL_USER_BASE = "/v1/users";
+  public static final String URL_USER_ASYNC = "/async";
+  public static final String CREATE_RETRY_AFTER_SECONDS = "1";
 
   private final UserService userService;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final IdempotencyStore idempotencyStore;
+  private final UserTableVersion tableVersion;
 
   @ResponseStatus(value = HttpStatus.CREATED)
   @PostMapping(
-      produces = MediaType.APPLICATION_JSON_VALUE,
-      consumes = MediaType.APPLICATION_JSON_VALUE)
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
   public ResponseEntity<?> createUser(
-      @Valid @RequestBody UserCreateRequest request, BindingResult bindingResult) {
+      @Valid @RequestBody UserCreateRequest request,
+      BindingResult bindingResult,
+      @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
 
+    if (idempotencyKey == null) return create(request, bindingResult);
+    if (idempotencyKey.isEmpty() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+      log.error("Invalid idempotency key of length {}", idempotencyKey.length());
+      return ResponseEntity.badRequest().body(failureResponse(IDEMPOTENCY_KEY_INVALID));
+    }
+    try {
+      return idempotencyStore.execute(
+          idempotencyKey, request, () -> create(request, bindingResult));
+    } catch (IdempotencyKeyReusedException keyReusedException) {
+      log.error("Idempotency key={} was used with a different request", idempotencyKey);
+      ResponseWrapper wrapper = failureResponse(IDEMPOTENCY_KEY_REUSED);
+      return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(wrapper);
+    } catch (IdempotentRequestInProgressException inProgressException) {
+      log.warn("Request with idempotency key={} is still in progress", idempotencyKey);
+      ResponseWrapper wrapper = failureResponse(IDEMPOTENT_REQUEST_IN_PROGRESS);
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(wrapper);
+    }
+  }
+
+  private ResponseEntity<?> create(UserCreateRequest request, BindingResult bindingResult) {
     if (bindingResult.hasErrors()) {
       log.error("error! binding result has errors: {}", bindingResult);
       ResponseWrapper wrapper =
@@ -54,7 +120,7 @@ public class UserController implements BaseController {
     try {
       UserServiceModel user =
           userService.createUser(MappingUtils.map(request, UserCreateServiceModel.class));
-      log.info("Created user with username={} and id={}", user.getUsername(), user.getUid());
+      log.debug("Created user with username={} and id={}", user.getUsername(), user.getUid());
       URI location =
           ServletUriComponentsBuilder.fromCurrentContextPath()
               .path(URL_USER_BASE + "/" + user.getUid())
@@ -69,12 +135,230 @@ public class UserController implements BaseController {
     }
   }
 
-  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  @PostMapping(
+      value = URL_USER_ASYNC,
+      produces = MediaType.APPLICATION_JSON_VALUE,
+      consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> createUserAsync(
+      @Valid @RequestBody UserCreateRequest request, BindingResult bindingResult) {
+
+    if (bindingResult.hasErrors()) {
+      log.error("error! binding result has errors: {}", bindingResult);
+      ResponseWrapper wrapper =
+          failureResponse(USER_CREATION_INVALID_INPUT, mapErrors(bindingResult.getFieldErrors()));
+      return ResponseEntity.badRequest().body(wrapper);
+    }
+
+    try {
+      UserAsyncCreateServiceModel accepted =
+          userService.createUserAsync(MappingUtils.map(request, UserCreateServiceModel.class));
+      URI location =
+          ServletUriComponentsBuilder.fromCurrentContextPath()
+              .path(URL_USER_BASE + URL_USER_ASYNC + "/" + accepted.getUid())
+              .buildAndExpand()
+              .toUri();
+      ResponseWrapper wrapper = successResponse(USER_CREATE_ACCEPTED, accepted);
+      return ResponseEntity.accepted().location(location).body(wrapper);
+    } catch (UserExistsException userExistsException) {
+      log.error("User with username={} is already waiting to be created", request.getUsername());
+      ResponseWrapper wrapper = failureResponse(USER_ALREADY_EXISTS);
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(wrapper);
+    } catch (UserCreateBufferFullException bufferFullException) {
+      log.warn("Rejected user with username={}, create buffer is full", request.getUsername());
+      ResponseWrapper wrapper = failureResponse(USER_CREATE_BUFFER_FULL);
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(HttpHeaders.RETRY_AFTER, CREATE_RETRY_AFTER_SECONDS)
+          .body(wrapper);
+    }
+  }
+
+  @GetMapping(value = URL_USER_ASYNC + "/{uid}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getAsyncCreateStatus(@PathVariable UUID uid) {
+    try {
+      UserAsyncCreateServiceModel status = userService.getAsyncCreateStatus(uid);
+      return ResponseEntity.ok(successResponse(USER_CREATE_STATUS, status));
+    } catch (UserNotFoundException userNotFoundException) {
+      ResponseWrapper wrapper = failureResponse(RestMessage.USER_NOT_FOUND);
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(wrapper);
+    }
+  }
+
+  @PostMapping(
+      value = "/batch",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<?> createUsers(
+      @Valid @RequestBody UserBatchCreateRequest request, BindingResult bindingResult) {
+
+    if (bindingResult.hasErrors()) {
+      log.error("error! binding result has errors: {}", bindingResult);
+      ResponseWrapper wrapper =
+          failureResponse(USERS_BATCH_INVALID_INPUT, mapErrors(bindingResult.getFieldErrors()));
+      return ResponseEntity.badRequest().body(wrapper);
+    }
+
+    List<UserCreateRequest> users = request.getUsers();
+    UserBatchItemResponse[] items = new UserBatchItemResponse[users.size()];
+    List<Integer> validIndexes = new ArrayList<>(users.size());
+    List<UserCreateServiceModel> models = new ArrayList<>(users.size());
+    SpringValidatorAdapter itemValidator = new SpringValidatorAdapter(validator);
+    for (int i = 0; i < users.size(); i++) {
+      UserCreateRequest user = users.get(i);
+      if (user == null) {
+        items[i] = UserBatchItemResponse.builder().index(i).status(UserCreateStatus.INVALID).build();
+        continue;
+      }
+      Errors errors = new BeanPropertyBindingResult(user, "users[" + i + "]");
+      itemValidator.validate(user, errors);
+      if (errors.hasErrors()) {
+        items[i] =
+            UserBatchItemResponse.builder()
+                .index(i)
+                .username(user.getUsername())
+                .status(UserCreateStatus.INVALID)
+                .errors(mapErrors(errors.getFieldErrors()))
+                .build();
+      } else {
+        validIndexes.add(i);
+        models.add(MappingUtils.map(user, UserCreateServiceModel.class));
+      }
+    }
+
+    for (UserCreateResultServiceModel result : userService.createUsers(models)) {
+      int index = validIndexes.get(result.getIndex());
+      items[index] =
+          UserBatchItemResponse.builder()
+              .index(index)
+              .username(result.getUsername())
+              .status(result.getStatus())
+              .data(result.getUser())
+              .build();
+    }
+    log.info("Processed batch of {} users, {} passed validation", items.length, models.size());
+    return ResponseEntity.ok(successResponse(USERS_BATCH_PROCESSED, Arrays.asList(items)));
+  }
+
+  // Listings are tagged with the table version: an unchanged table answers 304 before the service
+  // is called, so there is no query, mapping or serialization to hash. The Accept header is part of
+  // the tag, JSON, CBOR and Smile responses are different representations. Without a version, when
+  // several instances serve the table, listings are neither tagged nor answered with 304.
+  @GetMapping(
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
   public ResponseEntity<?> getUsersPage(
       @PageableDefault(size = DEFAULT_PAGE_SIZE, sort = SORT, direction = Sort.Direction.DESC)
-          Pageable pageable) {
+          Pageable pageable,
+      WebRequest webRequest) {
+    String eTag = tableVersion.getETag(webRequest.getHeader(HttpHeaders.ACCEPT));
+    if (eTag != null && webRequest.checkNotModified(eTag)) return null;
     Page<UserServiceModel> page = userService.getUsersPage(pageable);
-    return ResponseEntity.ok(page);
+    return tagged(eTag).body(UserPageResponse.from(page));
+  }
+
+  @GetMapping(
+      value = "/scroll",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<?> getUsersSlice(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+      WebRequest webRequest) {
+    String eTag = tableVersion.getETag(webRequest.getHeader(HttpHeaders.ACCEPT));
+    if (eTag != null && webRequest.checkNotModified(eTag)) return null;
+    int sliceSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    try {
+      UserSliceServiceModel slice = userService.getUsersSlice(cursor, sliceSize);
+      return tagged(eTag).body(slice);
+    } catch (IllegalArgumentException illegalArgumentException) {
+      log.error("Invalid cursor={}", cursor);
+      ResponseWrapper wrapper = failureResponse(INVALID_CURSOR);
+      return ResponseEntity.badRequest().body(wrapper);
+    }
+  }
+
+  @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> searchUsers(
+      @RequestParam(required = false) String q,
+      @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit) {
+    if (q == null || q.trim().isEmpty()) {
+      log.error("Empty search query");
+      return ResponseEntity.badRequest().body(failureResponse(INVALID_SEARCH_QUERY));
+    }
+    int searchLimit = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+    List<UserServiceModel> users = userService.searchUsers(q, searchLimit);
+    return ResponseEntity.ok(successResponse(USERS_FOUND, users));
+  }
+
+  @GetMapping(value = "/export")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @RequestParam(defaultValue = "NDJSON") UserExportFormat format) {
+    StreamingResponseBody body =
+        outputStream -> {
+          UserExportWriter writer = format.createWriter(outputStream, objectMapper);
+          long count = userService.exportUsers(writer);
+          writer.flush();
+          log.info("Exported {} users as {}", count, format);
+        };
+    return ResponseEntity.ok()
+        .contentType(format.getMediaType())
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"users." + format.getExtension() + "\"")
+        .body(body);
+  }
+
+  @GetMapping(value = "/{uid}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getUser(@PathVariable UUID uid) {
+    try {
+      UserServiceModel user = userService.getUserByUid(uid);
+      return ResponseEntity.ok(successResponse(USER_FOUND, user));
+    } catch (UserNotFoundException userNotFoundException) {
+      ResponseWrapper wrapper = failureResponse(RestMessage.USER_NOT_FOUND);
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(wrapper);
+    }
+  }
+
+  @PostMapping(
+      value = "/batch-delete",
+      produces = MediaType.APPLICATION_JSON_VALUE,
+      consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> deleteUsers(
+      @Valid @RequestBody UserBatchDeleteRequest request, BindingResult bindingResult) {
+
+    if (bindingResult.hasErrors()) {
+      log.error("error! binding result has errors: {}", bindingResult);
+      ResponseWrapper wrapper =
+          failureResponse(
+              USERS_BATCH_DELETE_INVALID_INPUT, mapErrors(bindingResult.getFieldErrors()));
+      return ResponseEntity.badRequest().body(wrapper);
+    }
+
+    List<UserDeleteResultServiceModel> results = userService.deleteUsersByUid(request.getUids());
+    return ResponseEntity.ok(successResponse(USERS_BATCH_DELETED, results));
+  }
+
+  @DeleteMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> deleteUsersCreatedBefore(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime createdBefore) {
+    long deleted = userService.deleteUsersCreatedBefore(createdBefore);
+    log.info("Deleted {} users created before {}", deleted, createdBefore);
+    return ResponseEntity.ok(
+        successResponse(USERS_DELETED, Collections.singletonMap("deleted", deleted)));
   }
 
   @DeleteMapping(value = "/{uid}")
@@ -88,4 +372,9 @@ public class UserController implements BaseController {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).body(wrapper);
     }
   }
+
+  private static ResponseEntity.BodyBuilder tagged(String eTag) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+    return eTag == null ? builder : builder.eTag(eTag);
+  }
 }
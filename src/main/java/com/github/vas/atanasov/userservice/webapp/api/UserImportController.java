@@ -0,0 +1,64 @@
+package com.github.vas.atanasov.userservice.webapp.api;
+
+import com.github.vas.atanasov.userservice.service.models.UserImportJobServiceModel;
+import com.github.vas.atanasov.userservice.webapp.imports.UserImportFormat;
+import com.github.vas.atanasov.userservice.webapp.imports.UserImporter;
+import com.github.vas.atanasov.userservice.webapp.models.wrappers.ResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.github.vas.atanasov.userservice.webapp.enums.RestMessage.*;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(UserImportController.URL_USER_IMPORTS)
+public class UserImportController implements BaseController {
+  public static final String URL_USER_IMPORTS = UserController.URL_USER_BASE + "/imports";
+
+  private final UserImporter importer;
+
+  // The body is read as a stream and spooled to disk, it is never held in memory
+  @PostMapping(
+      produces = MediaType.APPLICATION_JSON_VALUE,
+      consumes = {UserImportFormat.CSV_VALUE, UserImportFormat.NDJSON_VALUE})
+  public ResponseEntity<?> importUsers(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body)
+      throws IOException {
+    Optional<UserImportFormat> format = UserImportFormat.of(contentType);
+    if (!format.isPresent()) {
+      return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+    }
+    UserImportJobServiceModel job = importer.submit(format.get(), body);
+    URI location =
+        ServletUriComponentsBuilder.fromCurrentContextPath()
+            .path(URL_USER_IMPORTS + "/" + job.getUid())
+            .buildAndExpand()
+            .toUri();
+    return ResponseEntity.accepted()
+        .location(location)
+        .body(successResponse(USER_IMPORT_ACCEPTED, job));
+  }
+
+  @GetMapping(value = "/{uid}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getImport(@PathVariable UUID uid) {
+    Optional<UserImportJobServiceModel> job = importer.getJob(uid);
+    if (!job.isPresent()) {
+      ResponseWrapper wrapper = failureResponse(USER_IMPORT_NOT_FOUND);
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(wrapper);
+    }
+    return ResponseEntity.ok(successResponse(USER_IMPORT_STATUS, job.get()));
+  }
+}
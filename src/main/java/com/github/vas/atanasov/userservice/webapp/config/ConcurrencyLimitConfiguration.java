@@ -0,0 +1,50 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.webapp.api.UserController;
+import com.github.vas.atanasov.userservice.webapp.limits.AdaptiveConcurrencyLimit;
+import com.github.vas.atanasov.userservice.webapp.limits.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Adaptive in-flight limits for the user endpoints, on unless {@code
+ * user-service.concurrency-limit.enabled=false}. Reads and writes each start at {@code
+ * initial-limit} and move between {@code min-limit} and {@code max-limit}.
+ */
+@Configuration
+@ConditionalOnProperty(
+    name = "user-service.concurrency-limit.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class ConcurrencyLimitConfiguration {
+  // After the metrics filter, so rejected requests are timed as well
+  static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+  @Bean
+  public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${user-service.concurrency-limit.initial-limit:20}") int initialLimit,
+      @Value("${user-service.concurrency-limit.min-limit:4}") int minLimit,
+      @Value("${user-service.concurrency-limit.max-limit:200}") int maxLimit,
+      @Value("${user-service.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+    ConcurrencyLimitFilter filter =
+        new ConcurrencyLimitFilter(
+            new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit),
+            new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit),
+            objectMapper,
+            meterRegistry,
+            retryAfterSeconds);
+    FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+        new FilterRegistrationBean<>(filter);
+    registration.addUrlPatterns(UserController.URL_USER_BASE, UserController.URL_USER_BASE + "/*");
+    registration.setOrder(FILTER_ORDER);
+    return registration;
+  }
+}
@@ -0,0 +1,44 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR and Smile converters for service-to-service callers, configured like the JSON mapper
+ * (modules, {@code spring.jackson.*}) apart from the encoding. Both formats write uids as 16 raw
+ * bytes, and creation times are written as numeric timestamp arrays instead of ISO strings.
+ *
+ * <p>Converter beans replace Spring MVC's default instances of the same type, JSON stays first and
+ * remains the default without an {@code Accept} header.
+ */
+@Configuration
+public class MessageConverterConfiguration {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory()));
+  }
+
+  private static ObjectMapper binaryMapper(
+      Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+    return builder
+        .factory(factory)
+        .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Runs controller methods on the MVC async executor instead of the container thread. Arguments,
+ * including the request body and its validation, are still resolved on the container thread. The
+ * invocation itself, and with it every service call and transaction, is handed over as a {@link
+ * Callable}, so the container thread returns to its pool while the handler blocks on the database.
+ * Request attributes and locale are bound on the executor thread by the {@code DispatcherServlet}.
+ *
+ * <p>Handlers that are asynchronous already, such as streaming exports, run unchanged.
+ */
+public class OffloadingRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+  private static final List<Class<?>> ASYNC_RETURN_TYPES =
+      Arrays.asList(
+          Callable.class,
+          WebAsyncTask.class,
+          DeferredResult.class,
+          ListenableFuture.class,
+          CompletionStage.class,
+          StreamingResponseBody.class,
+          ResponseBodyEmitter.class);
+
+  @Override
+  protected ServletInvocableHandlerMethod createInvocableHandlerMethod(
+      HandlerMethod handlerMethod) {
+    if (isAsync(handlerMethod.getReturnType())) {
+      return super.createInvocableHandlerMethod(handlerMethod);
+    }
+    return new OffloadedHandlerMethod(handlerMethod);
+  }
+
+  private static boolean isAsync(MethodParameter returnType) {
+    Class<?> type = returnType.getParameterType();
+    if (HttpEntity.class.isAssignableFrom(type)) {
+      type = ResolvableType.forMethodParameter(returnType).getGeneric().resolve(Object.class);
+    }
+    for (Class<?> asyncType : ASYNC_RETURN_TYPES) {
+      if (asyncType.isAssignableFrom(type)) return true;
+    }
+    return false;
+  }
+
+  private static final class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+
+    private OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+      super(handlerMethod);
+    }
+
+    @Override
+    public Object invokeForRequest(
+        NativeWebRequest request, ModelAndViewContainer mavContainer, Object... providedArgs)
+        throws Exception {
+      Object[] args = getMethodArgumentValues(request, mavContainer, providedArgs);
+      return (Callable<Object>) () -> doInvoke(args);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.webapp.api.UserController;
+import com.github.vas.atanasov.userservice.webapp.limits.RateLimitFilter;
+import com.github.vas.atanasov.userservice.webapp.limits.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Per client rate limits for the user endpoints, enabled with {@code
+ * user-service.rate-limit.enabled=true}. Each client may burst {@code burst} requests and is then
+ * held to {@code requests-per-second}. Buckets are kept for at most {@code max-clients} clients.
+ * Only the keys listed in {@code api-keys} identify a client, other requests are limited by address.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user-service.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfiguration {
+  // Before the concurrency limit, a client over its rate does not take an in-flight permit
+  static final int FILTER_ORDER = ConcurrencyLimitConfiguration.FILTER_ORDER - 5;
+
+  @Bean
+  public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${user-service.rate-limit.requests-per-second:50}") double requestsPerSecond,
+      @Value("${user-service.rate-limit.burst:100}") int burst,
+      @Value("${user-service.rate-limit.max-clients:100000}") int maxClients,
+      @Value("${user-service.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+      @Value("${user-service.rate-limit.api-keys:}") Set<String> apiKeys) {
+    RateLimitFilter filter =
+        new RateLimitFilter(
+            new TokenBucketRateLimiter(requestsPerSecond, burst, maxClients),
+            apiKeyHeader,
+            apiKeys,
+            objectMapper,
+            meterRegistry);
+    FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+    registration.addUrlPatterns(UserController.URL_USER_BASE, UserController.URL_USER_BASE + "/*");
+    registration.setOrder(FILTER_ORDER);
+    return registration;
+  }
+}
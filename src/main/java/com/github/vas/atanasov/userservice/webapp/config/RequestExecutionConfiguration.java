@@ -0,0 +1,54 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import com.github.vas.atanasov.userservice.utils.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in virtual thread execution, enabled with {@code user-service.request-execution.mode=VIRTUAL}
+ * on Java 21 or newer. Controller methods, and the transactions they open, run on a new virtual
+ * thread per request, as do streaming exports. The container threads only parse the request and
+ * write the response, so the number of requests in flight is bounded by the connection pool rather
+ * than the container's thread pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "user-service.request-execution.mode", havingValue = "VIRTUAL")
+public class RequestExecutionConfiguration implements WebMvcConfigurer {
+  private final ExecutorService executor;
+
+  public RequestExecutionConfiguration() {
+    this.executor = VirtualThreads.newExecutor("request-");
+    log.info("Running request handlers on virtual threads");
+  }
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+  }
+
+  @Bean
+  public WebMvcRegistrations offloadingMvcRegistrations() {
+    return new WebMvcRegistrations() {
+      @Override
+      public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+        return new OffloadingRequestMappingHandlerAdapter();
+      }
+    };
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
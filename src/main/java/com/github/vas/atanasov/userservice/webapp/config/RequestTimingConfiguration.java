@@ -0,0 +1,80 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.webapp.api.UserController;
+import com.github.vas.atanasov.userservice.webapp.timing.AccessLog;
+import com.github.vas.atanasov.userservice.webapp.timing.ControllerTimingInterceptor;
+import com.github.vas.atanasov.userservice.webapp.timing.RequestTimingFilter;
+import com.github.vas.atanasov.userservice.webapp.timing.RequestTimingInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Collections;
+
+/**
+ * Per request phase timings of the user endpoints: bind, service, db, mapping and serialization.
+ * They are sent in a {@code Server-Timing} header unless {@code
+ * user-service.server-timing.enabled=false}, and written to a sampled access log with {@code
+ * user-service.access-log.enabled=true}.
+ */
+@Configuration
+public class RequestTimingConfiguration implements WebMvcConfigurer {
+  // Before the rate and concurrency limits, so rejected requests are logged as well
+  static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 2;
+
+  private final RequestTimingInterceptor interceptor = new RequestTimingInterceptor();
+
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  public static Advisor controllerTimingAdvisor() {
+    DefaultPointcutAdvisor advisor =
+        new DefaultPointcutAdvisor(
+            new AnnotationMatchingPointcut(RestController.class, RequestMapping.class, true),
+            new ControllerTimingInterceptor());
+    advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return advisor;
+  }
+
+  @Bean
+  public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(
+      ObjectMapper objectMapper,
+      @Value("${user-service.server-timing.enabled:true}") boolean serverTiming,
+      @Value("${user-service.access-log.enabled:false}") boolean accessLogEnabled,
+      @Value("${user-service.access-log.sample-rate:0.01}") double sampleRate,
+      @Value("${user-service.access-log.slow-threshold-ms:500}") long slowThresholdMs) {
+    AccessLog accessLog =
+        accessLogEnabled ? new AccessLog(objectMapper, sampleRate, slowThresholdMs) : null;
+    RequestTimingFilter filter =
+        new RequestTimingFilter(
+            serverTiming,
+            accessLog,
+            Collections.singleton(UserController.URL_USER_BASE + "/export"));
+    FilterRegistrationBean<RequestTimingFilter> registration = new FilterRegistrationBean<>(filter);
+    registration.addUrlPatterns(UserController.URL_USER_BASE, UserController.URL_USER_BASE + "/*");
+    registration.setOrder(FILTER_ORDER);
+    return registration;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(interceptor);
+  }
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.registerCallableInterceptors(interceptor);
+  }
+}
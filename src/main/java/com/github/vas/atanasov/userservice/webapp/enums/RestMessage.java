@@ -3,7 +3,27 @@ package com.github.vas.atanasov.userservice.webapp.enums;
 public enum RestMessage {
   USER_ALREADY_EXISTS,
   USER_CREATED,
+  USER_CREATE_ACCEPTED,
+  USER_CREATE_STATUS,
+  USER_CREATE_BUFFER_FULL,
+  USER_FOUND,
+  USERS_FOUND,
+  INVALID_SEARCH_QUERY,
   USER_CREATION_INVALID_INPUT,
+  IDEMPOTENCY_KEY_INVALID,
+  IDEMPOTENCY_KEY_REUSED,
+  IDEMPOTENT_REQUEST_IN_PROGRESS,
+  USERS_BATCH_PROCESSED,
+  USERS_BATCH_INVALID_INPUT,
   USER_NOT_FOUND,
+  USERS_BATCH_DELETED,
+  USERS_BATCH_DELETE_INVALID_INPUT,
+  USERS_DELETED,
+  INVALID_CURSOR,
+  USER_IMPORT_ACCEPTED,
+  USER_IMPORT_STATUS,
+  USER_IMPORT_NOT_FOUND,
+  SERVICE_OVERLOADED,
+  RATE_LIMIT_EXCEEDED,
   SOMETHING_WENT_WRONG
 }
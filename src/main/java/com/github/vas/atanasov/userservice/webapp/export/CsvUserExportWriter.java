@@ -0,0 +1,57 @@
+package com.github.vas.atanasov.userservice.webapp.export;
+
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+class CsvUserExportWriter implements UserExportWriter {
+  static final String HEADER = "uid,username,firstName,lastName,createdDateTime";
+
+  private final Writer writer;
+
+  CsvUserExportWriter(OutputStream out) throws IOException {
+    this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    this.writer.write(HEADER);
+    this.writer.write("\r\n");
+  }
+
+  @Override
+  public void write(UserServiceModel user) throws IOException {
+    writer.write(String.valueOf(user.getUid()));
+    writer.write(',');
+    writeField(user.getUsername());
+    writer.write(',');
+    writeField(user.getFirstName());
+    writer.write(',');
+    writeField(user.getLastName());
+    writer.write(',');
+    if (user.getCreatedDateTime() != null) {
+      DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(user.getCreatedDateTime(), writer);
+    }
+    writer.write("\r\n");
+  }
+
+  // RFC 4180: fields containing separators, quotes or line breaks are quoted, quotes are doubled
+  private void writeField(String value) throws IOException {
+    if (value == null) return;
+    boolean quote = false;
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+    }
+    if (!quote) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writer.flush();
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.vas.atanasov.userservice.webapp.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+class NdjsonUserExportWriter implements UserExportWriter {
+  private final JsonGenerator generator;
+
+  NdjsonUserExportWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+    this.generator = objectMapper.getFactory().createGenerator(out);
+    this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.generator.setRootValueSeparator(null);
+  }
+
+  @Override
+  public void write(UserServiceModel user) throws IOException {
+    generator.writeObject(user);
+    generator.writeRaw('\n');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    generator.flush();
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.vas.atanasov.userservice.webapp.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+@Getter
+public enum UserExportFormat {
+  NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson") {
+    @Override
+    public UserExportWriter createWriter(OutputStream out, ObjectMapper objectMapper)
+        throws IOException {
+      return new NdjsonUserExportWriter(out, objectMapper);
+    }
+  },
+  CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv") {
+    @Override
+    public UserExportWriter createWriter(OutputStream out, ObjectMapper objectMapper)
+        throws IOException {
+      return new CsvUserExportWriter(out);
+    }
+  };
+
+  private final MediaType mediaType;
+  private final String extension;
+
+  UserExportFormat(MediaType mediaType, String extension) {
+    this.mediaType = mediaType;
+    this.extension = extension;
+  }
+
+  public abstract UserExportWriter createWriter(OutputStream out, ObjectMapper objectMapper)
+      throws IOException;
+}
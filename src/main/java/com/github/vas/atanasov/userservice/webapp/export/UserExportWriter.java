@@ -0,0 +1,26 @@
+package com.github.vas.atanasov.userservice.webapp.export;
+
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes users to the response as they are read from the database. Nothing is kept after a user is
+ * written, apart from what sits in the output buffer.
+ */
+public interface UserExportWriter extends Consumer<UserServiceModel>, Flushable {
+
+  void write(UserServiceModel user) throws IOException;
+
+  @Override
+  default void accept(UserServiceModel user) {
+    try {
+      write(user);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
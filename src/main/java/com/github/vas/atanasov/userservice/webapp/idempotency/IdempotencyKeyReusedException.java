@@ -0,0 +1,3 @@
+package com.github.vas.atanasov.userservice.webapp.idempotency;
+
+public class IdempotencyKeyReusedException extends RuntimeException {}
@@ -0,0 +1,177 @@
+package com.github.vas.atanasov.userservice.webapp.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Responses by {@code Idempotency-Key}, so a retried request gets the response of its first
+ * execution instead of running again. Executions in flight are kept in a concurrent map that never
+ * evicts, so requests with different keys never wait for each other and a running key cannot be
+ * executed twice. Completed responses are split into segments by the hash of the key, each with its
+ * own lock and share of the maximum size. A segment keeps its responses in insertion order, drops
+ * the oldest once it is over its share and forgets every response after a fixed time.
+ *
+ * <p>A request whose key is still executing waits for that execution. If it fails, the key is
+ * released and one of the waiting requests executes instead.
+ */
+@Component
+public class IdempotencyStore {
+  public static final String HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+  public static final int MAX_KEY_LENGTH = 255;
+  private static final int SEGMENTS = 16;
+
+  private final ConcurrentMap<String, Execution> inFlight = new ConcurrentHashMap<>();
+  private final Segment[] completed = new Segment[SEGMENTS];
+  private final long waitTimeoutMillis;
+  private final Counter replays;
+
+  public IdempotencyStore(
+      MeterRegistry meterRegistry,
+      @Value("${user-service.idempotency.maximum-size:10000}") long maximumSize,
+      @Value("${user-service.idempotency.ttl-ms:86400000}") long ttlMillis,
+      @Value("${user-service.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+    long segmentSize = Math.max(1, (maximumSize + SEGMENTS - 1) / SEGMENTS);
+    long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    for (int i = 0; i < SEGMENTS; i++) {
+      completed[i] = new Segment(segmentSize, ttlNanos);
+    }
+    this.waitTimeoutMillis = waitTimeoutMillis;
+    this.replays =
+        Counter.builder("users.idempotency.replays")
+            .description("Requests answered with the stored response of an earlier execution")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Returns the stored response for {@code key}, or runs {@code action} and stores its response.
+   * Replayed responses carry the {@value #REPLAYED_HEADER} header.
+   *
+   * @param request compared with the request the key was first used with
+   * @throws IdempotencyKeyReusedException if the key was used with a different request
+   * @throws IdempotentRequestInProgressException if the first execution did not finish in time
+   */
+  public ResponseEntity<?> execute(String key, Object request, Supplier<ResponseEntity<?>> action)
+      throws IdempotencyKeyReusedException, IdempotentRequestInProgressException {
+    while (true) {
+      Execution existing = getCompleted(key);
+      if (existing == null) {
+        Execution execution = new Execution(request);
+        existing = inFlight.putIfAbsent(key, execution);
+        if (existing == null) {
+          // The previous execution of the key may have completed after the lookup above
+          existing = getCompleted(key);
+          if (existing == null) return run(key, execution, action);
+          inFlight.remove(key, execution);
+          execution.response.complete(null);
+        }
+      }
+      if (!existing.request.equals(request)) throw new IdempotencyKeyReusedException();
+
+      ResponseEntity<?> response = await(existing);
+      if (response != null) {
+        replays.increment();
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .header(REPLAYED_HEADER, "true")
+            .body(response.getBody());
+      }
+    }
+  }
+
+  private ResponseEntity<?> run(
+      String key, Execution execution, Supplier<ResponseEntity<?>> action) {
+    ResponseEntity<?> response;
+    try {
+      response = action.get();
+    } catch (RuntimeException | Error e) {
+      inFlight.remove(key, execution);
+      execution.response.complete(null);
+      throw e;
+    }
+    execution.response.complete(response);
+    segmentOf(key).put(key, execution, System.nanoTime());
+    inFlight.remove(key, execution);
+    return response;
+  }
+
+  private Execution getCompleted(String key) {
+    return segmentOf(key).get(key, System.nanoTime());
+  }
+
+  private Segment segmentOf(String key) {
+    int hash = key.hashCode();
+    return completed[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  // Null if the execution failed and the key was released
+  private ResponseEntity<?> await(Execution execution) {
+    try {
+      return execution.response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new IdempotentRequestInProgressException();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IdempotentRequestInProgressException();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static final class Segment {
+    private final LinkedHashMap<String, Execution> executions = new LinkedHashMap<>();
+    private final long maximumSize;
+    private final long ttlNanos;
+
+    private Segment(long maximumSize, long ttlNanos) {
+      this.maximumSize = maximumSize;
+      this.ttlNanos = ttlNanos;
+    }
+
+    private synchronized Execution get(String key, long now) {
+      Execution execution = executions.get(key);
+      return execution == null || isExpired(execution, now) ? null : execution;
+    }
+
+    // Entries are in insertion order with the same ttl, so the expired ones are at the head
+    private synchronized void put(String key, Execution execution, long now) {
+      execution.completedNanos = now;
+      executions.remove(key);
+      executions.put(key, execution);
+      Iterator<Map.Entry<String, Execution>> oldest = executions.entrySet().iterator();
+      while (oldest.hasNext()) {
+        Execution next = oldest.next().getValue();
+        if (executions.size() <= maximumSize && !isExpired(next, now)) break;
+        oldest.remove();
+      }
+    }
+
+    private boolean isExpired(Execution execution, long now) {
+      return now - execution.completedNanos >= ttlNanos;
+    }
+  }
+
+  private static final class Execution {
+    private final Object request;
+    private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+    private long completedNanos;
+
+    private Execution(Object request) {
+      this.request = request;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * RFC 4180 records, quoted fields may hold separators, quotes and line breaks. The header names the
+ * columns in any order: {@code username} and {@code firstName} are required, {@code lastName},
+ * {@code uid} and {@code createdDateTime} optional and others ignored, so an export can be imported
+ * as it is. Empty fields are missing values and blank lines are skipped. Rows are numbered from the
+ * first record after the header.
+ */
+class CsvUserImportReader implements UserImportReader {
+  // Far above any valid value, only bounds the memory a malformed field can take
+  static final int MAX_FIELD_LENGTH = 1024;
+
+  private final Reader reader;
+  private final StringBuilder field = new StringBuilder();
+  private final int username;
+  private final int firstName;
+  private final int lastName;
+  private final int uid;
+  private final int createdDateTime;
+  private long rows;
+
+  CsvUserImportReader(InputStream in) throws IOException {
+    this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    List<String> header = readRecord();
+    if (header == null) throw new IOException("The upload is empty, a CSV header is required");
+    header.set(0, header.get(0).replace("\uFEFF", ""));
+    this.username = column(header, "username");
+    this.firstName = column(header, "firstName");
+    this.lastName = column(header, "lastName");
+    this.uid = column(header, "uid");
+    this.createdDateTime = column(header, "createdDateTime");
+    if (username < 0 || firstName < 0) {
+      throw new IOException("The CSV header must name the username and firstName columns");
+    }
+  }
+
+  @Override
+  public UserImportRow next() throws IOException {
+    List<String> record;
+    do {
+      record = readRecord();
+      if (record == null) return null;
+    } while (record.size() == 1 && record.get(0).isEmpty());
+    long number = ++rows;
+
+    UserCreateRequest request = new UserCreateRequest();
+    request.setUsername(value(record, username));
+    request.setFirstName(value(record, firstName));
+    request.setLastName(value(record, lastName));
+    String uidValue = value(record, uid);
+    String createdValue = value(record, createdDateTime);
+    try {
+      return UserImportRow.of(
+          number,
+          request,
+          uidValue == null ? null : UUID.fromString(uidValue),
+          createdValue == null ? null : LocalDateTime.parse(createdValue));
+    } catch (IllegalArgumentException e) {
+      return UserImportRow.invalid(number, request.getUsername(), "uid is not a valid UUID");
+    } catch (DateTimeParseException e) {
+      return UserImportRow.invalid(
+          number, request.getUsername(), "createdDateTime is not an ISO local date-time");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  // Fields of the next record, null at the end of the input
+  private List<String> readRecord() throws IOException {
+    int c = reader.read();
+    if (c == -1) return null;
+    List<String> fields = new ArrayList<>();
+    field.setLength(0);
+    boolean quoted = false;
+    while (true) {
+      if (quoted) {
+        if (c == -1) throw new IOException("Unterminated quoted field in row " + (rows + 1));
+        if (c == '"') {
+          c = reader.read();
+          if (c != '"') {
+            quoted = false;
+            continue;
+          }
+        }
+        append(c);
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\r' || c == '\n' || c == -1) {
+        if (c == '\r') {
+          reader.mark(1);
+          if (reader.read() != '\n') reader.reset();
+        }
+        fields.add(field.toString());
+        return fields;
+      } else {
+        append(c);
+      }
+      c = reader.read();
+    }
+  }
+
+  private void append(int c) throws IOException {
+    if (field.length() == MAX_FIELD_LENGTH) {
+      throw new IOException("Field longer than " + MAX_FIELD_LENGTH + " in row " + (rows + 1));
+    }
+    field.append((char) c);
+  }
+
+  private static int column(List<String> header, String name) {
+    for (int i = 0; i < header.size(); i++) {
+      if (header.get(i).trim().toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String value(List<String> record, int column) {
+    if (column < 0 || column >= record.size()) return null;
+    String value = record.get(column);
+    return value.isEmpty() ? null : value;
+  }
+}
@@ -0,0 +1,108 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One JSON object per line with the fields of a create request, optionally {@code uid} and {@code
+ * createdDateTime} as written by the export. A line that is not valid JSON only rejects its row.
+ * Blank lines are skipped, rows are numbered by the remaining lines.
+ */
+class NdjsonUserImportReader implements UserImportReader {
+  // Far above any valid user, only bounds the memory a malformed line can take
+  static final int MAX_LINE_LENGTH = 4096;
+
+  private final Reader reader;
+  private final ObjectMapper objectMapper;
+  private final StringBuilder line = new StringBuilder();
+  private boolean truncated;
+  private long rows;
+
+  NdjsonUserImportReader(InputStream in, ObjectMapper objectMapper) {
+    this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public UserImportRow next() throws IOException {
+    do {
+      if (!readLine()) return null;
+    } while (!truncated && line.toString().trim().isEmpty());
+    long number = ++rows;
+    if (truncated) {
+      return UserImportRow.invalid(number, null, "Line longer than " + MAX_LINE_LENGTH);
+    }
+
+    JsonNode node;
+    try {
+      node = objectMapper.readTree(line.toString());
+    } catch (JsonProcessingException e) {
+      return UserImportRow.invalid(number, null, "Not valid JSON");
+    }
+    if (!node.isObject()) return UserImportRow.invalid(number, null, "Not a JSON object");
+
+    UserCreateRequest request = new UserCreateRequest();
+    request.setUsername(text(node, "username"));
+    request.setFirstName(text(node, "firstName"));
+    request.setLastName(text(node, "lastName"));
+    UUID uid;
+    LocalDateTime createdDateTime;
+    try {
+      uid = value(node, "uid", UUID.class);
+    } catch (JsonProcessingException e) {
+      return UserImportRow.invalid(number, request.getUsername(), "uid is not a valid UUID");
+    }
+    try {
+      createdDateTime = value(node, "createdDateTime", LocalDateTime.class);
+    } catch (JsonProcessingException e) {
+      return UserImportRow.invalid(
+          number, request.getUsername(), "createdDateTime is not an ISO local date-time");
+    }
+    return UserImportRow.of(number, request, uid, createdDateTime);
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  // Reads the next line into the buffer, the rest of a line past the maximum length is dropped.
+  // False at the end of the input.
+  private boolean readLine() throws IOException {
+    line.setLength(0);
+    truncated = false;
+    int c = reader.read();
+    if (c == -1) return false;
+    for (; c != -1 && c != '\n'; c = reader.read()) {
+      if (line.length() < MAX_LINE_LENGTH) {
+        line.append((char) c);
+      } else {
+        truncated = true;
+      }
+    }
+    return true;
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+
+  private <T> T value(JsonNode node, String field, Class<T> type)
+      throws JsonProcessingException {
+    JsonNode value = node.get(field);
+    if (value == null || value.isNull()) return null;
+    return objectMapper.treeToValue(value, type);
+  }
+}
@@ -0,0 +1,52 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+@Getter
+public enum UserImportFormat {
+  NDJSON(new MediaType("application", "x-ndjson"), "ndjson") {
+    @Override
+    public UserImportReader createReader(InputStream in, ObjectMapper objectMapper) {
+      return new NdjsonUserImportReader(in, objectMapper);
+    }
+  },
+  CSV(new MediaType("text", "csv"), "csv") {
+    @Override
+    public UserImportReader createReader(InputStream in, ObjectMapper objectMapper)
+        throws IOException {
+      return new CsvUserImportReader(in);
+    }
+  };
+
+  public static final String NDJSON_VALUE = "application/x-ndjson";
+  public static final String CSV_VALUE = "text/csv";
+
+  private final MediaType mediaType;
+  private final String extension;
+
+  UserImportFormat(MediaType mediaType, String extension) {
+    this.mediaType = mediaType;
+    this.extension = extension;
+  }
+
+  public abstract UserImportReader createReader(InputStream in, ObjectMapper objectMapper)
+      throws IOException;
+
+  public static Optional<UserImportFormat> of(MediaType contentType) {
+    for (UserImportFormat format : values()) {
+      if (format.mediaType.isCompatibleWith(contentType)) return Optional.of(format);
+    }
+    return Optional.empty();
+  }
+
+  /** @return the format of a file by its extension, CSV when it has neither */
+  public static UserImportFormat ofFilename(String filename) {
+    return filename != null && filename.endsWith("." + NDJSON.extension) ? NDJSON : CSV;
+  }
+}
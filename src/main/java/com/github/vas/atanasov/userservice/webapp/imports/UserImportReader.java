@@ -0,0 +1,14 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the rows of an upload one at a time, only the current row is held in memory. A row that
+ * cannot be parsed is returned with an error, a stream that cannot be read any further throws.
+ */
+public interface UserImportReader extends Closeable {
+
+  /** @return the next row, {@code null} at the end of the upload */
+  UserImportRow next() throws IOException;
+}
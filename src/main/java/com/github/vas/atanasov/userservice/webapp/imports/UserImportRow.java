@@ -0,0 +1,45 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** A parsed row of an import, the user to create or why the row could not be read. */
+@Getter
+public class UserImportRow {
+  private final long number;
+  private final UserCreateRequest request;
+  private final UUID uid;
+  private final LocalDateTime createdDateTime;
+  private final String error;
+
+  private UserImportRow(
+      long number,
+      UserCreateRequest request,
+      UUID uid,
+      LocalDateTime createdDateTime,
+      String error) {
+    this.number = number;
+    this.request = request;
+    this.uid = uid;
+    this.createdDateTime = createdDateTime;
+    this.error = error;
+  }
+
+  static UserImportRow of(
+      long number, UserCreateRequest request, UUID uid, LocalDateTime createdDateTime) {
+    return new UserImportRow(number, request, uid, createdDateTime, null);
+  }
+
+  static UserImportRow invalid(long number, String username, String error) {
+    UserCreateRequest request = new UserCreateRequest();
+    request.setUsername(username);
+    return new UserImportRow(number, request, null, null, error);
+  }
+
+  public boolean isValid() {
+    return error == null;
+  }
+}
@@ -0,0 +1,209 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.service.imports.UserImportJobs;
+import com.github.vas.atanasov.userservice.service.models.UserImportJobServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserImportRejectionServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import com.github.vas.atanasov.userservice.utils.DaemonThreads;
+import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import com.github.vas.atanasov.userservice.utils.TimeOrderedUuids;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.annotation.PreDestroy;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs bulk imports in the background, one at a time. An upload is spooled to {@code directory}
+ * before it is accepted, then read back row by row and committed {@code chunk-size} rows at a time,
+ * so memory holds one chunk whatever the size of the file. The job keeps the number of committed
+ * rows: after a crash or shutdown the import is continued on startup, skipping the rows already
+ * read.
+ *
+ * <p>An empty table is seeded from the {@code seed} resource the same way.
+ */
+@Slf4j
+@Component
+public class UserImporter {
+  private final UserImportJobs jobs;
+  private final UserService userService;
+  private final SpringValidatorAdapter validator;
+  private final ObjectMapper objectMapper;
+  private final ResourceLoader resourceLoader;
+  private final Path directory;
+  private final int chunkSize;
+  private final String seed;
+  private final ExecutorService runner;
+
+  private volatile boolean closed;
+
+  public UserImporter(
+      UserImportJobs jobs,
+      UserService userService,
+      Validator validator,
+      ObjectMapper objectMapper,
+      ResourceLoader resourceLoader,
+      @Value("${user-service.import.directory:${java.io.tmpdir}/user-imports}") String directory,
+      @Value("${user-service.import.chunk-size:1000}") int chunkSize,
+      @Value("${user-service.import.seed:}") String seed) {
+    this.jobs = jobs;
+    this.userService = userService;
+    this.validator = new SpringValidatorAdapter(validator);
+    this.objectMapper = objectMapper;
+    this.resourceLoader = resourceLoader;
+    this.directory = Paths.get(directory);
+    this.chunkSize = chunkSize;
+    this.seed = seed;
+    this.runner = Executors.newSingleThreadExecutor(DaemonThreads.factory("user-import-runner-"));
+  }
+
+  /** Stores the upload and queues its import. */
+  public UserImportJobServiceModel submit(UserImportFormat format, InputStream upload)
+      throws IOException {
+    UUID uid = TimeOrderedUuids.next();
+    Path file = file(uid, format);
+    Path part = file.resolveSibling(file.getFileName() + ".part");
+    Files.createDirectories(directory);
+    try {
+      Files.copy(upload, part);
+      Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(part);
+    }
+    UserImportJobServiceModel job;
+    try {
+      job = jobs.create(uid, format.name());
+    } catch (RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    log.info("Accepted import {} of {} bytes as {}", uid, Files.size(file), format);
+    runner.execute(() -> run(uid, format));
+    return job;
+  }
+
+  public Optional<UserImportJobServiceModel> getJob(UUID uid) {
+    return jobs.get(uid);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    for (UserImportJobServiceModel job : jobs.getUnfinished()) {
+      UserImportFormat format = UserImportFormat.valueOf(job.getFormat());
+      if (Files.exists(file(job.getUid(), format))) {
+        log.info("Continuing import {} after row {}", job.getUid(), job.getRowsRead());
+        runner.execute(() -> run(job.getUid(), format));
+      } else {
+        jobs.fail(job.getUid(), "The upload is no longer available");
+      }
+    }
+    if (!seed.isEmpty() && userService.getUsersSlice(null, 1).getContent().isEmpty()) {
+      Resource resource = resourceLoader.getResource(seed);
+      try (InputStream in = resource.getInputStream()) {
+        UserImportFormat format = UserImportFormat.ofFilename(resource.getFilename());
+        log.info("Seeding users from {}, import {}", seed, submit(format, in).getUid());
+      } catch (IOException e) {
+        log.error("Seeding users from {} failed", seed, e);
+      }
+    }
+  }
+
+  // Reads the upload from the row after the last committed one, the file is removed once the job
+  // has finished. Shutting down stops after the current chunk, leaving the job to be continued.
+  void run(UUID uid, UserImportFormat format) {
+    Path file = file(uid, format);
+    try (UserImportReader reader = format.createReader(Files.newInputStream(file), objectMapper)) {
+      long committed = jobs.start(uid).getRowsRead();
+      for (long i = 0; i < committed; i++) {
+        if (reader.next() == null) break;
+      }
+      List<UserImportRow> chunk = new ArrayList<>(chunkSize);
+      for (UserImportRow row = reader.next(); row != null; row = reader.next()) {
+        chunk.add(row);
+        if (chunk.size() < chunkSize) continue;
+        commit(uid, chunk);
+        chunk.clear();
+        if (closed) {
+          log.info("Import {} stopped by shutdown, continued on the next start", uid);
+          return;
+        }
+      }
+      if (!chunk.isEmpty()) commit(uid, chunk);
+      jobs.complete(uid);
+      log.info("Import {} completed", uid);
+    } catch (IOException | RuntimeException e) {
+      log.error("Import {} failed", uid, e);
+      jobs.fail(uid, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("Could not remove the upload of import {}", uid, e);
+    }
+  }
+
+  private void commit(UUID uid, List<UserImportRow> chunk) {
+    List<UserServiceModel> users = new ArrayList<>(chunk.size());
+    List<Long> userRows = new ArrayList<>(chunk.size());
+    List<UserImportRejectionServiceModel> rejections = new ArrayList<>();
+    for (UserImportRow row : chunk) {
+      String username = row.getRequest().getUsername();
+      if (!row.isValid()) {
+        rejections.add(
+            new UserImportRejectionServiceModel(row.getNumber(), username, row.getError()));
+        continue;
+      }
+      Errors errors = new BeanPropertyBindingResult(row.getRequest(), "row");
+      validator.validate(row.getRequest(), errors);
+      if (errors.hasErrors()) {
+        String reason =
+            errors.getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+        rejections.add(new UserImportRejectionServiceModel(row.getNumber(), username, reason));
+        continue;
+      }
+      UserServiceModel user = MappingUtils.map(row.getRequest(), UserServiceModel.class);
+      user.setUid(row.getUid());
+      user.setCreatedDateTime(row.getCreatedDateTime());
+      users.add(user);
+      userRows.add(row.getNumber());
+    }
+    jobs.commitChunk(uid, chunk.size(), users, userRows, rejections);
+  }
+
+  private Path file(UUID uid, UserImportFormat format) {
+    return directory.resolve(uid + "." + format.getExtension());
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    closed = true;
+    runner.shutdown();
+    runner.awaitTermination(30, TimeUnit.SECONDS);
+  }
+}
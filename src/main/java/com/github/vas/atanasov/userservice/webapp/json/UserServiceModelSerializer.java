@@ -0,0 +1,86 @@
+package com.github.vas.atanasov.userservice.webapp.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Writes {@link UserServiceModel} field by field with pre-encoded names, instead of the bean
+ * serializer's reflective property access. The output is the same as the bean serializer's; the
+ * uid and creation time serializers are resolved once per mapper, so they follow its configuration.
+ */
+@JsonComponent
+public class UserServiceModelSerializer extends StdSerializer<UserServiceModel>
+    implements ContextualSerializer {
+  private static final SerializedString UID = new SerializedString("uid");
+  private static final SerializedString USERNAME = new SerializedString("username");
+  private static final SerializedString FIRST_NAME = new SerializedString("firstName");
+  private static final SerializedString LAST_NAME = new SerializedString("lastName");
+  private static final SerializedString CREATED_DATE_TIME =
+      new SerializedString("createdDateTime");
+
+  private final JsonSerializer<Object> uidSerializer;
+  private final JsonSerializer<Object> dateTimeSerializer;
+
+  public UserServiceModelSerializer() {
+    this(null, null);
+  }
+
+  private UserServiceModelSerializer(
+      JsonSerializer<Object> uidSerializer, JsonSerializer<Object> dateTimeSerializer) {
+    super(UserServiceModel.class);
+    this.uidSerializer = uidSerializer;
+    this.dateTimeSerializer = dateTimeSerializer;
+  }
+
+  @Override
+  public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+      throws JsonMappingException {
+    return new UserServiceModelSerializer(
+        provider.findValueSerializer(UUID.class, property),
+        provider.findValueSerializer(LocalDateTime.class, property));
+  }
+
+  @Override
+  public void serialize(UserServiceModel user, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    generator.writeStartObject(user);
+    generator.writeFieldName(UID);
+    writeValue(user.getUid(), uidSerializer, generator, provider);
+    generator.writeFieldName(USERNAME);
+    generator.writeString(user.getUsername());
+    generator.writeFieldName(FIRST_NAME);
+    generator.writeString(user.getFirstName());
+    generator.writeFieldName(LAST_NAME);
+    generator.writeString(user.getLastName());
+    generator.writeFieldName(CREATED_DATE_TIME);
+    writeValue(user.getCreatedDateTime(), dateTimeSerializer, generator, provider);
+    generator.writeEndObject();
+  }
+
+  private static void writeValue(
+      Object value,
+      JsonSerializer<Object> serializer,
+      JsonGenerator generator,
+      SerializerProvider provider)
+      throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (serializer == null) {
+      provider.defaultSerializeValue(value, generator);
+    } else {
+      serializer.serialize(value, generator, provider);
+    }
+  }
+}
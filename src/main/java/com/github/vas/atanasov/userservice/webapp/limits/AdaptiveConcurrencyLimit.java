@@ -0,0 +1,98 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on requests in flight that follows their latency, after the gradient limit of Netflix's
+ * concurrency-limits. Every {@link #WINDOW_SAMPLES} completed requests the average round trip time
+ * of the window is compared with a long term average: while they match the limit grows by about
+ * its square root, when requests start to wait on the database the recent time rises above the
+ * long term one and the limit shrinks in proportion. Each update moves the limit a fifth of the
+ * way to its new value, a single slow window does not halve it.
+ *
+ * <p>Taking and returning a permit is lock free, only the window update at the end of a request
+ * synchronizes.
+ */
+public class AdaptiveConcurrencyLimit {
+  static final int WINDOW_SAMPLES = 10;
+  // Recent latency may be this much above the long term average before the limit shrinks
+  private static final double TOLERANCE = 1.5;
+  private static final double SMOOTHING = 0.2;
+  // Windows in the long term average
+  private static final int LONG_WINDOWS = 600;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile int limit;
+
+  private double estimatedLimit;
+  private double longRtt;
+  private long windowRtt;
+  private int windowSamples;
+  private int windowMaxInFlight;
+
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Limits must satisfy 1 <= min <= initial <= max, got %d, %d, %d",
+              minLimit, initialLimit, maxLimit));
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = initialLimit;
+    this.estimatedLimit = initialLimit;
+  }
+
+  /** @return true if the request may proceed, it then has to {@link #release(long)} the permit */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit) return false;
+      if (inFlight.compareAndSet(current, current + 1)) return true;
+    }
+  }
+
+  /** Returns a permit, with the time the request took. */
+  public void release(long rttNanos) {
+    sample(rttNanos, inFlight.getAndDecrement());
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  synchronized void sample(long rttNanos, int requestsInFlight) {
+    windowRtt += rttNanos;
+    windowMaxInFlight = Math.max(windowMaxInFlight, requestsInFlight);
+    if (++windowSamples < WINDOW_SAMPLES) return;
+    double shortRtt = Math.max(1.0, (double) windowRtt / windowSamples);
+    int maxInFlight = windowMaxInFlight;
+    windowRtt = 0;
+    windowSamples = 0;
+    windowMaxInFlight = 0;
+
+    if (longRtt == 0) {
+      longRtt = shortRtt;
+    } else {
+      longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOWS + 1);
+    }
+    // After a long slow stretch the average would keep the limit low for as long once latency
+    // recovers, let it catch up faster
+    if (longRtt / shortRtt > 2) longRtt *= 0.95;
+    // A limit that is not used says nothing about the capacity, growing it would only allow a
+    // larger burst later
+    if (maxInFlight < estimatedLimit / 2) return;
+
+    double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+    double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+    next = estimatedLimit * (1 - SMOOTHING) + next * SMOOTHING;
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+    limit = (int) estimatedLimit;
+  }
+}
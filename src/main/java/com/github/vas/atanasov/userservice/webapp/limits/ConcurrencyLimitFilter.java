@@ -0,0 +1,168 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.webapp.api.UserController;
+import com.github.vas.atanasov.userservice.webapp.api.UserImportController;
+import com.github.vas.atanasov.userservice.webapp.enums.RestMessage;
+import com.github.vas.atanasov.userservice.webapp.enums.RestStatus;
+import com.github.vas.atanasov.userservice.webapp.models.wrappers.ResponseWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds load on the user endpoints once the requests in flight reach an {@link
+ * AdaptiveConcurrencyLimit}. Excess requests are answered with 503 and {@code Retry-After} right
+ * away instead of waiting for a container thread and a connection, so the ones admitted still
+ * finish in time. Reads and writes have separate limits, slow writes do not hold back reads.
+ *
+ * <p>Exports and imports are not limited, they take as long as the client needs to transfer the
+ * body and would only skew the measured latency.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+  private static final String EXPORT_PATH = UserController.URL_USER_BASE + "/export";
+
+  private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+  private final Limit reads;
+  private final Limit writes;
+  private final ObjectMapper objectMapper;
+  private final String retryAfterSeconds;
+
+  public ConcurrencyLimitFilter(
+      AdaptiveConcurrencyLimit reads,
+      AdaptiveConcurrencyLimit writes,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      long retryAfterSeconds) {
+    this.reads = new Limit("read", reads, meterRegistry);
+    this.writes = new Limit("write", writes, meterRegistry);
+    this.objectMapper = objectMapper;
+    this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    Limit limit = limitOf(request);
+    if (limit == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    if (!limit.concurrency.tryAcquire()) {
+      limit.rejected.increment();
+      log.warn(
+          "Rejected {} {}, {} limit of {} reached",
+          request.getMethod(),
+          request.getRequestURI(),
+          limit.name,
+          limit.concurrency.getLimit());
+      reject(response);
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean released = false;
+    try {
+      filterChain.doFilter(request, response);
+      if (request.isAsyncStarted()) {
+        // Handlers offloaded to another thread are still running, release when they complete
+        request.getAsyncContext().addListener(new ReleasingListener(limit.concurrency, start));
+        released = true;
+      }
+    } finally {
+      if (!released) limit.concurrency.release(System.nanoTime() - start);
+    }
+  }
+
+  private Limit limitOf(HttpServletRequest request) {
+    String path = urlPathHelper.getPathWithinApplication(request);
+    if (path.startsWith(EXPORT_PATH) || path.startsWith(UserImportController.URL_USER_IMPORTS)) {
+      return null;
+    }
+    HttpMethod method = HttpMethod.resolve(request.getMethod());
+    if (method == null || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE) return null;
+    return method == HttpMethod.GET || method == HttpMethod.HEAD ? reads : writes;
+  }
+
+  private void reject(HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    ResponseWrapper wrapper =
+        ResponseWrapper.builder()
+            .status(RestStatus.FAILURE)
+            .message(RestMessage.SERVICE_OVERLOADED)
+            .build();
+    objectMapper.writeValue(response.getOutputStream(), wrapper);
+  }
+
+  private static final class Limit {
+    private final String name;
+    private final AdaptiveConcurrencyLimit concurrency;
+    private final Counter rejected;
+
+    private Limit(String name, AdaptiveConcurrencyLimit concurrency, MeterRegistry meterRegistry) {
+      this.name = name;
+      this.concurrency = concurrency;
+      Gauge.builder("users.concurrency.limit", concurrency, AdaptiveConcurrencyLimit::getLimit)
+          .description("Requests allowed in flight, adjusted to their latency")
+          .tag("operation", name)
+          .register(meterRegistry);
+      Gauge.builder(
+              "users.concurrency.in.flight", concurrency, AdaptiveConcurrencyLimit::getInFlight)
+          .description("Requests in flight under the limit")
+          .tag("operation", name)
+          .register(meterRegistry);
+      this.rejected =
+          Counter.builder("users.concurrency.rejected")
+              .description("Requests answered with 503 because the limit was reached")
+              .tag("operation", name)
+              .register(meterRegistry);
+    }
+  }
+
+  private static final class ReleasingListener implements AsyncListener {
+    private final AdaptiveConcurrencyLimit concurrency;
+    private final long start;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ReleasingListener(AdaptiveConcurrencyLimit concurrency, long start) {
+      this.concurrency = concurrency;
+      this.start = start;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      if (released.compareAndSet(false, true)) concurrency.release(System.nanoTime() - start);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {}
+
+    @Override
+    public void onError(AsyncEvent event) {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.webapp.enums.RestMessage;
+import com.github.vas.atanasov.userservice.webapp.enums.RestStatus;
+import com.github.vas.atanasov.userservice.webapp.models.wrappers.ResponseWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits each client of the user endpoints with a {@link TokenBucketRateLimiter}. A client is
+ * its API key when the request carries one of the configured keys, otherwise its address. Every
+ * response reports the bucket in the {@code RateLimit-Limit}, {@code RateLimit-Remaining} and
+ * {@code RateLimit-Reset} headers of the IETF draft, a request without a token is answered with 429
+ * and {@code Retry-After}.
+ *
+ * <p>Unknown keys are ignored, so rotating keys does not get a client new buckets and sending
+ * another client's key name does not drain its bucket. Behind a proxy the address is the one it
+ * forwards, see {@code server.forward-headers-strategy}.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+  public static final String LIMIT_HEADER = "RateLimit-Limit";
+  public static final String REMAINING_HEADER = "RateLimit-Remaining";
+  public static final String RESET_HEADER = "RateLimit-Reset";
+
+  private final TokenBucketRateLimiter limiter;
+  private final String apiKeyHeader;
+  private final Set<String> apiKeys;
+  private final ObjectMapper objectMapper;
+  private final Counter rejected;
+
+  public RateLimitFilter(
+      TokenBucketRateLimiter limiter,
+      String apiKeyHeader,
+      Set<String> apiKeys,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.limiter = limiter;
+    this.apiKeyHeader = apiKeyHeader;
+    this.apiKeys = apiKeys;
+    this.objectMapper = objectMapper;
+    Gauge.builder("users.rate.limit.clients", limiter, TokenBucketRateLimiter::getClients)
+        .description("Clients with a token bucket of their own")
+        .register(meterRegistry);
+    this.rejected =
+        Counter.builder("users.rate.limit.rejected")
+            .description("Requests answered with 429 because the client ran out of tokens")
+            .register(meterRegistry);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String client = clientOf(request);
+    TokenBucketRateLimiter.Result result = limiter.tryAcquire(client);
+    response.setHeader(LIMIT_HEADER, String.valueOf(limiter.getBurst()));
+    response.setHeader(REMAINING_HEADER, String.valueOf(result.getRemaining()));
+    response.setHeader(RESET_HEADER, seconds(result.getNanosUntilFull()));
+    if (result.isAllowed()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    rejected.increment();
+    log.warn("Rate limited {} {} of {}", request.getMethod(), request.getRequestURI(), client);
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, seconds(result.getNanosUntilAllowed()));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    ResponseWrapper wrapper =
+        ResponseWrapper.builder()
+            .status(RestStatus.FAILURE)
+            .message(RestMessage.RATE_LIMIT_EXCEEDED)
+            .build();
+    objectMapper.writeValue(response.getOutputStream(), wrapper);
+  }
+
+  private String clientOf(HttpServletRequest request) {
+    String apiKey = request.getHeader(apiKeyHeader);
+    if (apiKey != null && apiKeys.contains(apiKey)) {
+      return "key:" + apiKey;
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+
+  // Whole seconds, rounded up so a client waiting that long finds a token
+  private static String seconds(long nanos) {
+    long second = TimeUnit.SECONDS.toNanos(1);
+    return String.valueOf(Math.max(0, (nanos + second - 1) / second));
+  }
+}
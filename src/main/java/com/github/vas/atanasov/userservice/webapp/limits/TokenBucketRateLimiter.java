@@ -0,0 +1,120 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client, each kept as a single {@link AtomicLong}. A bucket holds the time at
+ * which it would be full again (the theoretical arrival time of the generic cell rate algorithm):
+ * taking a token moves it one interval further with a CAS, a request is refused when that would
+ * put it more than {@code burst} intervals ahead of now. A bucket whose time has passed is full
+ * and equal to no bucket at all, so it can be dropped without losing anything.
+ *
+ * <p>Clients are spread over stripes, each with its own map and a share of {@code maxClients}. A
+ * stripe that is full drops its idle buckets first, one thread at a time. Clients that still do not
+ * fit share the stripe's overflow bucket until some buckets go idle, so memory stays bounded
+ * however many clients show up.
+ */
+public class TokenBucketRateLimiter {
+  private static final int STRIPES = 64;
+
+  @Getter private final int burst;
+  private final long interval;
+  private final long tolerance;
+  private final int stripeCapacity;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final LongSupplier clock;
+
+  public TokenBucketRateLimiter(double tokensPerSecond, int burst, int maxClients) {
+    this(tokensPerSecond, burst, maxClients, System::nanoTime);
+  }
+
+  TokenBucketRateLimiter(double tokensPerSecond, int burst, int maxClients, LongSupplier clock) {
+    if (tokensPerSecond <= 0 || burst < 1 || maxClients < 1) {
+      throw new IllegalArgumentException("Rate, burst and maximum clients must be positive");
+    }
+    this.burst = burst;
+    this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+    this.tolerance = interval * burst;
+    this.stripeCapacity = Math.max(1, maxClients / STRIPES);
+    this.clock = clock;
+    for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+  }
+
+  /** Takes a token from the client's bucket if it has one. */
+  public Result tryAcquire(String client) {
+    long now = clock.getAsLong();
+    Stripe stripe = stripes[spread(client.hashCode()) & (STRIPES - 1)];
+    AtomicLong bucket = stripe.buckets.get(client);
+    if (bucket == null) bucket = stripe.register(client, now);
+    while (true) {
+      long full = bucket.get();
+      long next = Math.max(full, now) + interval;
+      long ahead = next - now;
+      if (ahead > tolerance) return new Result(false, 0, full - now, ahead - tolerance);
+      if (bucket.compareAndSet(full, next)) {
+        return new Result(true, (int) ((tolerance - ahead) / interval), ahead, 0);
+      }
+    }
+  }
+
+  /** @return the number of clients with a bucket of their own */
+  public int getClients() {
+    int clients = 0;
+    for (Stripe stripe : stripes) clients += stripe.buckets.size();
+    return clients;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  @Getter
+  public static final class Result {
+    private final boolean allowed;
+    private final int remaining;
+    private final long nanosUntilFull;
+    private final long nanosUntilAllowed;
+
+    private Result(boolean allowed, int remaining, long nanosUntilFull, long nanosUntilAllowed) {
+      this.allowed = allowed;
+      this.remaining = remaining;
+      this.nanosUntilFull = nanosUntilFull;
+      this.nanosUntilAllowed = nanosUntilAllowed;
+    }
+  }
+
+  private final class Stripe {
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final AtomicLong overflow = new AtomicLong(clock.getAsLong());
+
+    private AtomicLong register(String client, long now) {
+      if (buckets.size() >= stripeCapacity && evicting.compareAndSet(false, true)) {
+        try {
+          evictIdle(now);
+        } finally {
+          evicting.set(false);
+        }
+      }
+      if (buckets.size() >= stripeCapacity) return overflow;
+      AtomicLong bucket = new AtomicLong(now);
+      AtomicLong existing = buckets.putIfAbsent(client, bucket);
+      return existing != null ? existing : bucket;
+    }
+
+    // A token taken between the check and the removal is lost, the client gets it back for free
+    private void evictIdle(long now) {
+      for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+        if (entry.getValue().get() - now <= 0) buckets.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.github.vas.atanasov.userservice.webapp.models.request;
+
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.MapperRegistrar;
+import com.github.vas.atanasov.userservice.utils.MapperRegistry;
+
+/** Precompiled mappers from request bodies to the service models. */
+public class RequestMapperRegistrar implements MapperRegistrar {
+
+  @Override
+  public void register(MapperRegistry.Builder registry) {
+    registry
+        .register(
+            UserCreateRequest.class,
+            UserCreateServiceModel.class,
+            request ->
+                UserCreateServiceModel.of(
+                    request.getUsername(), request.getFirstName(), request.getLastName()))
+        .register(UserCreateRequest.class, UserServiceModel.class, RequestMapperRegistrar::toUser);
+  }
+
+  // Uid and creation time are assigned by the service, or taken from an imported row
+  private static UserServiceModel toUser(UserCreateRequest request) {
+    UserServiceModel user = new UserServiceModel();
+    user.setUsername(request.getUsername());
+    user.setFirstName(request.getFirstName());
+    user.setLastName(request.getLastName());
+    return user;
+  }
+}
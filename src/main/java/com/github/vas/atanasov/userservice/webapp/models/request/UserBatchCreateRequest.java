@@ -0,0 +1,18 @@
+package com.github.vas.atanasov.userservice.webapp.models.request;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class UserBatchCreateRequest {
+  public static final int MAX_BATCH_SIZE = 1000;
+
+  // Items are validated one by one by the controller so that invalid entries are reported per item
+  // instead of failing the whole batch.
+  @Size(max = MAX_BATCH_SIZE)
+  @NotEmpty(message = "At least one user is required")
+  private List<UserCreateRequest> users;
+}
@@ -0,0 +1,18 @@
+package com.github.vas.atanasov.userservice.webapp.models.request;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class UserBatchDeleteRequest {
+  public static final int MAX_BATCH_SIZE = 10000;
+
+  @Size(max = MAX_BATCH_SIZE)
+  @NotEmpty(message = "At least one uid is required")
+  private List<@NotNull UUID> uids;
+}
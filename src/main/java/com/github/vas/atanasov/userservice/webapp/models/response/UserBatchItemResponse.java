@@ -0,0 +1,23 @@
+package com.github.vas.atanasov.userservice.webapp.models.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.webapp.models.wrappers.RestValidationError;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"index", "username", "status", "data", "errors"})
+public class UserBatchItemResponse {
+  private final int index;
+  private final String username;
+  private final UserCreateStatus status;
+  private final UserServiceModel data;
+  private final List<RestValidationError> errors;
+}
@@ -0,0 +1,32 @@
+package com.github.vas.atanasov.userservice.webapp.models.response;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonPropertyOrder({"items", "page", "size", "totalElements", "totalPages", "hasNext"})
+public class UserPageResponse {
+  private final List<UserServiceModel> items;
+  private final int page;
+  private final int size;
+  private final long totalElements;
+  private final int totalPages;
+  private final boolean hasNext;
+
+  public static UserPageResponse from(Page<UserServiceModel> page) {
+    return UserPageResponse.builder()
+        .items(page.getContent())
+        .page(page.getNumber())
+        .size(page.getSize())
+        .totalElements(page.getTotalElements())
+        .totalPages(page.getTotalPages())
+        .hasNext(page.hasNext())
+        .build();
+  }
+}
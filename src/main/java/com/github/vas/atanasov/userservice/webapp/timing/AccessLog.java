@@ -0,0 +1,66 @@
+package com.github.vas.atanasov.userservice.webapp.timing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One JSON line per logged request on the {@value #LOGGER_NAME} logger, with its status, duration
+ * and phases. Only a {@code sampleRate} fraction of requests is logged, except server errors and
+ * requests that took at least {@code slowThreshold}, which are always kept.
+ */
+public class AccessLog {
+  public static final String LOGGER_NAME = "user-service.access";
+  private static final Logger LOG = LoggerFactory.getLogger(LOGGER_NAME);
+
+  private final ObjectMapper objectMapper;
+  private final double sampleRate;
+  private final long slowThresholdNanos;
+
+  public AccessLog(ObjectMapper objectMapper, double sampleRate, long slowThresholdMs) {
+    this.objectMapper = objectMapper;
+    this.sampleRate = sampleRate;
+    this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+  }
+
+  public void log(HttpServletRequest request, int status, long nanos, RequestTimings timings) {
+    if (!LOG.isInfoEnabled() || !isKept(status, nanos)) return;
+    Map<String, Object> entry = new LinkedHashMap<>();
+    entry.put("timestamp", Instant.now().toString());
+    entry.put("method", request.getMethod());
+    entry.put("path", request.getRequestURI());
+    entry.put("status", status);
+    entry.put("durationMs", millis(nanos));
+    Map<String, Object> phases = new LinkedHashMap<>();
+    for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+      long phaseNanos = timings.get(phase);
+      if (phaseNanos > 0) phases.put(phase.getMetricName(), millis(phaseNanos));
+    }
+    entry.put("phases", phases);
+    entry.put("client", request.getRemoteAddr());
+    try {
+      LOG.info(objectMapper.writeValueAsString(entry));
+    } catch (JsonProcessingException e) {
+      LOG.warn("Could not write access log entry of {}", request.getRequestURI(), e);
+    }
+  }
+
+  boolean isKept(int status, long nanos) {
+    return status >= 500
+        || nanos >= slowThresholdNanos
+        || ThreadLocalRandom.current().nextDouble() < sampleRate;
+  }
+
+  private static double millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos) / 1000.0;
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.vas.atanasov.userservice.webapp.timing;
+
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Around controller methods, ends the bind phase that {@link RequestTimingInterceptor} started when
+ * the handler was picked, and starts the serialization phase it ends once the body is written.
+ * Binding covers reading, converting and validating the request body and parameters.
+ */
+public class ControllerTimingInterceptor implements MethodInterceptor {
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    RequestTimings timings = RequestTimings.current();
+    if (timings == null) return invocation.proceed();
+    timings.endMark(RequestTimings.Phase.BIND, System.nanoTime());
+    try {
+      return invocation.proceed();
+    } finally {
+      timings.mark(System.nanoTime());
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.github.vas.atanasov.userservice.webapp.timing;
+
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds {@link RequestTimings} to each request and reports them in a {@code Server-Timing} header
+ * and the {@link AccessLog}. The header has to be set after the body is written, when the response
+ * would be committed already, so bodies are buffered until the request completes. Streaming paths
+ * are passed through unbuffered and go without the header.
+ *
+ * <p>Async requests keep their timings in a request attribute and are completed on their last
+ * dispatch.
+ */
+public class RequestTimingFilter extends OncePerRequestFilter {
+  public static final String SERVER_TIMING_HEADER = "Server-Timing";
+  static final String TIMINGS_ATTRIBUTE = RequestTimingFilter.class.getName() + ".TIMINGS";
+
+  private final boolean serverTiming;
+  private final AccessLog accessLog;
+  private final Set<String> streamingPaths;
+  private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+  /**
+   * @param serverTiming whether to send the {@code Server-Timing} header
+   * @param accessLog {@code null} when requests are not logged
+   * @param streamingPaths paths whose responses are never buffered
+   */
+  public RequestTimingFilter(
+      boolean serverTiming, AccessLog accessLog, Set<String> streamingPaths) {
+    this.serverTiming = serverTiming;
+    this.accessLog = accessLog;
+    this.streamingPaths = streamingPaths;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestTimings timings = (RequestTimings) request.getAttribute(TIMINGS_ATTRIBUTE);
+    HttpServletResponse responseToUse = response;
+    if (timings == null) {
+      timings = new RequestTimings(System.nanoTime());
+      request.setAttribute(TIMINGS_ATTRIBUTE, timings);
+      String path = urlPathHelper.getPathWithinApplication(request);
+      if (serverTiming && !streamingPaths.contains(path)) {
+        responseToUse = new ContentCachingResponseWrapper(response);
+      }
+    }
+
+    RequestTimings previous = RequestTimings.bind(timings);
+    boolean failed = true;
+    try {
+      filterChain.doFilter(request, responseToUse);
+      failed = false;
+    } finally {
+      RequestTimings.bind(previous);
+      if (!isAsyncStarted(request)) {
+        complete(request, responseToUse, timings, failed);
+      }
+    }
+  }
+
+  private void complete(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      RequestTimings timings,
+      boolean failed)
+      throws IOException {
+    long nanos = System.nanoTime() - timings.getStart();
+    ContentCachingResponseWrapper buffered =
+        WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+    if (buffered != null) {
+      if (!buffered.isCommitted()) {
+        buffered.setHeader(SERVER_TIMING_HEADER, serverTiming(timings, nanos));
+      }
+      buffered.copyBodyToResponse();
+    }
+    if (accessLog != null) {
+      // Exceptions leaving the chain are turned into a 500 by the container
+      int status = failed ? HttpStatus.INTERNAL_SERVER_ERROR.value() : response.getStatus();
+      accessLog.log(request, status, nanos, timings);
+    }
+  }
+
+  /** @return the recorded phases and the total, in milliseconds */
+  static String serverTiming(RequestTimings timings, long totalNanos) {
+    StringBuilder header = new StringBuilder(128);
+    for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+      long nanos = timings.get(phase);
+      if (nanos > 0) appendMetric(header, phase.getMetricName(), nanos).append(", ");
+    }
+    return appendMetric(header, "total", totalNanos).toString();
+  }
+
+  // Milliseconds with microsecond precision, without going through String.format
+  private static StringBuilder appendMetric(StringBuilder header, String name, long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    long fraction = micros % 1000;
+    header.append(name).append(";dur=").append(micros / 1000).append('.');
+    if (fraction < 100) header.append('0');
+    if (fraction < 10) header.append('0');
+    return header.append(fraction);
+  }
+}
@@ -0,0 +1,54 @@
+package com.github.vas.atanasov.userservice.webapp.timing;
+
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+
+/**
+ * Starts the bind phase when a handler is picked and ends the serialization phase after it ran, see
+ * {@link ControllerTimingInterceptor}. Response bodies are written before {@link #postHandle}. On
+ * an async dispatch the handler is picked again, so serialization then starts with the dispatch.
+ *
+ * <p>Handlers run as a {@link Callable} on the MVC executor get the timings of their request bound
+ * to the executor thread.
+ */
+public class RequestTimingInterceptor implements HandlerInterceptor, CallableProcessingInterceptor {
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    RequestTimings timings = RequestTimings.current();
+    if (timings != null) timings.mark(System.nanoTime());
+    return true;
+  }
+
+  @Override
+  public void postHandle(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Object handler,
+      ModelAndView modelAndView) {
+    RequestTimings timings = RequestTimings.current();
+    if (timings != null) timings.endMark(RequestTimings.Phase.SERIALIZATION, System.nanoTime());
+  }
+
+  @Override
+  public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+    RequestTimings.bind(
+        (RequestTimings)
+            request.getAttribute(
+                RequestTimingFilter.TIMINGS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+  }
+
+  @Override
+  public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+    RequestTimings.bind(null);
+  }
+}
@@ -1,50 +0,0 @@
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('f240e51b-7d19-47f9-a844-f8618000fff0',0), 'rdorgan0', 'Randolph', 'Dorgan', '2020-10-08 20:21:15');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('9143541d-07be-4d7e-8ba8-33d57a8694d9',0), 'ncortese1', 'Nancee', 'Cortese', '2020-04-18 04:48:08');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('a74ed9d8-1059-4f6c-a78c-66be88fabe8a',0), 'adutnall2', 'Aline', 'Dutnall', '2020-07-02 06:49:31');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('e6c1aaa4-ce72-4519-ac9b-4b509347903b',0), 'kgennrich3', 'Karlis', 'Gennrich', '2020-09-26 21:22:51');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('5c268a39-d18b-43c7-8f6b-7ae3a61102b2',0), 'kbegley4', 'Kevon', 'Begley', '2020-10-20 02:34:42');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('00cfc101-0772-4fd5-a9fd-78ff9a585461',0), 'rcardello5', 'Roz', 'Cardello', '2020-09-07 11:29:21');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('1ea9c163-1b8b-4db2-8a46-5bfcb401d604',0), 'ljacquemard6', 'Luke', 'Jacquemard', '2020-01-03 11:29:47');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('34d682e9-83de-411f-81e0-bf9a73be9f46',0), 'mclose7', 'Muffin', null, '2020-09-10 23:43:19');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('0e0d7459-987e-4ea2-b7af-451d7b0eb73c',0), 'pdanilovich8', 'Phil', 'Danilovich', '2020-05-06 10:08:16');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('80bfedd1-d740-4719-8a11-b60de6e21641',0), 'fmcgilleghole9', 'Finlay', 'McGilleghole', '2020-11-13 12:50:06');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('30db8ee0-b2f9-4d8f-950f-dbe29ecb541f',0), 'knassaua', 'Kriste', 'Nassau', '2020-05-23 23:22:25');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('52288a8f-bcae-43f2-a77d-c689eb02f841',0), 'itripeb', 'Ivy', 'Tripe', '2020-09-05 08:43:15');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('c65fd54e-22da-4159-9d21-723b0f86d632',0), 'trutherforthc', 'Tadd', 'Rutherforth', '2020-05-22 22:22:28');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('8c486213-eb20-4ee7-954f-ddf30086031d',0), 'dgrelkad', 'Doy', 'Grelka', '2020-01-14 00:39:33');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('d9f0a0f9-ac1d-4e27-bab5-422468a2befd',0), 'lkoppe', 'Leanor', 'Kopp', '2021-01-04 08:49:26');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('4fea7785-aa84-40c8-b2e1-ac4b53a98cf7',0), 'waslettf', 'Wolfgang', 'Aslett', '2020-06-25 18:12:52');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('a29a1ab5-7d57-40a0-89e7-0b258eb07b02',0), 'hmoliang', 'Hillary', null, '2020-10-09 06:02:54');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('ce849fc1-8248-4e67-a3b3-ba8ae9173234',0), 'vphilipeauxh', 'Vanda', null, '2020-03-31 15:40:32');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('30cd230f-82ee-462e-b5c6-7782a957a176',0), 'scronki', 'Sallie', null, '2020-08-04 20:03:06');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('1efe1381-2639-4367-bb71-19c8dcabfcb5',0), 'blosemannj', 'Base', 'Losemann', '2020-08-26 19:32:28');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('82ecc045-a482-4dda-abb7-72830a1b6f2e',0), 'espurrettk', 'Ellary', 'Spurrett', '2020-06-09 04:26:42');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('a3aa1a12-e535-4d1e-8028-a8e44566ef1a',0), 'ksheardownl', 'Katusha', 'Sheardown', '2020-12-01 16:59:46');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('9186be0a-e076-45c9-8495-54b896f877b3',0), 'sbackshillm', 'Saunderson', 'Backshill', '2020-09-06 22:55:19');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('6156e231-076e-4d6b-835d-2d01ddc2ceb3',0), 'dbrownn', 'Dani', 'Brown', '2020-02-18 17:27:39');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('6595323e-c1ac-45ad-9484-279f3f04da2e',0), 'rfishleigho', 'Rochette', 'Fishleigh', '2021-01-01 09:01:11');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('b260dd3c-7554-4f8b-932f-f475b3fc6a66',0), 'tembersonp', 'Thorpe', 'Emberson', '2020-04-17 00:32:46');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('cb260246-0975-498d-9961-c97756dca820',0), 'sdonnellanq', 'Shepperd', 'Donnellan', '2020-05-13 13:17:42');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('2e0c64a4-2adc-4fca-8fcd-b636ac82d910',0), 'jhechlinr', 'Jacinda', 'Hechlin', '2020-12-16 09:47:24');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('f391e409-2d30-4924-8fcb-25b32f65dfb7',0), 'sdrovers', 'Sibley', 'Drover', '2020-02-10 09:21:04');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('adef3b1c-8ad4-4574-a365-1f22f9c7169e',0), 'dcolcuttt', 'Dorie', null, '2020-02-24 19:15:35');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('3f2e9865-2a0f-4167-bc8f-f095cd06b0e8',0), 'noldakeru', 'Nathanial', 'Oldaker', '2020-03-10 19:31:00');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('78c47949-a27c-4316-bbd3-e692c7fea03a',0), 'cdoegv', 'Carmelle', 'Doeg', '2020-08-26 12:45:34');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('ace46072-4b49-4f49-8e94-81a69c760d3b',0), 'celenerw', 'Coleman', 'Elener', '2020-04-08 12:10:50');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('5a205748-2b6b-4194-8301-98d525677ea2',0), 'hpaliserx', 'Hayward', 'Paliser', '2020-05-05 09:35:01');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('83f7e2e3-0752-47ee-9d0d-24b2ef567484',0), 'ascholly', 'Addie', 'Scholl', '2020-01-06 08:30:02');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('9a422439-99d4-4725-88b9-cc95d15cd24a',0), 'fgrittenz', 'Freddi', 'Gritten', '2020-01-17 04:18:50');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('c25468a8-539c-4ea4-958e-a3a85c97ada5',0), 'hreid10', 'Hakim', null, '2020-05-17 10:30:45');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('9ef24f06-7c01-46ee-bcb2-6046a58d18b7',0), 'alyons11', 'Alvis', 'Lyons', '2020-09-02 12:26:46');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('19b49c13-fc20-4b09-bfa0-ba18a5b0be54',0), 'wheddon12', 'Welbie', 'Heddon', '2020-10-20 05:33:42');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('d62a2863-1055-4505-a423-491589293136',0), 'dwalwood13', 'Darwin', 'Walwood', '2020-04-18 11:15:15');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('faefcbb7-aac1-4d2a-b465-8d78813a8ee0',0), 'pswyne14', 'Peder', 'Swyne', '2020-08-30 19:56:01');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('f6fc8d73-485b-44f7-a871-5c4a81f7d17f',0), 'eoilier15', 'Elora', 'OIlier', '2020-05-01 23:02:01');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('fe63b7a1-d906-486d-84cb-9f2aa2782b2c',0), 'cmaes16', 'Colly', 'Maes', '2020-03-13 00:28:54');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('0724b5b8-eec3-4f8f-a525-395349188aee',0), 'apaulet17', 'Ardelis', null, '2020-12-07 14:14:10');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('760b0269-8018-400b-b3fc-6b5001fc7bc5',0), 'viannini18', 'Veronica', 'Iannini', '2020-04-07 20:19:48');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('c85c1a6c-30b5-4a64-a7d6-16e5ed03bb10',0), 'msprey19', 'Muffin', null, '2020-11-09 02:25:37');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('67c36f36-b991-4665-934f-061408ce735f',0), 'kstanier1a', 'Konstantin', 'Stanier', '2020-07-18 23:33:55');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('2e659857-efb0-48b3-9725-5a9efd216b43',0), 'aveschi1b', 'Alexandr', 'Veschi', '2020-06-14 02:06:38');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('d3a80cc1-e1ca-403b-bf28-f45300ab434a',0), 'alavies1c', 'April', 'Lavies', '2020-11-13 23:03:19');
-insert into user (uid, username, first_name, last_name, created_date_time) values (UUID_TO_BIN('4b60c73a-be2c-4595-824f-db56869632b7',0), 'ehowgego1d', 'Eden', 'Howgego', '2020-03-01 17:21:06');
@@ -0,0 +1,100 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MethodTimingInterceptorTest {
+  private SimpleMeterRegistry meterRegistry;
+  private DefaultListableBeanFactory beanFactory;
+  private Function<String, String> proxy;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerSingleton("meterRegistry", meterRegistry);
+
+    Function<String, String> target =
+        value -> {
+          if (value == null) {
+            throw new IllegalArgumentException();
+          }
+          return value;
+        };
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(Function.class);
+    proxyFactory.addAdvice(
+        new MethodTimingInterceptor(beanFactory.getBeanProvider(MeterRegistry.class), "test"));
+    proxy = (Function<String, String>) proxyFactory.getProxy();
+  }
+
+  @Test
+  void invoke_recordsOneTimerPerMethod() {
+    proxy.apply("first");
+    proxy.apply("second");
+
+    Timer timer = meterRegistry.get("test.calls").tag("method", "apply").timer();
+    assertThat(timer.count()).isEqualTo(2);
+    assertThat(meterRegistry.find("test.exceptions").counter()).isNull();
+  }
+
+  @Test
+  void invoke_withException_countsItByTypeAndRethrows() {
+    assertThatThrownBy(() -> proxy.apply(null)).isInstanceOf(IllegalArgumentException.class);
+
+    assertThat(
+            meterRegistry
+                .get("test.exceptions")
+                .tag("method", "apply")
+                .tag("exception", "IllegalArgumentException")
+                .counter()
+                .count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get("test.calls").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void invoke_withPhase_addsOutermostCallsToRequestTimings() {
+    AtomicReference<Function<String, String>> self = new AtomicReference<>();
+    Function<String, String> target =
+        value -> value.length() > 1 ? self.get().apply(value.substring(1)) : value;
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(Function.class);
+    proxyFactory.addAdvice(
+        new MethodTimingInterceptor(
+            beanFactory.getBeanProvider(MeterRegistry.class),
+            "phase",
+            RequestTimings.Phase.SERVICE));
+    self.set((Function<String, String>) proxyFactory.getProxy());
+    RequestTimings timings = new RequestTimings(System.nanoTime());
+
+    RequestTimings previous = RequestTimings.bind(timings);
+    try {
+      self.get().apply("abc");
+    } finally {
+      RequestTimings.bind(previous);
+    }
+
+    Timer timer = meterRegistry.get("phase.calls").timer();
+    assertThat(timer.count()).isEqualTo(3);
+    // Only the outermost, and longest, call is added, the nested ones are part of it
+    assertThat(timings.get(RequestTimings.Phase.SERVICE))
+        .isEqualTo((long) timer.max(TimeUnit.NANOSECONDS));
+    assertThat(timings.get(RequestTimings.Phase.DB)).isZero();
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class MetricsConfigurationTest {
+
+  @Autowired UserService userService;
+
+  @Autowired MeterRegistry meterRegistry;
+
+  @Test
+  void userServiceAndRepositoryCalls_areTimed() {
+    long serviceCalls = timerCount("users.service.calls", "getUserByUid");
+    long repositoryCalls = timerCount("users.repository.calls", "findByUid");
+
+    UUID uid = UUID.randomUUID();
+    assertThatThrownBy(() -> userService.getUserByUid(uid))
+        .isInstanceOf(UserNotFoundException.class);
+
+    assertThat(timerCount("users.service.calls", "getUserByUid")).isEqualTo(serviceCalls + 1);
+    assertThat(timerCount("users.repository.calls", "findByUid")).isEqualTo(repositoryCalls + 1);
+    assertThat(
+            meterRegistry
+                .get("users.service.exceptions")
+                .tag("method", "getUserByUid")
+                .tag("exception", "UserNotFoundException")
+                .counter()
+                .count())
+        .isPositive();
+  }
+
+  @Test
+  void connectionPool_isMonitored() {
+    assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+    assertThat(meterRegistry.find("hikaricp.connections.pending").gauge()).isNotNull();
+    assertThat(meterRegistry.find("hikaricp.connections.timeout").counter()).isNotNull();
+  }
+
+  private long timerCount(String name, String method) {
+    return meterRegistry.find(name).tag("method", method).timers().stream()
+        .mapToLong(timer -> timer.count())
+        .sum();
+  }
+}
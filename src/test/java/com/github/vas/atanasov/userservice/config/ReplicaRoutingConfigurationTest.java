@@ -0,0 +1,51 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The replica is a second pool on the primary's database, a replica without lag
+@ActiveProfiles("test")
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:routing_db;MODE=MySQL;DB_CLOSE_DELAY=-1",
+      "user-service.datasource.replica.urls=jdbc:h2:mem:routing_db;MODE=MySQL;DB_CLOSE_DELAY=-1"
+    })
+class ReplicaRoutingConfigurationTest {
+
+  @Autowired DataSource dataSource;
+
+  @Autowired UserService userService;
+
+  @Autowired MeterRegistry meterRegistry;
+
+  @Test
+  void readOnlyServiceCalls_useReplicaPool_writesUsePrimaryPool() {
+    assertThat(dataSource).isInstanceOf(ReplicaRoutingDataSource.class);
+    ReplicaRoutingDataSource replicaRoutingDataSource = (ReplicaRoutingDataSource) dataSource;
+
+    UserCreateServiceModel model = new UserCreateServiceModel();
+    model.setUsername("routedUser");
+    model.setFirstName("firstName");
+    userService.createUser(model);
+
+    assertThat(userService.getUsersPage(PageRequest.of(0, 10)).getContent())
+        .anyMatch(user -> user.getUsername().equals("routedUser"));
+
+    assertThat(replicaRoutingDataSource.isHealthy("replica-0")).isTrue();
+    assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "replica-0").gauge().value())
+        .isPositive();
+    assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge())
+        .isNotNull();
+  }
+}
@@ -0,0 +1,145 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.repositories.PrimaryReadTransactions;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+  private final List<HikariDataSource> pools = new ArrayList<>();
+  private ReplicaRoutingDataSource routing;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @AfterEach
+  void tearDown() {
+    pools.forEach(HikariDataSource::close);
+  }
+
+  @Test
+  void readOnlyTransactions_goToReplica_othersToPrimary() {
+    route(ReplicaSelection.ROUND_ROBIN, 0, database("replica"));
+
+    assertThat(readOnlyNode()).isEqualTo("replica");
+    assertThat(readWriteNode()).isEqualTo("primary");
+    assertThat(node()).isEqualTo("primary");
+  }
+
+  @Test
+  void roundRobin_alternatesBetweenReplicas() {
+    route(ReplicaSelection.ROUND_ROBIN, 0, database("replica-a"), database("replica-b"));
+
+    List<String> nodes = new ArrayList<>();
+    for (int i = 0; i < 4; i++) nodes.add(readOnlyNode());
+
+    assertThat(nodes).containsExactly("replica-a", "replica-b", "replica-a", "replica-b");
+  }
+
+  @Test
+  void leastConnections_prefersReplicaWithFewerConnectionsInUse() throws Exception {
+    HikariDataSource busy = database("replica-a");
+    route(ReplicaSelection.LEAST_CONNECTIONS, 0, busy, database("replica-b"));
+
+    try (Connection held = busy.getConnection()) {
+      assertThat(readOnlyNode()).isEqualTo("replica-b");
+      assertThat(readOnlyNode()).isEqualTo("replica-b");
+    }
+  }
+
+  @Test
+  void unavailableReplica_fallsBackToPrimaryUntilHealthCheckPasses() throws Exception {
+    String name = "replica-" + UUID.randomUUID();
+    route(ReplicaSelection.ROUND_ROBIN, 0, pool(name, "jdbc:h2:mem:" + name + ";IFEXISTS=TRUE"));
+
+    assertThat(readOnlyNode()).isEqualTo("primary");
+    assertThat(routing.isHealthy(name)).isFalse();
+
+    try (HikariDataSource replica = database(name)) {
+      assertThat(readOnlyNode()).isEqualTo("primary");
+      routing.checkReplicas();
+
+      assertThat(routing.isHealthy(name)).isTrue();
+      assertThat(readOnlyNode()).isEqualTo(name);
+    }
+  }
+
+  @Test
+  void readYourWritesWindow_readsFromPrimaryAfterCommittedWrite() {
+    route(ReplicaSelection.ROUND_ROBIN, 60_000, database("replica"));
+
+    assertThat(readOnlyNode()).isEqualTo("replica");
+    readWrite.execute(status -> jdbcTemplate.update("UPDATE node SET name = 'primary'"));
+
+    assertThat(readOnlyNode()).isEqualTo("primary");
+  }
+
+  @Test
+  void primaryReadTransactions_goToPrimary() {
+    route(ReplicaSelection.ROUND_ROBIN, 0, database("replica"));
+    TransactionTemplate primaryRead =
+        PrimaryReadTransactions.create(
+            new DataSourceTransactionManager(routing), "replica-routing-test");
+
+    String node = primaryRead.execute(status -> node());
+
+    assertThat(node).isEqualTo("primary");
+    assertThat(readOnlyNode()).isEqualTo("replica");
+  }
+
+  private void route(ReplicaSelection selection, long window, HikariDataSource... replicas) {
+    routing =
+        new ReplicaRoutingDataSource(
+            database("primary"), Arrays.asList(replicas), selection, window, 60_000);
+    routing.afterPropertiesSet();
+    jdbcTemplate = new JdbcTemplate(routing);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  private String readOnlyNode() {
+    return readOnly.execute(status -> node());
+  }
+
+  private String readWriteNode() {
+    return readWrite.execute(status -> node());
+  }
+
+  private String node() {
+    return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+  }
+
+  // An embedded database holding its own name, standing in for a primary or a replica
+  private HikariDataSource database(String name) {
+    HikariDataSource dataSource = pool(name, "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    jdbc.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(64))");
+    jdbc.update("DELETE FROM node");
+    jdbc.update("INSERT INTO node VALUES (?)", name);
+    return dataSource;
+  }
+
+  private HikariDataSource pool(String name, String url) {
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setPoolName(name);
+    dataSource.setJdbcUrl(url);
+    dataSource.setConnectionTimeout(2_000);
+    dataSource.setInitializationFailTimeout(-1);
+    pools.add(dataSource);
+    return dataSource;
+  }
+}
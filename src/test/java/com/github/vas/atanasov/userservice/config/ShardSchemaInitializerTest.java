@@ -0,0 +1,60 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardSchemaInitializerTest {
+  private ShardRoutingDataSource dataSource;
+
+  // Two shards with schemas that were not created by Hibernate, both sequences start at 1
+  @BeforeEach
+  void setUp() {
+    List<HikariDataSource> shards = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      HikariDataSource shard = new HikariDataSource();
+      shard.setJdbcUrl("jdbc:h2:mem:id_range_shard_" + i + ";MODE=MySQL");
+      shards.add(shard);
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+      jdbcTemplate.execute("create table user (id bigint not null primary key)");
+      jdbcTemplate.execute("create sequence user_id_seq start with 1 increment by 50");
+    }
+    dataSource = new ShardRoutingDataSource(shards);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dataSource.close();
+  }
+
+  @Test
+  void afterSingletonsInstantiated_withEmptyShards_movesSequencesIntoTheirRanges() {
+    new ShardSchemaInitializer(dataSource, null, "none").afterSingletonsInstantiated();
+
+    assertThat(nextId(0)).isEqualTo(1);
+    assertThat(nextId(1)).isEqualTo(1L << 48);
+  }
+
+  @Test
+  void afterSingletonsInstantiated_withIdsOutsideOfShardRange_fails() {
+    new JdbcTemplate(dataSource.getShard(1)).update("insert into user (id) values (7)");
+    ShardSchemaInitializer initializer = new ShardSchemaInitializer(dataSource, null, "validate");
+
+    assertThatThrownBy(initializer::afterSingletonsInstantiated)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Shard 1 holds ids 7 to 7");
+  }
+
+  private long nextId(int shard) {
+    return new JdbcTemplate(dataSource.getShard(shard))
+        .queryForObject("select next value for user_id_seq", Long.class);
+  }
+}
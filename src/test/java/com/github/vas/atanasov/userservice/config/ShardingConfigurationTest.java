@@ -0,0 +1,226 @@
+package com.github.vas.atanasov.userservice.config;
+
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.core.repositories.UsernameDirectory;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserSliceServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("test")
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties =
+        "user-service.sharding.urls="
+            + "jdbc:h2:mem:user_shard_0;MODE=MySQL;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:user_shard_1;MODE=MySQL;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:user_shard_2;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class ShardingConfigurationTest {
+
+  @Autowired ShardRoutingDataSource dataSource;
+
+  @Autowired UserService userService;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired UsernameDirectory usernameDirectory;
+
+  @Test
+  void createUser_storesUserOnItsShardOnly() {
+    UserServiceModel created = userService.createUser(model("placedUser"));
+
+    int shard = dataSource.shardOf(created.getUid());
+    for (int i = 0; i < dataSource.getShardCount(); i++) {
+      assertThat(usernames(i).contains("placedUser")).isEqualTo(i == shard);
+    }
+    assertThat(userRepository.findByUid(created.getUid())).isPresent();
+  }
+
+  @Test
+  void createUsers_spreadOverShards_withUniqueIds() {
+    List<UserCreateServiceModel> models =
+        IntStream.range(0, 30).mapToObj(i -> model("spreadUser" + i)).collect(Collectors.toList());
+
+    List<UserCreateResultServiceModel> results = userService.createUsers(models);
+
+    assertThat(results)
+        .extracting(UserCreateResultServiceModel::getStatus)
+        .containsOnly(UserCreateStatus.CREATED);
+    assertThat(results)
+        .extracting(result -> result.getUser().getUsername())
+        .containsExactlyElementsOf(
+            models.stream().map(UserCreateServiceModel::getUsername).collect(Collectors.toList()));
+    for (int i = 0; i < dataSource.getShardCount(); i++) {
+      assertThat(usernames(i)).anyMatch(username -> username.startsWith("spreadUser"));
+    }
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < dataSource.getShardCount(); i++) {
+      ids.addAll(shard(i).queryForList("select id from user", Long.class));
+    }
+    assertThat(ids).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void createUser_withUsernameTakenOnAnyShard_throws() {
+    userService.createUser(model("takenUser"));
+
+    assertThatThrownBy(() -> userService.createUser(model("TAKENuser")))
+        .isInstanceOf(UserExistsException.class);
+    List<UserCreateResultServiceModel> results =
+        userService.createUsers(Arrays.asList(model("takenuser"), model("freeUser")));
+    assertThat(results)
+        .extracting(UserCreateResultServiceModel::getStatus)
+        .containsExactly(UserCreateStatus.ALREADY_EXISTS, UserCreateStatus.CREATED);
+  }
+
+  @Test
+  void deleteUser_releasesUsername() {
+    UserServiceModel created = userService.createUser(model("releasedUser"));
+
+    userService.deleteUserByUid(created.getUid());
+
+    assertThat(userService.createUser(model("releasedUser")).getUid())
+        .isNotEqualTo(created.getUid());
+  }
+
+  @Test
+  @DirtiesContext
+  void deleteByUids_withFailingShard_releasesUsernamesOfShardsThatDeleted() {
+    UserServiceModel kept = null;
+    UserServiceModel deleted = null;
+    for (int i = 0; kept == null || deleted == null; i++) {
+      UserServiceModel user = userService.createUser(model("partialUser" + i));
+      int shard = dataSource.shardOf(user.getUid());
+      if (shard == 1 && kept == null) kept = user;
+      if (shard == 0 && deleted == null) deleted = user;
+    }
+    dataSource.getShard(1).close();
+    List<UUID> uids = Arrays.asList(kept.getUid(), deleted.getUid());
+
+    assertThatThrownBy(() -> userRepository.deleteByUids(uids))
+        .isInstanceOf(DataAccessException.class);
+
+    assertThat(usernames(0)).doesNotContain(deleted.getUsername());
+    assertThat(
+            usernameDirectory.findExisting(
+                Arrays.asList(kept.getUsername(), deleted.getUsername())))
+        .containsExactly(User.usernameKey(kept.getUsername()));
+  }
+
+  @Test
+  void getUsersPage_mergesShardsInPageOrder() {
+    userService.createUsers(
+        IntStream.range(0, 20).mapToObj(i -> model("pagedUser" + i)).collect(Collectors.toList()));
+    List<UUID> expected = newestFirst();
+    PageRequest first =
+        PageRequest.of(0, 7, Sort.by(Sort.Direction.DESC, "createdDateTime", "id"));
+
+    List<UUID> page = uids(userService.getUsersPage(first).getContent());
+    List<UUID> next = uids(userService.getUsersPage(first.next()).getContent());
+
+    assertThat(page).isEqualTo(expected.subList(0, 7));
+    assertThat(next).isEqualTo(expected.subList(7, 14));
+    assertThat(userRepository.count()).isEqualTo(expected.size());
+  }
+
+  @Test
+  void getUsersSlice_followsCursorAcrossShards() {
+    userService.createUsers(
+        IntStream.range(0, 10).mapToObj(i -> model("slicedUser" + i)).collect(Collectors.toList()));
+    List<UUID> expected = newestFirst();
+
+    UserSliceServiceModel first = userService.getUsersSlice(null, 4);
+    UserSliceServiceModel second = userService.getUsersSlice(first.getNextCursor(), 4);
+
+    assertThat(uids(first.getContent())).isEqualTo(expected.subList(0, 4));
+    assertThat(uids(second.getContent())).isEqualTo(expected.subList(4, 8));
+  }
+
+  @Test
+  void checkSharded_withMethodWithoutShardedImplementation_fails() {
+    ShardingRepositoryInterceptor interceptor = new ShardingRepositoryInterceptor(null, null, null);
+    try {
+      assertThatThrownBy(() -> interceptor.checkSharded(UnshardedRepository.class))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("[findAll]");
+    } finally {
+      interceptor.destroy();
+    }
+  }
+
+  interface UnshardedRepository extends UserRepository {
+    List<User> findAll();
+  }
+
+  // All users of all shards, read directly, newest first with ties broken by id
+  private List<UUID> newestFirst() {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < dataSource.getShardCount(); i++) {
+      shard(i)
+          .query(
+              "select uid, created_date_time, id from user",
+              (rs, n) ->
+                  rows.add(
+                      new Object[] {
+                        uid(rs.getBytes(1)), rs.getTimestamp(2), rs.getLong(3)
+                      }));
+    }
+    return rows.stream()
+        .sorted(
+            Comparator.comparing((Object[] row) -> (Timestamp) row[1])
+                .thenComparing(row -> (Long) row[2])
+                .reversed())
+        .map(row -> (UUID) row[0])
+        .collect(Collectors.toList());
+  }
+
+  private List<String> usernames(int shard) {
+    return shard(shard).queryForList("select username from user", String.class);
+  }
+
+  private JdbcTemplate shard(int shard) {
+    return new JdbcTemplate(dataSource.getShard(shard));
+  }
+
+  private static UUID uid(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  private static List<UUID> uids(List<UserServiceModel> users) {
+    return users.stream().map(UserServiceModel::getUid).collect(Collectors.toList());
+  }
+
+  private static UserCreateServiceModel model(String username) {
+    UserCreateServiceModel model = new UserCreateServiceModel();
+    model.setUsername(username);
+    model.setFirstName("firstName");
+    return model;
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.vas.atanasov.userservice.core.repositories;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserRepositoryTest {
+
+  @Autowired UserRepository userRepository;
+
+  @Test
+  void deleteByUids_deletesOnlyMatchingUsers() {
+    User first =
+        userRepository.save(User.of(UidStrategy.TIME_ORDERED.next(), "first", "firstName", null));
+    User second =
+        userRepository.save(User.of(UidStrategy.TIME_ORDERED.next(), "second", "firstName", null));
+    UUID missing = UUID.randomUUID();
+
+    assertThat(userRepository.findExistingUids(Arrays.asList(first.getUid(), missing)))
+        .containsExactly(first.getUid());
+    assertThat(userRepository.deleteByUids(Arrays.asList(first.getUid(), missing))).isEqualTo(1);
+
+    assertThat(userRepository.findByUid(first.getUid())).isEmpty();
+    assertThat(userRepository.findByUid(second.getUid())).isPresent();
+  }
+
+  @Test
+  void findByUid_findsTimeOrderedAndRandomUids() {
+    User timeOrdered = User.of(UidStrategy.TIME_ORDERED.next(), "v7", "firstName", null, null);
+    User random = User.of(UidStrategy.RANDOM.next(), "v4", "firstName", null, null);
+    userRepository.saveAll(Arrays.asList(timeOrdered, random));
+
+    assertThat(userRepository.findByUid(timeOrdered.getUid())).hasValue(timeOrdered);
+    assertThat(userRepository.findByUid(random.getUid())).hasValue(random);
+  }
+
+  @Test
+  void findUidsCreatedBefore_returnsOnlyOlderUsers() {
+    LocalDateTime now = LocalDateTime.now();
+    User old = User.of(UidStrategy.TIME_ORDERED.next(), "old", "firstName", null);
+    ReflectionTestUtils.setField(old, "createdDateTime", now.minusDays(10));
+    userRepository.save(old);
+    userRepository.save(User.of(UidStrategy.TIME_ORDERED.next(), "recent", "firstName", null));
+
+    assertThat(userRepository.findUidsCreatedBefore(now.minusDays(1), PageRequest.of(0, 10)))
+        .containsExactly(old.getUid());
+  }
+
+  @Test
+  void insertAll_keepsPreassignedUidAndCreationTime() {
+    UUID uid = UUID.randomUUID();
+    LocalDateTime accepted = LocalDateTime.now().minusMinutes(1).withNano(0);
+
+    userRepository.insertAll(
+        Collections.singletonList(User.of(uid, "buffered", "firstName", null, accepted)));
+
+    assertThat(userRepository.findByUid(uid))
+        .hasValueSatisfying(user -> assertThat(user.getCreatedDateTime()).isEqualTo(accepted));
+  }
+}
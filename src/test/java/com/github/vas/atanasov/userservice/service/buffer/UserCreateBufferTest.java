@@ -0,0 +1,176 @@
+package com.github.vas.atanasov.userservice.service.buffer;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.enums.UserAsyncCreateStatus;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.exceptions.UserCreateBufferFullException;
+import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCreateBufferTest {
+
+  @Mock UserRepository userRepository;
+
+  @Mock ApplicationEventPublisher eventPublisher;
+
+  @Mock PlatformTransactionManager transactionManager;
+
+  @Test
+  void add_withQueuedUsername_shouldThrow() {
+    UserCreateBuffer buffer = createBuffer(10, 10);
+    buffer.add(user("username"));
+
+    assertThatThrownBy(() -> buffer.add(user("USERNAME")))
+        .isInstanceOf(UserExistsException.class);
+  }
+
+  @Test
+  void add_withFullBuffer_shouldThrowAndReleaseUsername() {
+    UserCreateBuffer buffer = createBuffer(1, 10);
+    buffer.add(user("first"));
+    UserServiceModel rejected = user("second");
+
+    assertThatThrownBy(() -> buffer.add(rejected))
+        .isInstanceOf(UserCreateBufferFullException.class);
+    assertThat(buffer.getStatus(rejected.getUid())).isEmpty();
+
+    buffer.flush();
+    buffer.add(user("second"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void flush_writesBatchesAndRecordsOutcome() {
+    UserCreateBuffer buffer = createBuffer(10, 2);
+    UserServiceModel first = user("first");
+    UserServiceModel second = user("second");
+    UserServiceModel taken = user("taken");
+    buffer.add(first);
+    buffer.add(second);
+    buffer.add(taken);
+    when(userRepository.findExistingUsernames(any()))
+        .thenReturn(Collections.emptyList())
+        .thenReturn(Collections.singletonList("TAKEN"));
+    assertThat(buffer.getStatus(first.getUid())).contains(UserAsyncCreateStatus.PENDING);
+
+    assertThat(buffer.flush()).isEqualTo(3);
+
+    assertThat(buffer.getStatus(first.getUid())).contains(UserAsyncCreateStatus.CREATED);
+    assertThat(buffer.getStatus(second.getUid())).contains(UserAsyncCreateStatus.CREATED);
+    assertThat(buffer.getStatus(taken.getUid())).contains(UserAsyncCreateStatus.ALREADY_EXISTS);
+    ArgumentCaptor<List<User>> inserted = ArgumentCaptor.forClass(List.class);
+    verify(userRepository).insertAll(inserted.capture());
+    assertThat(inserted.getValue())
+        .extracting(User::getUid)
+        .containsExactly(first.getUid(), second.getUid());
+    verify(eventPublisher).publishEvent(any(UsersCreatedEvent.class));
+    verify(transactionManager, times(2)).commit(any());
+
+    buffer.add(user("first"));
+  }
+
+  @Test
+  void flush_withConflictingBatch_retriesOneByOne() {
+    UserCreateBuffer buffer = createBuffer(10, 10);
+    UserServiceModel free = user("free");
+    UserServiceModel raced = user("raced");
+    buffer.add(free);
+    buffer.add(raced);
+    when(userRepository.findExistingUsernames(any())).thenReturn(Collections.emptyList());
+    when(userRepository.insertAll(anyList()))
+        .thenThrow(new DataIntegrityViolationException("batch"))
+        .thenReturn(Collections.emptyList())
+        .thenThrow(new DataIntegrityViolationException("raced"));
+
+    buffer.flush();
+
+    assertThat(buffer.getStatus(free.getUid())).contains(UserAsyncCreateStatus.CREATED);
+    assertThat(buffer.getStatus(raced.getUid())).contains(UserAsyncCreateStatus.ALREADY_EXISTS);
+    verify(userRepository, times(3)).insertAll(anyList());
+  }
+
+  @Test
+  void flush_withFailingDatabase_marksBatchFailed() {
+    UserCreateBuffer buffer = createBuffer(10, 10);
+    UserServiceModel user = user("username");
+    buffer.add(user);
+    when(userRepository.findExistingUsernames(any())).thenThrow(new IllegalStateException());
+
+    buffer.flush();
+
+    assertThat(buffer.getStatus(user.getUid())).contains(UserAsyncCreateStatus.FAILED);
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  void shutdown_writesQueuedUsersAndRejectsNewOnes() throws Exception {
+    UserCreateBuffer buffer = createBuffer(10, 10);
+    UserServiceModel user = user("username");
+    buffer.add(user);
+    when(userRepository.findExistingUsernames(any())).thenReturn(Collections.emptyList());
+
+    buffer.shutdown();
+
+    verify(userRepository)
+        .insertAll(argThat(users -> users.size() == 1 && users.get(0).getUid() == user.getUid()));
+    assertThat(buffer.getStatus(user.getUid())).contains(UserAsyncCreateStatus.CREATED);
+    assertThatThrownBy(() -> buffer.add(user("other")))
+        .isInstanceOf(UserCreateBufferFullException.class);
+  }
+
+  @Test
+  void getStatus_afterMoreUsersThanCapacity_keepsEarlierOutcomes() {
+    UserCreateBuffer buffer = createBuffer(2, 2);
+    when(userRepository.findExistingUsernames(any())).thenReturn(Collections.emptyList());
+    UserServiceModel first = user("first");
+    buffer.add(first);
+    for (int i = 0; i < 50; i++) {
+      buffer.add(user("user" + i));
+      buffer.flush();
+    }
+
+    assertThat(buffer.getStatus(first.getUid())).contains(UserAsyncCreateStatus.CREATED);
+  }
+
+  private UserCreateBuffer createBuffer(int capacity, int batchSize) {
+    return new UserCreateBuffer(
+        userRepository,
+        eventPublisher,
+        transactionManager,
+        new SimpleMeterRegistry(),
+        capacity,
+        batchSize,
+        100,
+        60000,
+        1000);
+  }
+
+  private static UserServiceModel user(String username) {
+    return MappingUtils.map(
+        User.of(UidStrategy.TIME_ORDERED.next(), username, "firstName", null),
+        UserServiceModel.class);
+  }
+}
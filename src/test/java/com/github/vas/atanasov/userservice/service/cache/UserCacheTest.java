@@ -0,0 +1,116 @@
+package com.github.vas.atanasov.userservice.service.cache;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+  @Mock UserRepository userRepository;
+
+  SimpleMeterRegistry meterRegistry;
+  UserCache userCache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    userCache = new UserCache(userRepository, meterRegistry, 100, 60_000, 60_000);
+  }
+
+  @Test
+  void get_repeatedLookups_loadOnce() {
+    User user = User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName");
+    when(userRepository.findByUid(user.getUid())).thenReturn(Optional.of(user));
+
+    assertThat(userCache.get(user.getUid()))
+        .map(UserServiceModel::getUsername)
+        .hasValue("username");
+    assertThat(userCache.get(user.getUid())).isPresent();
+
+    verify(userRepository, times(1)).findByUid(user.getUid());
+    assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void get_missingUser_isNegativelyCached() {
+    UUID uid = UUID.randomUUID();
+    when(userRepository.findByUid(uid)).thenReturn(Optional.empty());
+
+    assertThat(userCache.get(uid)).isEmpty();
+    assertThat(userCache.get(uid)).isEmpty();
+
+    verify(userRepository, times(1)).findByUid(uid);
+  }
+
+  @Test
+  void onUsersDeleted_invalidatesEntry() {
+    User user = User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName");
+    when(userRepository.findByUid(user.getUid()))
+        .thenReturn(Optional.of(user))
+        .thenReturn(Optional.empty());
+
+    assertThat(userCache.get(user.getUid())).isPresent();
+    userCache.onUsersDeleted(new UsersDeletedEvent(Collections.singletonList(user.getUid())));
+
+    assertThat(userCache.get(user.getUid())).isEmpty();
+    verify(userRepository, times(2)).findByUid(user.getUid());
+  }
+
+  @Test
+  void get_concurrentMisses_loadOnce() throws Exception {
+    User user = User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName");
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(userRepository.findByUid(user.getUid()))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return Optional.of(user);
+            });
+
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Optional<UserServiceModel>>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> userCache.get(user.getUid())));
+      }
+      assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+      // Give the other lookups time to block on the load in progress
+      Thread.sleep(100);
+      release.countDown();
+      for (Future<Optional<UserServiceModel>> result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS)).isPresent();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    verify(userRepository, times(1)).findByUid(user.getUid());
+  }
+}
@@ -0,0 +1,79 @@
+package com.github.vas.atanasov.userservice.service.count;
+
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.enums.UserCountMode;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.version.UserTableVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCounterTest {
+
+  @Mock UserRepository userRepository;
+
+  UserTableVersion tableVersion = new UserTableVersion(true);
+
+  @Test
+  void getTotal_inApproximateMode_countsOnceAndTracksChanges() {
+    UserCounter counter = createCounter(UserCountMode.APPROXIMATE);
+    when(userRepository.count()).thenReturn(10L);
+
+    assertThat(counter.getTotal()).isEqualTo(10);
+    counter.onUsersCreated(
+        new UsersCreatedEvent(Arrays.asList(new UserServiceModel(), new UserServiceModel())));
+    counter.onUsersDeleted(new UsersDeletedEvent(Collections.singletonList(UUID.randomUUID())));
+
+    assertThat(counter.getTotal()).isEqualTo(11);
+    verify(userRepository, times(1)).count();
+  }
+
+  @Test
+  void reconcile_replacesDriftedTotal() {
+    UserCounter counter = createCounter(UserCountMode.APPROXIMATE);
+    when(userRepository.count()).thenReturn(10L).thenReturn(15L);
+
+    counter.reconcile();
+    counter.onUsersCreated(
+        new UsersCreatedEvent(Collections.singletonList(new UserServiceModel())));
+    String eTag = tableVersion.getETag();
+    counter.reconcile();
+
+    assertThat(counter.getTotal()).isEqualTo(15);
+    assertThat(tableVersion.getETag()).isNotEqualTo(eTag);
+  }
+
+  @Test
+  void getTotal_inExactMode_alwaysCounts() {
+    UserCounter counter = createCounter(UserCountMode.EXACT);
+    when(userRepository.count()).thenReturn(3L);
+
+    counter.getTotal();
+    counter.getTotal();
+
+    verify(userRepository, times(2)).count();
+  }
+
+  private UserCounter createCounter(UserCountMode mode) {
+    return new UserCounter(
+        userRepository,
+        mock(PlatformTransactionManager.class),
+        tableVersion,
+        new SimpleMeterRegistry(),
+        mode,
+        60_000);
+  }
+}
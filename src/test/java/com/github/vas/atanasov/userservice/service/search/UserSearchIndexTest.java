@@ -0,0 +1,98 @@
+package com.github.vas.atanasov.userservice.service.search;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexTest {
+
+  @Mock UserRepository userRepository;
+
+  @Mock PlatformTransactionManager transactionManager;
+
+  UserSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new UserSearchIndex(userRepository, transactionManager, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void search_matchesPrefixOfAnyFieldIgnoringCase() {
+    UserServiceModel john = user("jsmith", "John", "Smith");
+    UserServiceModel johanna = user("hanna", "Johanna", null);
+    UserServiceModel other = user("peterp", "Peter", "Johnson");
+    index.onUsersCreated(new UsersCreatedEvent(Arrays.asList(john, johanna, other)));
+
+    assertThat(index.search("joh", 10)).containsExactly(johanna, john, other);
+    assertThat(index.search("SMI", 10)).containsExactly(john);
+    assertThat(index.search("x", 10)).isEmpty();
+  }
+
+  @Test
+  void search_returnsEachUserOnceUpToLimit() {
+    UserServiceModel first = user("anna1", "Anna", "Annas");
+    UserServiceModel second = user("anna2", "Anna", null);
+    index.onUsersCreated(new UsersCreatedEvent(Arrays.asList(first, second)));
+
+    assertThat(index.search("ann", 10)).containsExactlyInAnyOrder(first, second);
+    assertThat(index.search("ann", 1)).hasSize(1);
+  }
+
+  @Test
+  void remove_dropsUserAndItsFootprint() {
+    UserServiceModel user = user("jsmith", "John", "Smith");
+    index.onUsersCreated(new UsersCreatedEvent(Collections.singletonList(user)));
+    assertThat(index.estimatedMemoryBytes()).isPositive();
+
+    index.onUsersDeleted(new UsersDeletedEvent(Collections.singletonList(user.getUid())));
+
+    assertThat(index.search("j", 10)).isEmpty();
+    assertThat(index.estimatedMemoryBytes()).isZero();
+  }
+
+  @Test
+  void build_indexesScannedUsersExceptOnesDeletedMeanwhile() {
+    User kept = User.of(UidStrategy.TIME_ORDERED.next(), "kept", "Kept", null);
+    User deleted = User.of(UidStrategy.TIME_ORDERED.next(), "deleted", "Deleted", null);
+    when(userRepository.streamAll())
+        .thenAnswer(
+            invocation -> {
+              index.remove(deleted.getUid());
+              return Stream.of(kept, deleted);
+            });
+
+    index.build();
+
+    assertThat(index.search("kept", 10))
+        .extracting(UserServiceModel::getUid)
+        .containsExactly(kept.getUid());
+    assertThat(index.search("deleted", 10)).isEmpty();
+    verify(userRepository, times(2)).detach(any(User.class));
+  }
+
+  private static UserServiceModel user(String username, String firstName, String lastName) {
+    return MappingUtils.map(
+        User.of(UidStrategy.TIME_ORDERED.next(), username, firstName, lastName),
+        UserServiceModel.class);
+  }
+}
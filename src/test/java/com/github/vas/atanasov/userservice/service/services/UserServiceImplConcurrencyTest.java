@@ -0,0 +1,77 @@
+package com.github.vas.atanasov.userservice.service.services;
+
+import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class UserServiceImplConcurrencyTest {
+  private static final int THREADS = 32;
+
+  @Autowired UserService userService;
+
+  @Autowired UserRepository userRepository;
+
+  @AfterEach
+  void tearDown() {
+    userService.deleteUsersCreatedBefore(LocalDateTime.now().plusDays(1));
+  }
+
+  @Test
+  void createUser_withParallelIdenticalRequests_createsOneAndRejectsTheRest() throws Exception {
+    UserCreateServiceModel model = new UserCreateServiceModel();
+    model.setUsername("parallelUser");
+    model.setFirstName("firstName");
+
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> results = new ArrayList<>(THREADS);
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return userService.createUser(model);
+                }));
+      }
+      start.countDown();
+
+      int created = 0;
+      int rejected = 0;
+      for (Future<?> result : results) {
+        try {
+          result.get(30, TimeUnit.SECONDS);
+          created++;
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isInstanceOf(UserExistsException.class);
+          rejected++;
+        }
+      }
+
+      assertThat(created).isEqualTo(1);
+      assertThat(rejected).isEqualTo(THREADS - 1);
+      assertThat(userRepository.count()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -1,24 +1,60 @@
 package com.github.vas.atanasov.userservice.service.services;
 
+import com.github.vas.atanasov.userservice.core.domain.UidGenerator;
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
 import com.github.vas.atanasov.userservice.core.domain.User;
 import com.github.vas.atanasov.userservice.core.repositories.UserRepository;
+import com.github.vas.atanasov.userservice.service.bloom.UsernameBloomFilter;
+import com.github.vas.atanasov.userservice.service.buffer.UserCreateBuffer;
+import com.github.vas.atanasov.userservice.service.cache.UserCache;
+import com.github.vas.atanasov.userservice.service.count.UserCounter;
+import com.github.vas.atanasov.userservice.service.enums.UserAsyncCreateStatus;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.enums.UserDeleteStatus;
+import com.github.vas.atanasov.userservice.service.events.UsersCreatedEvent;
+import com.github.vas.atanasov.userservice.service.events.UsersDeletedEvent;
 import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserAsyncCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCursor;
+import com.github.vas.atanasov.userservice.service.models.UserDeleteResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserSliceServiceModel;
+import com.github.vas.atanasov.userservice.service.search.UserSearchIndex;
 import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,20 +64,45 @@ class UserServiceImplTest {
 
   @Mock UserRepository userRepository;
 
+  @Mock UsernameBloomFilter usernameFilter;
+
+  @Mock UserCache userCache;
+
+  @Mock UserCounter userCounter;
+
+  @Mock UserCreateBuffer userCreateBuffer;
+
+  @Mock UserSearchIndex userSearchIndex;
+
+  @Mock ApplicationEventPublisher eventPublisher;
+
+  @Mock PlatformTransactionManager transactionManager;
+
+  @Mock UidGenerator uidGenerator;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(uidGenerator.next()).thenAnswer(invocation -> UidStrategy.TIME_ORDERED.next());
+  }
+
   @Test
   void createUser_withValidRequest_Uid_IsNotNull() {
     UserCreateServiceModel model = new UserCreateServiceModel();
     model.setUsername("username");
     model.setFirstName("firstName");
 
-    when(userRepository.save(any(User.class))).thenReturn(MappingUtils.map(model, User.empty()));
+    when(userRepository.saveAndFlush(any(User.class)))
+        .thenReturn(
+            MappingUtils.map(
+                model, User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", null)));
 
     UserServiceModel createdUse = userService.createUser(model);
 
     assertThat(createdUse.getUid()).isNotNull();
 
-    verify(userRepository).existsByUsername(any());
-    verify(userRepository).save(any());
+    verify(userRepository).saveAndFlush(any());
+    verifyNoMoreInteractions(userRepository);
+    verify(eventPublisher).publishEvent(any(UsersCreatedEvent.class));
   }
 
   @Test
@@ -49,19 +110,375 @@ class UserServiceImplTest {
     UserCreateServiceModel model = new UserCreateServiceModel();
     model.setUsername("username");
     model.setFirstName("firstName");
-    when(userRepository.existsByUsername(any())).thenReturn(Boolean.TRUE);
+    when(userRepository.saveAndFlush(any(User.class)))
+        .thenThrow(constraintViolation("user." + User.USERNAME_CONSTRAINT));
     assertThatThrownBy(() -> userService.createUser(model)).isInstanceOf(UserExistsException.class);
 
-    verify(userRepository).existsByUsername(any());
+    verify(userRepository).saveAndFlush(any());
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void createUser_withOtherConstraintViolation_rethrows() {
+    when(userRepository.saveAndFlush(any(User.class)))
+        .thenThrow(constraintViolation("idx_user_uid"));
+
+    assertThatThrownBy(() -> userService.createUser(createModel("username")))
+        .isInstanceOf(DataIntegrityViolationException.class);
+  }
+
+  @Test
+  void createUserAsync_queuesUserUnderAssignedUid() {
+    UserAsyncCreateServiceModel accepted = userService.createUserAsync(createModel("username"));
+
+    ArgumentCaptor<UserServiceModel> queued = ArgumentCaptor.forClass(UserServiceModel.class);
+    verify(userCreateBuffer).add(queued.capture());
+    assertThat(accepted.getUid()).isNotNull().isEqualTo(queued.getValue().getUid());
+    assertThat(accepted.getStatus()).isEqualTo(UserAsyncCreateStatus.PENDING);
+    assertThat(queued.getValue().getUsername()).isEqualTo("username");
+    assertThat(queued.getValue().getCreatedDateTime()).isNotNull();
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void createUserAsync_assignsUidOfConfiguredGenerator() {
+    UUID uid = UidStrategy.RANDOM.next();
+    when(uidGenerator.next()).thenReturn(uid);
+
+    assertThat(userService.createUserAsync(createModel("username")).getUid()).isEqualTo(uid);
+  }
+
+  @Test
+  void getAsyncCreateStatus_withUnknownUid_shouldThrow() {
+    UUID uid = UUID.randomUUID();
+    when(userCreateBuffer.getStatus(uid)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> userService.getAsyncCreateStatus(uid))
+        .isInstanceOf(UserNotFoundException.class);
+  }
+
+  @Test
+  void searchUsers_queriesIndexWithTrimmedPrefix() {
+    List<UserServiceModel> found = Collections.singletonList(new UserServiceModel());
+    when(userSearchIndex.search("john", 5)).thenReturn(found);
+
+    assertThat(userService.searchUsers(" john ", 5)).isSameAs(found);
+    assertThatThrownBy(() -> userService.searchUsers(" ", 5))
+        .isInstanceOf(IllegalArgumentException.class);
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void getUserByUid_withCachedUser_returnsIt() {
+    UserServiceModel model =
+        UserServiceModel.from(
+            User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", null));
+    when(userCache.get(model.getUid())).thenReturn(Optional.of(model));
+
+    assertThat(userService.getUserByUid(model.getUid())).isSameAs(model);
+
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void getUserByUid_withNonExistingUUID_shouldThrow() {
+    when(userCache.get(any())).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> userService.getUserByUid(UUID.randomUUID()))
+        .isInstanceOf(UserNotFoundException.class);
   }
 
   @Test
   void deleteUserByUid_withNonExistingUUID_shouldThrow() {
 
-    when(userRepository.findByUid(any())).thenReturn(Optional.empty());
+    when(userRepository.deleteByUids(any())).thenReturn(0);
     assertThatThrownBy(() -> userService.deleteUserByUid(UUID.randomUUID()))
         .isInstanceOf(UserNotFoundException.class);
 
-    verify(userRepository).findByUid(any());
+    verify(userRepository).deleteByUids(any());
+    verify(userRepository, never()).findByUid(any());
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void deleteUsersByUid_withFoundAndMissingUids_reportsEachInInputOrder() {
+    UUID found = UUID.randomUUID();
+    UUID missing = UUID.randomUUID();
+    when(userRepository.findExistingUids(any())).thenReturn(Collections.singletonList(found));
+
+    List<UserDeleteResultServiceModel> results =
+        userService.deleteUsersByUid(Arrays.asList(missing, found));
+
+    assertThat(results)
+        .extracting(UserDeleteResultServiceModel::getUid, UserDeleteResultServiceModel::getStatus)
+        .containsExactly(
+            tuple(missing, UserDeleteStatus.NOT_FOUND), tuple(found, UserDeleteStatus.DELETED));
+    verify(userRepository).deleteByUids(Collections.singletonList(found));
+    verify(userRepository, never()).findByUid(any());
+    verify(eventPublisher).publishEvent(any(UsersDeletedEvent.class));
+  }
+
+  @Test
+  void deleteUsersByUid_withManyUids_deletesInChunks() {
+    List<UUID> uids = new ArrayList<>();
+    for (int i = 0; i < 2500; i++) uids.add(UUID.randomUUID());
+    when(userRepository.findExistingUids(any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    assertThat(userService.deleteUsersByUid(uids))
+        .extracting(UserDeleteResultServiceModel::getStatus)
+        .containsOnly(UserDeleteStatus.DELETED);
+
+    verify(userRepository, times(3)).findExistingUids(any());
+    verify(userRepository, times(3)).deleteByUids(any());
+  }
+
+  @Test
+  void deleteUsersCreatedBefore_deletesChunksUntilNoneLeft() {
+    List<UUID> fullChunk = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) fullChunk.add(UUID.randomUUID());
+    LocalDateTime createdBefore = LocalDateTime.now();
+    when(userRepository.findUidsCreatedBefore(eq(createdBefore), any()))
+        .thenReturn(fullChunk)
+        .thenReturn(Collections.singletonList(UUID.randomUUID()));
+
+    assertThat(userService.deleteUsersCreatedBefore(createdBefore)).isEqualTo(1001);
+
+    verify(userRepository, times(2)).deleteByUids(any());
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void createUsers_withTakenAndRepeatedUsernames_insertsOnlyNewOnes() {
+    List<UserCreateServiceModel> models =
+        Arrays.asList(
+            createModel("newUser1"),
+            createModel("takenUser"),
+            createModel("newUser2"),
+            createModel("NEWUSER1"));
+
+    when(usernameFilter.mightContain(any())).thenReturn(true);
+    when(userRepository.findExistingUsernames(any()))
+        .thenReturn(Collections.singletonList("TakenUser"));
+    when(userRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    List<UserCreateResultServiceModel> results = userService.createUsers(models);
+
+    assertThat(results)
+        .extracting(UserCreateResultServiceModel::getStatus)
+        .containsExactly(
+            UserCreateStatus.CREATED,
+            UserCreateStatus.ALREADY_EXISTS,
+            UserCreateStatus.CREATED,
+            UserCreateStatus.DUPLICATE_IN_BATCH);
+    assertThat(results.get(0).getUser().getUsername()).isEqualTo("newUser1");
+    assertThat(results.get(2).getUser().getUsername()).isEqualTo("newUser2");
+    assertThat(results.get(1).getUser()).isNull();
+
+    verify(userRepository).findExistingUsernames(any());
+    verify(userRepository).insertAll(argThat(users -> users.size() == 2));
+    verify(eventPublisher).publishEvent(any(UsersCreatedEvent.class));
+  }
+
+  @Test
+  void createUsers_withConflictOnInsert_retriesOneByOne() {
+    List<UserCreateServiceModel> models =
+        Arrays.asList(createModel("freeUser"), createModel("missedUser"), createModel("FREEUSER"));
+
+    when(usernameFilter.mightContain(any())).thenReturn(false);
+    when(userRepository.insertAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<User> users = invocation.getArgument(0);
+              if (users.stream().anyMatch(user -> user.getUsername().equals("missedUser"))) {
+                throw constraintViolation(User.USERNAME_CONSTRAINT);
+              }
+              return users;
+            });
+
+    List<UserCreateResultServiceModel> results = userService.createUsers(models);
+
+    assertThat(results)
+        .extracting(UserCreateResultServiceModel::getIndex, UserCreateResultServiceModel::getStatus)
+        .containsExactly(
+            tuple(0, UserCreateStatus.CREATED),
+            tuple(1, UserCreateStatus.ALREADY_EXISTS),
+            tuple(2, UserCreateStatus.DUPLICATE_IN_BATCH));
+    assertThat(results.get(0).getUser().getUsername()).isEqualTo("freeUser");
+    verify(userRepository, times(3)).insertAll(anyList());
+    verify(transactionManager, times(1)).commit(any());
+  }
+
+  @Test
+  void createUsers_withAllUsernamesAbsentFromFilter_skipsExistingUsernamesQuery() {
+    List<UserCreateServiceModel> models =
+        Arrays.asList(createModel("first"), createModel("second"));
+
+    when(usernameFilter.mightContain(any())).thenReturn(false);
+    when(userRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    assertThat(userService.createUsers(models))
+        .extracting(UserCreateResultServiceModel::getStatus)
+        .containsOnly(UserCreateStatus.CREATED);
+
+    verify(userRepository, never()).findExistingUsernames(any());
+  }
+
+  @Test
+  void importUsers_keepsGivenUidAndCreationTime() {
+    UserServiceModel existing = new UserServiceModel();
+    existing.setUid(UUID.randomUUID());
+    existing.setUsername("existingUser");
+    existing.setFirstName("firstName");
+    existing.setCreatedDateTime(LocalDateTime.of(2020, 10, 8, 20, 21, 15));
+    UserServiceModel fresh = new UserServiceModel();
+    fresh.setUsername("freshUser");
+    fresh.setFirstName("firstName");
+
+    when(usernameFilter.mightContain(any())).thenReturn(false);
+    when(userRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    List<UserCreateResultServiceModel> results =
+        userService.importUsers(Arrays.asList(existing, fresh));
+
+    assertThat(results.get(0).getUser().getUid()).isEqualTo(existing.getUid());
+    assertThat(results.get(0).getUser().getCreatedDateTime())
+        .isEqualTo(existing.getCreatedDateTime());
+    assertThat(results.get(1).getUser().getUid()).isNotNull();
+    assertThat(results.get(1).getUser().getCreatedDateTime()).isNotNull();
+  }
+
+  @Test
+  void importUsers_withTakenOrRepeatedUid_skipsThoseUsers() {
+    UUID taken = UUID.randomUUID();
+    UUID repeated = UUID.randomUUID();
+    List<UserServiceModel> users =
+        Arrays.asList(
+            importModel(taken, "renamedUser"),
+            importModel(repeated, "firstUser"),
+            importModel(repeated, "secondUser"));
+
+    when(usernameFilter.mightContain(any())).thenReturn(false);
+    when(userRepository.findExistingUids(any())).thenReturn(Collections.singletonList(taken));
+    when(userRepository.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    assertThat(userService.importUsers(users))
+        .extracting(UserCreateResultServiceModel::getStatus)
+        .containsExactly(
+            UserCreateStatus.ALREADY_EXISTS,
+            UserCreateStatus.CREATED,
+            UserCreateStatus.DUPLICATE_IN_BATCH);
+    verify(userRepository).insertAll(argThat(inserted -> inserted.size() == 1));
+  }
+
+  @Test
+  void createUsers_withEmptyList_doesNotQuery() {
+    assertThat(userService.createUsers(Collections.emptyList())).isEmpty();
+
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void getUsersPage_withFullPage_takesTotalFromCounter() {
+    PageRequest pageable = PageRequest.of(1, 5);
+    when(userRepository.findAllBy(pageable)).thenReturn(createUsers(5));
+    when(userCounter.getTotal()).thenReturn(42L);
+
+    Page<UserServiceModel> page = userService.getUsersPage(pageable);
+
+    assertThat(page.getContent()).hasSize(5);
+    assertThat(page.getTotalElements()).isEqualTo(42);
+    verify(userRepository, never()).count();
+  }
+
+  @Test
+  void getUsersPage_withPartialLastPage_derivesTotal() {
+    PageRequest pageable = PageRequest.of(2, 5);
+    when(userRepository.findAllBy(pageable)).thenReturn(createUsers(3));
+
+    assertThat(userService.getUsersPage(pageable).getTotalElements()).isEqualTo(13);
+
+    verifyNoInteractions(userCounter);
+  }
+
+  @Test
+  void getUsersSlice_withMoreRows_returnsCursorOfLastRow() {
+    List<User> users = createUsers(4);
+    when(userRepository.findNewest(any())).thenReturn(users);
+
+    UserSliceServiceModel slice = userService.getUsersSlice(null, 3);
+
+    assertThat(slice.getContent()).hasSize(3);
+    assertThat(slice.isHasNext()).isTrue();
+    assertThat(UserCursor.decode(slice.getNextCursor())).isEqualTo(UserCursor.of(users.get(2)));
+  }
+
+  @Test
+  void getUsersSlice_withCursor_seeksAfterCursorPosition() {
+    List<User> users = createUsers(2);
+    UserCursor cursor = new UserCursor(LocalDateTime.of(2020, 10, 8, 20, 21, 15, 123), 42L);
+    when(userRepository.findNewestBefore(eq(cursor.getCreatedDateTime()), eq(42L), any()))
+        .thenReturn(users);
+
+    UserSliceServiceModel slice = userService.getUsersSlice(cursor.encode(), 3);
+
+    assertThat(slice.getContent()).hasSize(2);
+    assertThat(slice.isHasNext()).isFalse();
+    assertThat(slice.getNextCursor()).isNull();
+    verify(userRepository, never()).count();
+  }
+
+  @Test
+  void getUsersSlice_withMalformedCursor_shouldThrow() {
+    assertThatThrownBy(() -> userService.getUsersSlice("not-a-cursor", 3))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  void exportUsers_mapsAndDetachesEveryUser() {
+    List<User> users = createUsers(3);
+    when(userRepository.streamAll()).thenReturn(users.stream());
+    List<UserServiceModel> exported = new ArrayList<>();
+
+    long count = userService.exportUsers(exported::add);
+
+    assertThat(count).isEqualTo(3);
+    assertThat(exported)
+        .extracting(UserServiceModel::getUid)
+        .containsExactly(users.get(0).getUid(), users.get(1).getUid(), users.get(2).getUid());
+    users.forEach(user -> verify(userRepository).detach(user));
+  }
+
+  private static UserServiceModel importModel(UUID uid, String username) {
+    UserServiceModel model = new UserServiceModel();
+    model.setUid(uid);
+    model.setUsername(username);
+    model.setFirstName("firstName");
+    return model;
+  }
+
+  private static List<User> createUsers(int count) {
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      User user = User.of(UidStrategy.TIME_ORDERED.next(), "username" + i, "firstName", "lastName");
+      ReflectionTestUtils.setField(user, "id", (long) count - i);
+      users.add(user);
+    }
+    return users;
+  }
+
+  private static DataIntegrityViolationException constraintViolation(String constraintName) {
+    return new DataIntegrityViolationException(
+        "could not execute statement",
+        new ConstraintViolationException("Duplicate entry", null, constraintName));
+  }
+
+  private static UserCreateServiceModel createModel(String username) {
+    UserCreateServiceModel model = new UserCreateServiceModel();
+    model.setUsername(username);
+    model.setFirstName("firstName");
+    return model;
   }
 }
@@ -0,0 +1,28 @@
+package com.github.vas.atanasov.userservice.service.version;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserTableVersionTest {
+
+  @Test
+  void getETag_afterChange_returnsNewTagPerVariant() {
+    UserTableVersion tableVersion = new UserTableVersion(true);
+    String json = tableVersion.getETag("application/json");
+
+    tableVersion.onUsersCreated(null);
+
+    assertThat(tableVersion.getETag("application/json")).isNotEqualTo(json);
+    assertThat(tableVersion.getETag("application/cbor"))
+        .isNotEqualTo(tableVersion.getETag("application/json"));
+  }
+
+  @Test
+  void getETag_whenDisabled_returnsNull() {
+    UserTableVersion tableVersion = new UserTableVersion(false);
+
+    assertThat(tableVersion.getETag()).isNull();
+    assertThat(tableVersion.getETag("application/json")).isNull();
+  }
+}
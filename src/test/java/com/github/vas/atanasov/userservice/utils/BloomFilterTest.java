@@ -0,0 +1,39 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+  @Test
+  void mightContain_afterPut_isTrue() {
+    BloomFilter filter = BloomFilter.create(1_000, 0.01);
+    IntStream.range(0, 1_000).forEach(i -> filter.put("user" + i));
+
+    assertThat(IntStream.range(0, 1_000)).allMatch(i -> filter.mightContain("user" + i));
+  }
+
+  @Test
+  void mightContain_forAbsentValues_staysNearConfiguredRate() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i));
+
+    long falsePositives =
+        IntStream.range(0, 100_000).filter(i -> filter.mightContain("absent" + i)).count();
+
+    assertThat(falsePositives).isLessThan(2_000);
+    assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+  }
+
+  @Test
+  void create_withInvalidArguments_shouldThrow() {
+    assertThatThrownBy(() -> BloomFilter.create(0, 0.01))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> BloomFilter.create(10, 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,22 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DaemonThreadsTest {
+
+  @Test
+  void factory_createsNumberedDaemonThreads() {
+    ThreadFactory factory = DaemonThreads.factory("test-");
+
+    Thread first = factory.newThread(() -> {});
+    Thread second = factory.newThread(() -> {});
+
+    assertThat(first.isDaemon()).isTrue();
+    assertThat(first.getName()).isEqualTo("test-1");
+    assertThat(second.getName()).isEqualTo("test-2");
+  }
+}
@@ -0,0 +1,104 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappingUtilsTest {
+
+  private final ModelMapper modelMapper = MappingUtils.createConfigured();
+
+  @Test
+  void precompiled_containsPairsOfAllRegistrars() {
+    MapperRegistry precompiled = MappingUtils.precompiled();
+
+    assertThat(precompiled.find(User.class, UserServiceModel.class)).isNotNull();
+    assertThat(precompiled.find(User.class, UserCreateServiceModel.class)).isNotNull();
+    assertThat(precompiled.find(UserServiceModel.class, UserCreateServiceModel.class)).isNotNull();
+    assertThat(precompiled.find(UserCreateRequest.class, UserCreateServiceModel.class)).isNotNull();
+    assertThat(precompiled.find(UserCreateRequest.class, UserServiceModel.class)).isNotNull();
+  }
+
+  @Test
+  void map_serviceModelToCreateModel_matchesModelMapper() {
+    UserServiceModel user =
+        UserServiceModel.from(
+            User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName"));
+
+    assertThat(MappingUtils.map(user, UserCreateServiceModel.class))
+        .isEqualTo(modelMapper.map(user, UserCreateServiceModel.class));
+  }
+
+  @Test
+  void map_userToServiceModel_matchesModelMapper() {
+    User user = User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName");
+
+    UserServiceModel precompiled = MappingUtils.map(user, UserServiceModel.class);
+
+    assertThat(precompiled).isEqualTo(modelMapper.map(user, UserServiceModel.class));
+    assertThat(precompiled.getUid()).isEqualTo(user.getUid());
+  }
+
+  @Test
+  void map_requestToCreateModel_matchesModelMapper() {
+    UserCreateRequest request = new UserCreateRequest();
+    request.setUsername("username");
+    request.setFirstName("firstName");
+
+    UserCreateServiceModel precompiled = MappingUtils.map(request, UserCreateServiceModel.class);
+
+    assertThat(precompiled).isEqualTo(modelMapper.map(request, UserCreateServiceModel.class));
+    assertThat(precompiled.getLastName()).isNull();
+  }
+
+  @Test
+  void map_subclassOfRegisteredSource_usesSuperclassMapper() {
+    User proxyLike = new User() {};
+
+    assertThat(MappingUtils.map(proxyLike, UserServiceModel.class))
+        .isEqualTo(new UserServiceModel());
+  }
+
+  @Test
+  void map_unregisteredPair_fallsBackToModelMapper() {
+    User user = User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName");
+
+    UserCreateRequest request = MappingUtils.map(user, UserCreateRequest.class);
+
+    assertThat(request.getUsername()).isEqualTo("username");
+    assertThat(request.getFirstName()).isEqualTo("firstName");
+  }
+
+  @Test
+  void mapAll_withUsers_mapsEveryElementInOrder() {
+    List<User> users =
+        Arrays.asList(
+            User.of(UidStrategy.TIME_ORDERED.next(), "first", "a", null),
+            User.of(UidStrategy.TIME_ORDERED.next(), "second", "b", null));
+
+    List<UserServiceModel> models = MappingUtils.mapAll(users, UserServiceModel.class);
+
+    assertThat(models).extracting(UserServiceModel::getUsername).containsExactly("first", "second");
+  }
+
+  @Test
+  void registry_withDuplicatePair_shouldThrow() {
+    MapperRegistry.Builder builder =
+        MapperRegistry.builder()
+            .register(User.class, UserServiceModel.class, UserServiceModel::from);
+
+    assertThatThrownBy(
+            () -> builder.register(User.class, UserServiceModel.class, UserServiceModel::from))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -0,0 +1,82 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedUuidsTest {
+
+  @Test
+  void next_setsVersionVariantAndCurrentTimestamp() {
+    long before = System.currentTimeMillis();
+    UUID uid = TimeOrderedUuids.next();
+
+    assertThat(uid.version()).isEqualTo(7);
+    assertThat(uid.variant()).isEqualTo(2);
+    // Bursts of other tests may have carried the sequence a few milliseconds ahead of the clock
+    assertThat(TimeOrderedUuids.timestamp(uid))
+        .isBetween(before, System.currentTimeMillis() + 1_000);
+  }
+
+  @Test
+  void next_isStrictlyIncreasingWithinAndAcrossThreads() throws Exception {
+    int threads = 8;
+    int perThread = 20_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Callable<List<UUID>>> tasks = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      tasks.add(
+          () -> {
+            List<UUID> uids = new ArrayList<>(perThread);
+            for (int j = 0; j < perThread; j++) uids.add(TimeOrderedUuids.next());
+            return uids;
+          });
+    }
+
+    Set<UUID> all = new HashSet<>();
+    try {
+      for (Future<List<UUID>> future : executor.invokeAll(tasks)) {
+        List<UUID> uids = future.get();
+        assertThat(uids).isSorted();
+        all.addAll(uids);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(all).hasSize(threads * perThread);
+  }
+
+  @Test
+  void nextTimestampAndSequence_carriesSequenceIntoTimestamp() {
+    AtomicLong counter = new AtomicLong();
+    long millis = System.currentTimeMillis();
+    long first = TimeOrderedUuids.nextTimestampAndSequence(counter, millis);
+    long last = first;
+    for (int i = 0; i < 4096; i++) {
+      last = TimeOrderedUuids.nextTimestampAndSequence(counter, millis);
+    }
+
+    assertThat(first).isEqualTo(millis << 12);
+    assertThat(last).isEqualTo((millis + 1) << 12);
+    assertThat(TimeOrderedUuids.nextTimestampAndSequence(counter, millis - 1)).isEqualTo(last + 1);
+  }
+
+  @Test
+  void timestamp_ofRandomUuid_shouldThrow() {
+    assertThatThrownBy(() -> TimeOrderedUuids.timestamp(UUID.randomUUID()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,41 @@
+package com.github.vas.atanasov.userservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+  @Test
+  void newExecutor_onJava21_runsTasksOnNamedVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+    ExecutorService executor = VirtualThreads.newExecutor("test-");
+    try {
+      Method isVirtual = Thread.class.getMethod("isVirtual");
+      String name =
+          executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+      Object virtual =
+          executor.submit(() -> isVirtual.invoke(Thread.currentThread())).get(5, TimeUnit.SECONDS);
+
+      assertThat(name).startsWith("test-");
+      assertThat(virtual).isEqualTo(Boolean.TRUE);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void newExecutor_beforeJava21_shouldThrow() {
+    assumeFalse(VirtualThreads.isSupported());
+
+    assertThatThrownBy(() -> VirtualThreads.newExecutor("test-"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -1,43 +1,78 @@
 package com.github.vas.atanasov.userservice.webapp.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.javafaker.Faker;
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
 import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.service.enums.UserAsyncCreateStatus;
+import com.github.vas.atanasov.userservice.service.enums.UserCreateStatus;
+import com.github.vas.atanasov.userservice.service.enums.UserDeleteStatus;
+import com.github.vas.atanasov.userservice.service.exceptions.UserCreateBufferFullException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserExistsException;
 import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserAsyncCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserCreateResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserDeleteResultServiceModel;
 import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserSliceServiceModel;
 import com.github.vas.atanasov.userservice.service.services.UserService;
+import com.github.vas.atanasov.userservice.service.version.UserTableVersion;
 import com.github.vas.atanasov.userservice.utils.MappingUtils;
+import com.github.vas.atanasov.userservice.webapp.config.MessageConverterConfiguration;
+import com.github.vas.atanasov.userservice.webapp.idempotency.IdempotencyStore;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserBatchCreateRequest;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserBatchDeleteRequest;
+import com.github.vas.atanasov.userservice.webapp.models.request.UserCreateRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static com.github.vas.atanasov.userservice.webapp.enums.RestMessage.*;
 import static com.github.vas.atanasov.userservice.webapp.enums.RestStatus.FAILURE;
 import static com.github.vas.atanasov.userservice.webapp.enums.RestStatus.SUCCESS;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = UserController.class)
+@Import({
+  IdempotencyStore.class,
+  UserTableVersion.class,
+  SimpleMeterRegistry.class,
+  MessageConverterConfiguration.class
+})
 class UserControllerTest {
 
   @Autowired private MockMvc mockMvc;
@@ -46,10 +81,17 @@ class UserControllerTest {
 
   @MockBean private UserService userService;
 
+  @Autowired private UserTableVersion tableVersion;
+
+  @Autowired private MappingJackson2CborHttpMessageConverter cborConverter;
+
+  @Autowired private MappingJackson2SmileHttpMessageConverter smileConverter;
+
   static Faker faker = new Faker();
   static List<User> fakeUsers = new ArrayList<>();
   static User fakeUser =
       User.of(
+          UidStrategy.TIME_ORDERED.next(),
           faker.name().username() + faker.lorem().characters(5),
           faker.name().firstName(),
           faker.name().lastName());
@@ -59,6 +101,7 @@ class UserControllerTest {
     for (int i = 0; i < 20; i++) {
       User user =
           User.of(
+              UidStrategy.TIME_ORDERED.next(),
               faker.name().username() + faker.lorem().characters(5),
               faker.name().firstName(),
               faker.name().lastName());
@@ -102,6 +145,158 @@ class UserControllerTest {
     verify(userService).createUser(request);
   }
 
+  @Test
+  void createUser_withRepeatedIdempotencyKey_replaysFirstResponse() throws Exception {
+    UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
+    String key = UUID.randomUUID().toString();
+
+    when(userService.createUser(request)).thenReturn(UserServiceModel.from(fakeUser));
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE)
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isCreated())
+        .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE)
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isCreated())
+        .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+        .andExpect(header().exists("Location"))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_CREATED))))
+        .andExpect(jsonPath("$.data.uid", is(fakeUser.getUid().toString())));
+
+    verify(userService, times(1)).createUser(request);
+  }
+
+  @Test
+  void createUser_withIdempotencyKeyOfOtherRequest_returnsUnprocessableEntity() throws Exception {
+    UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
+    UserCreateServiceModel other = MappingUtils.map(fakeUsers.get(0), UserCreateServiceModel.class);
+    String key = UUID.randomUUID().toString();
+
+    when(userService.createUser(request)).thenReturn(UserServiceModel.from(fakeUser));
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE)
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isCreated());
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE)
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(other)))
+        .andExpect(status().isUnprocessableEntity())
+        .andExpect(jsonPath("$.message", is(String.valueOf(IDEMPOTENCY_KEY_REUSED))));
+
+    verify(userService, never()).createUser(other);
+  }
+
+  @Test
+  void searchUsers_returnsMatchesWithClampedLimit() throws Exception {
+    List<UserServiceModel> found =
+        MappingUtils.mapAll(fakeUsers.subList(0, 2), UserServiceModel.class);
+    when(userService.searchUsers("jo", BaseController.MAX_SEARCH_LIMIT)).thenReturn(found);
+
+    mockMvc
+        .perform(
+            get(UserController.URL_USER_BASE + "/search").param("q", "jo").param("limit", "5000"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USERS_FOUND))))
+        .andExpect(jsonPath("$.data", hasSize(2)));
+  }
+
+  @Test
+  void searchUsers_withEmptyQuery_returnsBadRequest() throws Exception {
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + "/search").param("q", " "))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is(String.valueOf(INVALID_SEARCH_QUERY))));
+
+    verifyNoInteractions(userService);
+  }
+
+  @Test
+  void createUserAsync_withValidData_returnsAcceptedWithStatusLocation() throws Exception {
+    UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
+    UUID uid = UUID.randomUUID();
+
+    when(userService.createUserAsync(request))
+        .thenReturn(new UserAsyncCreateServiceModel(uid, UserAsyncCreateStatus.PENDING));
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + UserController.URL_USER_ASYNC)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isAccepted())
+        .andExpect(header().string("Location", containsString("/v1/users/async/" + uid)))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_CREATE_ACCEPTED))))
+        .andExpect(jsonPath("$.data.uid", is(uid.toString())))
+        .andExpect(jsonPath("$.data.status", is("PENDING")));
+  }
+
+  @Test
+  void createUserAsync_withFullBuffer_returnsTooManyRequests() throws Exception {
+    UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
+
+    when(userService.createUserAsync(request)).thenThrow(new UserCreateBufferFullException());
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + UserController.URL_USER_ASYNC)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string("Retry-After", UserController.CREATE_RETRY_AFTER_SECONDS))
+        .andExpect(jsonPath("$.status", is(String.valueOf(FAILURE))))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_CREATE_BUFFER_FULL))));
+  }
+
+  @Test
+  void createUserAsync_withQueuedUsername_returnsConflict() throws Exception {
+    UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
+
+    when(userService.createUserAsync(request)).thenThrow(new UserExistsException());
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + UserController.URL_USER_ASYNC)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_ALREADY_EXISTS))));
+  }
+
+  @Test
+  void getAsyncCreateStatus_returnsStatusOrNotFound() throws Exception {
+    UUID known = UUID.randomUUID();
+    UUID unknown = UUID.randomUUID();
+    when(userService.getAsyncCreateStatus(known))
+        .thenReturn(new UserAsyncCreateServiceModel(known, UserAsyncCreateStatus.CREATED));
+    when(userService.getAsyncCreateStatus(unknown)).thenThrow(new UserNotFoundException());
+
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + UserController.URL_USER_ASYNC + "/" + known))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_CREATE_STATUS))))
+        .andExpect(jsonPath("$.data.status", is("CREATED")));
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + UserController.URL_USER_ASYNC + "/" + unknown))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_NOT_FOUND))));
+  }
+
   @Test
   void createUser_withInvalidUsername_returnsCorrectStatusAndMessage() throws Exception {
     UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
@@ -132,6 +327,32 @@ class UserControllerTest {
         .andExpect(jsonPath("$.message", is(String.valueOf(USER_CREATION_INVALID_INPUT))));
   }
 
+  @Test
+  void getUser_withExistingId_returnsUser() throws Exception {
+    UserServiceModel user = MappingUtils.map(fakeUser, UserServiceModel.class);
+    when(userService.getUserByUid(user.getUid())).thenReturn(user);
+
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + "/" + user.getUid()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status", is(String.valueOf(SUCCESS))))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_FOUND))))
+        .andExpect(jsonPath("$.data.uid", is(user.getUid().toString())))
+        .andExpect(jsonPath("$.data.username", is(user.getUsername())));
+  }
+
+  @Test
+  void getUser_nonExistingUserId_returnsCorrectStatusAndMessage() throws Exception {
+    UUID userId = UUID.randomUUID();
+    when(userService.getUserByUid(userId)).thenThrow(new UserNotFoundException());
+
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + "/" + userId))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.status", is(String.valueOf(FAILURE))))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USER_NOT_FOUND))));
+  }
+
   @Test
   void deleteUser_withExistingId_returnsCorrectStatus() throws Exception {
     mockMvc
@@ -150,6 +371,55 @@ class UserControllerTest {
         .andExpect(jsonPath("$.message", is(String.valueOf(USER_NOT_FOUND))));
   }
 
+  @Test
+  void deleteUsers_withUids_returnsResultPerUid() throws Exception {
+    UUID found = UUID.randomUUID();
+    UUID missing = UUID.randomUUID();
+    UserBatchDeleteRequest request = new UserBatchDeleteRequest();
+    request.setUids(Arrays.asList(found, missing));
+    when(userService.deleteUsersByUid(request.getUids()))
+        .thenReturn(
+            Arrays.asList(
+                new UserDeleteResultServiceModel(found, UserDeleteStatus.DELETED),
+                new UserDeleteResultServiceModel(missing, UserDeleteStatus.NOT_FOUND)));
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + "/batch-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USERS_BATCH_DELETED))))
+        .andExpect(jsonPath("$.data[0].uid", is(found.toString())))
+        .andExpect(jsonPath("$.data[0].status", is("DELETED")))
+        .andExpect(jsonPath("$.data[1].status", is("NOT_FOUND")));
+  }
+
+  @Test
+  void deleteUsers_withEmptyUids_returnsCorrectStatusAndMessage() throws Exception {
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + "/batch-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"uids\":[]}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USERS_BATCH_DELETE_INVALID_INPUT))));
+
+    verify(userService, never()).deleteUsersByUid(anyList());
+  }
+
+  @Test
+  void deleteUsersCreatedBefore_returnsDeletedCount() throws Exception {
+    LocalDateTime createdBefore = LocalDateTime.of(2020, 6, 1, 0, 0);
+    when(userService.deleteUsersCreatedBefore(createdBefore)).thenReturn(42L);
+
+    mockMvc
+        .perform(delete(UserController.URL_USER_BASE).param("createdBefore", "2020-06-01T00:00:00"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message", is(String.valueOf(USERS_DELETED))))
+        .andExpect(jsonPath("$.data.deleted", is(42)));
+  }
+
   @Test
   void getUsersPage_withData_shouldReturnPage() throws Exception {
     List<UserServiceModel> fakeModels = MappingUtils.mapAll(fakeUsers, UserServiceModel.class);
@@ -161,7 +431,247 @@ class UserControllerTest {
     mockMvc
         .perform(get(UserController.URL_USER_BASE).contentType(MediaType.APPLICATION_JSON))
         .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items", hasSize(fakeModels.size())))
+        .andExpect(jsonPath("$.items[0].uid", is(fakeModels.get(0).getUid().toString())))
+        .andExpect(jsonPath("$.page", is(0)))
+        .andExpect(jsonPath("$.totalElements", is((int) page.getTotalElements())))
+        .andExpect(jsonPath("$.hasNext", is(false)))
+        .andExpect(jsonPath("$.pageable").doesNotExist())
+        .andExpect(jsonPath("$.sort").doesNotExist());
+  }
+
+  @Test
+  void getUsersPage_withCurrentETag_returnsNotModifiedWithoutCallingService() throws Exception {
+    String eTag = tableVersion.getETag();
+
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE).header("If-None-Match", eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", eTag))
+        .andExpect(content().string(""));
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + "/scroll").header("If-None-Match", eTag))
+        .andExpect(status().isNotModified());
+
+    verifyNoInteractions(userService);
+  }
+
+  @Test
+  void getUsersPage_afterTableChange_returnsPageWithNewETag() throws Exception {
+    String eTag = tableVersion.getETag();
+    when(userService.getUsersPage(any())).thenReturn(Page.empty());
+
+    tableVersion.onUsersDeleted(null);
+
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE).header("If-None-Match", eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", tableVersion.getETag()));
+    assertThat(tableVersion.getETag()).isNotEqualTo(eTag);
+  }
+
+  @Test
+  void getUsersPage_withCborAccept_returnsBinaryUidsAndPerFormatETag() throws Exception {
+    List<UserServiceModel> fakeModels = MappingUtils.mapAll(fakeUsers, UserServiceModel.class);
+    PageRequest pageRequest = PageRequest.of(0, fakeModels.size());
+    when(userService.getUsersPage(any()))
+        .thenReturn(new PageImpl<>(fakeModels, pageRequest, fakeModels.size()));
+
+    MvcResult cbor =
+        mockMvc
+            .perform(get(UserController.URL_USER_BASE).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string("Vary", containsString("Accept")))
+            .andReturn();
+    MvcResult json =
+        mockMvc
+            .perform(get(UserController.URL_USER_BASE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andReturn();
+
+    JsonNode items =
+        cborConverter
+            .getObjectMapper()
+            .readTree(cbor.getResponse().getContentAsByteArray())
+            .get("items");
+    assertThat(items).hasSize(fakeModels.size());
+    assertThat(items.get(0).get("uid").isBinary()).isTrue();
+    assertThat(items.get(0).get("uid").binaryValue()).hasSize(16);
+    assertThat(cbor.getResponse().getContentAsByteArray().length)
+        .isLessThan(json.getResponse().getContentAsByteArray().length);
+    assertThat(cbor.getResponse().getHeader("ETag"))
+        .isNotEqualTo(json.getResponse().getHeader("ETag"));
+  }
+
+  @Test
+  void createUser_withSmileBody_createsUserAndRepliesInSmile() throws Exception {
+    UserCreateServiceModel request = MappingUtils.map(fakeUser, UserCreateServiceModel.class);
+    MediaType smile = MediaType.valueOf(BaseController.APPLICATION_SMILE_VALUE);
+
+    when(userService.createUser(request)).thenReturn(UserServiceModel.from(fakeUser));
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post(UserController.URL_USER_BASE)
+                    .contentType(smile)
+                    .accept(smile)
+                    .content(smileConverter.getObjectMapper().writeValueAsBytes(request)))
+            .andExpect(status().isCreated())
+            .andExpect(content().contentType(smile))
+            .andReturn();
+
+    JsonNode body =
+        smileConverter.getObjectMapper().readTree(result.getResponse().getContentAsByteArray());
+    assertThat(body.get("message").asText()).isEqualTo(String.valueOf(USER_CREATED));
+    verify(userService).createUser(request);
+  }
+
+  @Test
+  void createUsers_withMixedItems_returnsResultPerItem() throws Exception {
+    UserCreateRequest valid = MappingUtils.map(fakeUsers.get(0), UserCreateRequest.class);
+    UserCreateRequest invalid = MappingUtils.map(fakeUsers.get(1), UserCreateRequest.class);
+    invalid.setUsername("shrt");
+    UserCreateRequest taken = MappingUtils.map(fakeUsers.get(2), UserCreateRequest.class);
+    UserBatchCreateRequest request = new UserBatchCreateRequest();
+    request.setUsers(Arrays.asList(valid, invalid, taken));
+
+    when(userService.createUsers(anyList()))
+        .thenReturn(
+            Arrays.asList(
+                new UserCreateResultServiceModel(
+                    0,
+                    valid.getUsername(),
+                    UserCreateStatus.CREATED,
+                    UserServiceModel.from(fakeUsers.get(0))),
+                new UserCreateResultServiceModel(
+                    1, taken.getUsername(), UserCreateStatus.ALREADY_EXISTS, null)));
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status", is(String.valueOf(SUCCESS))))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USERS_BATCH_PROCESSED))))
+        .andExpect(jsonPath("$.data", hasSize(3)))
+        .andExpect(jsonPath("$.data[0].status", is(String.valueOf(UserCreateStatus.CREATED))))
+        .andExpect(jsonPath("$.data[1].status", is(String.valueOf(UserCreateStatus.INVALID))))
+        .andExpect(jsonPath("$.data[1].errors[0].field", is("username")))
+        .andExpect(jsonPath("$.data[2].index", is(2)))
+        .andExpect(
+            jsonPath("$.data[2].status", is(String.valueOf(UserCreateStatus.ALREADY_EXISTS))));
+
+    verify(userService).createUsers(argThat(models -> models.size() == 2));
+  }
+
+  @Test
+  void createUsers_withEmptyBatch_returnsCorrectStatusAndMessage() throws Exception {
+    UserBatchCreateRequest request = new UserBatchCreateRequest();
+    request.setUsers(Collections.emptyList());
+
+    mockMvc
+        .perform(
+            post(UserController.URL_USER_BASE + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.status", is(String.valueOf(FAILURE))))
+        .andExpect(jsonPath("$.message", is(String.valueOf(USERS_BATCH_INVALID_INPUT))));
+
+    verifyNoInteractions(userService);
+  }
+
+  @Test
+  void getUsersSlice_withData_shouldReturnSliceWithoutTotals() throws Exception {
+    List<UserServiceModel> fakeModels = MappingUtils.mapAll(fakeUsers, UserServiceModel.class);
+    UserSliceServiceModel slice =
+        new UserSliceServiceModel(fakeModels, fakeModels.size(), true, "next");
+
+    when(userService.getUsersSlice("current", fakeModels.size())).thenReturn(slice);
+
+    mockMvc
+        .perform(
+            get(UserController.URL_USER_BASE + "/scroll")
+                .param("cursor", "current")
+                .param("size", String.valueOf(fakeModels.size())))
+        .andExpect(status().isOk())
         .andExpect(jsonPath("$.content", hasSize(fakeModels.size())))
-        .andExpect(jsonPath("$.totalElements", is((int) page.getTotalElements())));
+        .andExpect(jsonPath("$.hasNext", is(true)))
+        .andExpect(jsonPath("$.nextCursor", is("next")))
+        .andExpect(jsonPath("$.totalElements").doesNotExist());
+  }
+
+  @Test
+  void getUsersSlice_withInvalidCursor_returnsCorrectStatusAndMessage() throws Exception {
+    when(userService.getUsersSlice(eq("broken"), anyInt()))
+        .thenThrow(new IllegalArgumentException());
+
+    mockMvc
+        .perform(get(UserController.URL_USER_BASE + "/scroll").param("cursor", "broken"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.status", is(String.valueOf(FAILURE))))
+        .andExpect(jsonPath("$.message", is(String.valueOf(INVALID_CURSOR))));
+  }
+
+  @Test
+  void exportUsers_asNdjson_streamsOneUserPerLine() throws Exception {
+    List<UserServiceModel> fakeModels = MappingUtils.mapAll(fakeUsers, UserServiceModel.class);
+    mockExport(fakeModels);
+
+    MvcResult result =
+        mockMvc
+            .perform(get(UserController.URL_USER_BASE + "/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String body =
+        mockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    String[] lines = body.split("\n");
+    assertThat(lines).hasSize(fakeModels.size());
+    assertThat(objectMapper.readValue(lines[0], UserServiceModel.class))
+        .isEqualTo(fakeModels.get(0));
+  }
+
+  @Test
+  void exportUsers_asCsv_streamsHeaderAndEscapedRows() throws Exception {
+    UserServiceModel model = UserServiceModel.from(fakeUser);
+    model.setLastName("O\"Brien, Jr");
+    mockExport(Collections.singletonList(model));
+
+    MvcResult result =
+        mockMvc
+            .perform(get(UserController.URL_USER_BASE + "/export").param("format", "CSV"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith("text/csv"))
+        .andExpect(content().string(startsWith("uid,username,firstName,lastName,createdDateTime")))
+        .andExpect(content().string(containsString(model.getUid() + "," + model.getUsername())))
+        .andExpect(content().string(containsString(",\"O\"\"Brien, Jr\",")));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockExport(List<UserServiceModel> models) {
+    when(userService.exportUsers(any()))
+        .thenAnswer(
+            invocation -> {
+              Consumer<UserServiceModel> consumer = invocation.getArgument(0);
+              models.forEach(consumer);
+              return (long) models.size();
+            });
   }
 }
@@ -0,0 +1,111 @@
+package com.github.vas.atanasov.userservice.webapp.config;
+
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.service.exceptions.UserNotFoundException;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import com.github.vas.atanasov.userservice.service.version.UserTableVersion;
+import com.github.vas.atanasov.userservice.webapp.api.UserController;
+import com.github.vas.atanasov.userservice.webapp.idempotency.IdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = UserController.class)
+@Import({
+  IdempotencyStore.class,
+  SimpleMeterRegistry.class,
+  UserTableVersion.class,
+  OffloadingRequestMappingHandlerAdapterTest.OffloadingConfiguration.class
+})
+class OffloadingRequestMappingHandlerAdapterTest {
+  private static final String THREAD_PREFIX = "offload-";
+
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private UserService userService;
+
+  @Test
+  void handler_runsOnAsyncExecutor() throws Exception {
+    UserServiceModel user =
+        UserServiceModel.from(
+            User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", null));
+    AtomicReference<String> handlerThread = new AtomicReference<>();
+    when(userService.getUserByUid(user.getUid()))
+        .thenAnswer(
+            invocation -> {
+              handlerThread.set(Thread.currentThread().getName());
+              return user;
+            });
+
+    MvcResult result =
+        mockMvc
+            .perform(get(UserController.URL_USER_BASE + "/" + user.getUid()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.username", is("username")));
+    assertThat(handlerThread.get()).startsWith(THREAD_PREFIX);
+  }
+
+  @Test
+  void handlerException_isResolvedAfterDispatch() throws Exception {
+    UUID uid = UUID.randomUUID();
+    when(userService.getUserByUid(uid)).thenThrow(new UserNotFoundException());
+
+    MvcResult result =
+        mockMvc
+            .perform(get(UserController.URL_USER_BASE + "/" + uid))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+  }
+
+  // Imported only, a @TestConfiguration would be picked up by component scans outside this test
+  static class OffloadingConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+      ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      executor.setThreadNamePrefix(THREAD_PREFIX);
+      executor.initialize();
+      configurer.setTaskExecutor(executor);
+    }
+
+    @Bean
+    WebMvcRegistrations offloadingMvcRegistrations() {
+      return new WebMvcRegistrations() {
+        @Override
+        public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+          return new OffloadingRequestMappingHandlerAdapter();
+        }
+      };
+    }
+  }
+}
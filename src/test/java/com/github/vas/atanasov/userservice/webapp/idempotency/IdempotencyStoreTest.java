@@ -0,0 +1,166 @@
+package com.github.vas.atanasov.userservice.webapp.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+  private final IdempotencyStore store =
+      new IdempotencyStore(new SimpleMeterRegistry(), 100, 60000, 5000);
+
+  @Test
+  void execute_withSameKey_replaysStoredResponse() {
+    AtomicInteger executions = new AtomicInteger();
+
+    ResponseEntity<?> first = store.execute("key", "request", () -> created(executions));
+    ResponseEntity<?> replay = store.execute("key", "request", () -> created(executions));
+
+    assertThat(executions).hasValue(1);
+    assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    assertThat(replay.getBody()).isEqualTo(first.getBody());
+    assertThat(replay.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+  }
+
+  @Test
+  void execute_withSameKeyAndOtherRequest_shouldThrow() {
+    store.execute("key", "request", () -> ResponseEntity.ok("first"));
+
+    assertThatThrownBy(() -> store.execute("key", "other", () -> ResponseEntity.ok("second")))
+        .isInstanceOf(IdempotencyKeyReusedException.class);
+  }
+
+  @Test
+  void execute_afterFailure_executesAgain() {
+    assertThatThrownBy(
+            () ->
+                store.execute(
+                    "key",
+                    "request",
+                    () -> {
+                      throw new IllegalStateException();
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(store.execute("key", "request", () -> ResponseEntity.ok("second")).getBody())
+        .isEqualTo("second");
+  }
+
+  @Test
+  void execute_withConcurrentSameKey_waitsForInFlightExecution() throws Exception {
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<ResponseEntity<?>> first =
+          executor.submit(
+              () ->
+                  store.execute(
+                      "key",
+                      "request",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return created(executions);
+                      }));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<ResponseEntity<?>> second =
+          executor.submit(() -> store.execute("key", "request", () -> created(executions)));
+
+      Thread.sleep(100);
+      assertThat(second.isDone()).isFalse();
+      release.countDown();
+
+      assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+      assertThat(second.get(5, TimeUnit.SECONDS).getHeaders())
+          .containsKey(IdempotencyStore.REPLAYED_HEADER);
+      assertThat(executions).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void execute_withFullStore_replaysFreshKey() {
+    AtomicInteger executions = new AtomicInteger();
+    for (int i = 0; i < 100; i++) {
+      for (int j = 0; j < 5; j++) {
+        store.execute("key" + i, "request", () -> created(executions));
+      }
+    }
+
+    store.execute("fresh", "request", () -> created(executions));
+    ResponseEntity<?> replay = store.execute("fresh", "request", () -> created(executions));
+
+    assertThat(executions).hasValue(101);
+    assertThat(replay.getHeaders()).containsKey(IdempotencyStore.REPLAYED_HEADER);
+  }
+
+  @Test
+  void execute_afterTtl_executesAgain() {
+    IdempotencyStore expiring = new IdempotencyStore(new SimpleMeterRegistry(), 100, 0, 5000);
+    AtomicInteger executions = new AtomicInteger();
+
+    expiring.execute("key", "request", () -> created(executions));
+    ResponseEntity<?> second = expiring.execute("key", "request", () -> created(executions));
+
+    assertThat(executions).hasValue(2);
+    assertThat(second.getHeaders()).doesNotContainKey(IdempotencyStore.REPLAYED_HEADER);
+  }
+
+  @Test
+  void execute_whileStoreFillsUp_keepsInFlightExecution() throws Exception {
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ResponseEntity<?>> first =
+          executor.submit(
+              () ->
+                  store.execute(
+                      "key",
+                      "request",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return created(executions);
+                      }));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+      for (int i = 0; i < 200; i++) {
+        store.execute("other" + i, "request", () -> ResponseEntity.ok().build());
+      }
+      release.countDown();
+
+      assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+      assertThat(store.execute("key", "request", () -> created(executions)).getHeaders())
+          .containsKey(IdempotencyStore.REPLAYED_HEADER);
+      assertThat(executions).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ResponseEntity<?> created(AtomicInteger executions) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(executions.incrementAndGet());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserImportReaderTest {
+  private static final UUID UID = UUID.fromString("f240e51b-7d19-47f9-a844-f8618000fff0");
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @Test
+  void csv_readsColumnsByHeaderName_withQuotedFields() throws IOException {
+    List<UserImportRow> rows =
+        read(
+            UserImportFormat.CSV,
+            "\uFEFFlastName,uid,username,firstName,createdDateTime,ignored\r\n"
+                + "\"O'Neil, \"\"Jr\"\"\",f240e51b-7d19-47f9-a844-f8618000fff0,csvUser1,Ann,"
+                + "2020-10-08T20:21:15,x\r\n"
+                + "\r\n"
+                + ",,csvUser2,\"Multi\nLine\",,\n");
+
+    assertThat(rows).hasSize(2);
+    UserImportRow first = rows.get(0);
+    assertThat(first.isValid()).isTrue();
+    assertThat(first.getNumber()).isEqualTo(1);
+    assertThat(first.getRequest().getUsername()).isEqualTo("csvUser1");
+    assertThat(first.getRequest().getFirstName()).isEqualTo("Ann");
+    assertThat(first.getRequest().getLastName()).isEqualTo("O'Neil, \"Jr\"");
+    assertThat(first.getUid()).isEqualTo(UID);
+    assertThat(first.getCreatedDateTime()).isEqualTo(LocalDateTime.of(2020, 10, 8, 20, 21, 15));
+    UserImportRow second = rows.get(1);
+    assertThat(second.getNumber()).isEqualTo(2);
+    assertThat(second.getRequest().getFirstName()).isEqualTo("Multi\nLine");
+    assertThat(second.getRequest().getLastName()).isNull();
+    assertThat(second.getUid()).isNull();
+    assertThat(second.getCreatedDateTime()).isNull();
+  }
+
+  @Test
+  void csv_withInvalidUid_rejectsOnlyThatRow() throws IOException {
+    List<UserImportRow> rows =
+        read(UserImportFormat.CSV, "username,firstName,uid\nbadUid,Ann,nope\ngoodUid,Ann,\n");
+
+    assertThat(rows).extracting(UserImportRow::isValid).containsExactly(false, true);
+    assertThat(rows.get(0).getError()).isEqualTo("uid is not a valid UUID");
+    assertThat(rows.get(0).getRequest().getUsername()).isEqualTo("badUid");
+  }
+
+  @Test
+  void csv_withoutRequiredColumns_throws() {
+    assertThatThrownBy(() -> read(UserImportFormat.CSV, "username,lastName\nuser,Last\n"))
+        .isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> read(UserImportFormat.CSV, ""))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void csv_withOversizedField_throws() {
+    StringBuilder field = new StringBuilder();
+    for (int i = 0; i <= CsvUserImportReader.MAX_FIELD_LENGTH; i++) field.append('a');
+
+    assertThatThrownBy(() -> read(UserImportFormat.CSV, "username,firstName\n" + field + ",Ann"))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void ndjson_readsObjects_andRejectsMalformedLines() throws IOException {
+    StringBuilder longLine = new StringBuilder("{\"username\":\"");
+    for (int i = 0; i < NdjsonUserImportReader.MAX_LINE_LENGTH; i++) longLine.append('a');
+    longLine.append("\"}");
+
+    List<UserImportRow> rows =
+        read(
+            UserImportFormat.NDJSON,
+            "{\"username\":\"jsonUser1\",\"firstName\":\"Ann\",\"lastName\":null,"
+                + "\"uid\":\"f240e51b-7d19-47f9-a844-f8618000fff0\","
+                + "\"createdDateTime\":\"2020-10-08T20:21:15\"}\r\n"
+                + "\n"
+                + "{not json\n"
+                + "[1,2]\n"
+                + longLine
+                + "\n"
+                + "{\"username\":\"jsonUser2\",\"firstName\":\"Bob\",\"uid\":\"nope\"}");
+
+    assertThat(rows).extracting(UserImportRow::getNumber).containsExactly(1L, 2L, 3L, 4L, 5L);
+    UserImportRow first = rows.get(0);
+    assertThat(first.isValid()).isTrue();
+    assertThat(first.getRequest().getUsername()).isEqualTo("jsonUser1");
+    assertThat(first.getRequest().getLastName()).isNull();
+    assertThat(first.getUid()).isEqualTo(UID);
+    assertThat(first.getCreatedDateTime()).isEqualTo(LocalDateTime.of(2020, 10, 8, 20, 21, 15));
+    assertThat(rows.subList(1, 5))
+        .extracting(UserImportRow::getError)
+        .containsExactly(
+            "Not valid JSON",
+            "Not a JSON object",
+            "Line longer than " + NdjsonUserImportReader.MAX_LINE_LENGTH,
+            "uid is not a valid UUID");
+    assertThat(rows.get(4).getRequest().getUsername()).isEqualTo("jsonUser2");
+  }
+
+  private List<UserImportRow> read(UserImportFormat format, String content) throws IOException {
+    List<UserImportRow> rows = new ArrayList<>();
+    try (UserImportReader reader =
+        format.createReader(
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper)) {
+      for (UserImportRow row = reader.next(); row != null; row = reader.next()) rows.add(row);
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,83 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.github.vas.atanasov.userservice.UserServiceApplication;
+import com.github.vas.atanasov.userservice.core.domain.UserImportStatus;
+import com.github.vas.atanasov.userservice.service.imports.UserImportJobs;
+import com.github.vas.atanasov.userservice.service.models.UserImportJobServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Resuming needs a ddl-auto that keeps data, create drops the jobs together with the users
+class UserImporterRestartTest {
+  @TempDir Path directory;
+
+  @Test
+  void start_withUnfinishedJob_continuesItAfterRestart() throws Exception {
+    UUID uid = UUID.randomUUID();
+    try (ConfigurableApplicationContext context = start()) {
+      Files.write(
+          directory.resolve(uid + ".csv"),
+          "username,firstName\nrestart1,First\nrestart2,First\nrestart3,First\n"
+              .getBytes(StandardCharsets.UTF_8));
+      UserImportJobs jobs = context.getBean(UserImportJobs.class);
+      jobs.create(uid, UserImportFormat.CSV.name());
+      jobs.start(uid);
+      UserServiceModel first = new UserServiceModel();
+      first.setUsername("restart1");
+      first.setFirstName("First");
+      // Stopped after the first row, the rest is read by the next start
+      jobs.commitChunk(
+          uid,
+          1,
+          Collections.singletonList(first),
+          Collections.singletonList(1L),
+          Collections.emptyList());
+    }
+
+    try (ConfigurableApplicationContext context = start()) {
+      UserImportJobServiceModel job = await(context.getBean(UserImportJobs.class), uid);
+
+      assertThat(job.getStatus()).isEqualTo(UserImportStatus.COMPLETED);
+      assertThat(job.getRowsRead()).isEqualTo(3);
+      assertThat(job.getCreated()).isEqualTo(3);
+      assertThat(context.getBean(UserService.class).searchUsers("restart", 10)).hasSize(3);
+    }
+  }
+
+  private ConfigurableApplicationContext start() {
+    return new SpringApplicationBuilder(UserServiceApplication.class)
+        .web(WebApplicationType.NONE)
+        .profiles("test")
+        .run(
+            "--spring.datasource.url=jdbc:h2:mem:user_import_restart;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--user-service.import.directory=" + directory,
+            "--user-service.import.chunk-size=2");
+  }
+
+  private UserImportJobServiceModel await(UserImportJobs jobs, UUID uid)
+      throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      UserImportJobServiceModel job = jobs.get(uid).orElseThrow(AssertionError::new);
+      if (job.getStatus() == UserImportStatus.COMPLETED
+          || job.getStatus() == UserImportStatus.FAILED) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("Import " + uid + " did not finish");
+  }
+}
@@ -0,0 +1,183 @@
+package com.github.vas.atanasov.userservice.webapp.imports;
+
+import com.github.vas.atanasov.userservice.core.domain.UserImportStatus;
+import com.github.vas.atanasov.userservice.service.imports.UserImportJobs;
+import com.github.vas.atanasov.userservice.service.models.UserCreateServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserImportJobServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserImportRejectionServiceModel;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import com.github.vas.atanasov.userservice.service.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ActiveProfiles("test")
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "user-service.import.chunk-size=2")
+class UserImporterTest {
+  private static Path directory;
+
+  @Autowired UserImporter importer;
+
+  @Autowired UserImportJobs jobs;
+
+  @Autowired UserService userService;
+
+  @DynamicPropertySource
+  static void importDirectory(DynamicPropertyRegistry registry) throws IOException {
+    directory = Files.createTempDirectory("user-imports");
+    registry.add("user-service.import.directory", directory::toString);
+  }
+
+  @Test
+  void submit_csv_createsValidRows_andReportsTheRest() throws Exception {
+    UUID uid = UUID.fromString("f240e51b-7d19-47f9-a844-f8618000fff0");
+    String csv =
+        "uid,username,firstName,lastName,createdDateTime\r\n"
+            + uid + ",csvImport1,Randolph,Dorgan,2020-10-08T20:21:15\r\n"
+            + ",abc,Short,,\r\n"
+            + ",csvImport2,Nancee,,\r\n"
+            + ",csvImport1,Duplicate,,\r\n"
+            + ",csvImport3,,,\r\n";
+
+    UserImportJobServiceModel job = await(submit(UserImportFormat.CSV, csv));
+
+    assertThat(job.getStatus()).isEqualTo(UserImportStatus.COMPLETED);
+    assertThat(job.getRowsRead()).isEqualTo(5);
+    assertThat(job.getCreated()).isEqualTo(2);
+    assertThat(job.getSkipped()).isEqualTo(1);
+    assertThat(job.getRejected()).isEqualTo(2);
+    assertThat(job.getRejections())
+        .extracting(UserImportRejectionServiceModel::getRow)
+        .containsExactly(2L, 4L, 5L);
+    assertThat(job.getRejections().get(1).getReason()).isEqualTo("ALREADY_EXISTS");
+    assertThat(job.getRejections().get(2).getReason()).startsWith("firstName");
+    UserServiceModel imported = userService.getUserByUid(uid);
+    assertThat(imported.getUsername()).isEqualTo("csvImport1");
+    assertThat(imported.getCreatedDateTime()).isEqualTo(LocalDateTime.of(2020, 10, 8, 20, 21, 15));
+    assertThat(directory).isEmptyDirectory();
+  }
+
+  @Test
+  void submit_ndjson_rejectsMalformedLines() throws Exception {
+    String ndjson =
+        "{\"username\":\"jsonImport1\",\"firstName\":\"Ann\"}\n"
+            + "{broken\n"
+            + "{\"username\":\"jsonImport2\",\"firstName\":\"Bob\",\"lastName\":\"Lee\"}\n";
+
+    UserImportJobServiceModel job = await(submit(UserImportFormat.NDJSON, ndjson));
+
+    assertThat(job.getStatus()).isEqualTo(UserImportStatus.COMPLETED);
+    assertThat(job.getCreated()).isEqualTo(2);
+    assertThat(job.getRejected()).isEqualTo(1);
+    assertThat(job.getRejections().get(0).getReason()).isEqualTo("Not valid JSON");
+  }
+
+  @Test
+  void submit_withTakenOrRepeatedUid_skipsThoseRows() throws Exception {
+    UUID taken =
+        userService.createUser(UserCreateServiceModel.of("uidOwner", "Owner", null)).getUid();
+    UUID repeated = UUID.randomUUID();
+    String csv =
+        "uid,username,firstName\n"
+            + repeated + ",uidImport1,First\n"
+            + repeated + ",uidImport2,Second\n"
+            + taken + ",uidImport3,Renamed\n"
+            + ",uidImport4,Fresh\n";
+
+    UserImportJobServiceModel job = await(submit(UserImportFormat.CSV, csv));
+
+    assertThat(job.getStatus()).isEqualTo(UserImportStatus.COMPLETED);
+    assertThat(job.getCreated()).isEqualTo(2);
+    assertThat(job.getSkipped()).isEqualTo(2);
+    assertThat(job.getRejections())
+        .extracting(
+            UserImportRejectionServiceModel::getRow, UserImportRejectionServiceModel::getReason)
+        .containsExactly(tuple(2L, "DUPLICATE_IN_BATCH"), tuple(3L, "ALREADY_EXISTS"));
+    assertThat(userService.getUserByUid(repeated).getUsername()).isEqualTo("uidImport1");
+    assertThat(userService.getUserByUid(taken).getUsername()).isEqualTo("uidOwner");
+  }
+
+  @Test
+  void run_afterCommittedChunk_continuesWithTheNextRow() throws Exception {
+    UUID uid = UUID.randomUUID();
+    String csv =
+        "username,firstName\n"
+            + Arrays.asList("resumed1", "resumed2", "resumed3", "resumed4", "resumed5").stream()
+                .map(username -> username + ",First\n")
+                .collect(Collectors.joining());
+    Files.write(directory.resolve(uid + ".csv"), csv.getBytes(StandardCharsets.UTF_8));
+    jobs.create(uid, UserImportFormat.CSV.name());
+    jobs.start(uid);
+    UserServiceModel first = new UserServiceModel();
+    first.setUsername("resumed1");
+    first.setFirstName("First");
+    // Only the first row was created before the crash, the second row is in the same chunk
+    jobs.commitChunk(
+        uid,
+        2,
+        Collections.singletonList(first),
+        Collections.singletonList(1L),
+        Collections.singletonList(new UserImportRejectionServiceModel(2, "resumed2", "lost")));
+
+    importer.run(uid, UserImportFormat.CSV);
+
+    UserImportJobServiceModel job = jobs.get(uid).orElseThrow(AssertionError::new);
+    assertThat(job.getStatus()).isEqualTo(UserImportStatus.COMPLETED);
+    assertThat(job.getRowsRead()).isEqualTo(5);
+    assertThat(job.getCreated()).isEqualTo(4);
+    assertThat(job.getSkipped()).isZero();
+    assertThat(job.getRejections())
+        .extracting(UserImportRejectionServiceModel::getUsername)
+        .containsExactly("resumed2");
+    assertThat(userService.searchUsers("resumed", 10)).hasSize(4);
+  }
+
+  @Test
+  void run_withoutUpload_failsJob() {
+    UUID uid = UUID.randomUUID();
+    jobs.create(uid, UserImportFormat.NDJSON.name());
+
+    importer.run(uid, UserImportFormat.NDJSON);
+
+    UserImportJobServiceModel job = jobs.get(uid).orElseThrow(AssertionError::new);
+    assertThat(job.getStatus()).isEqualTo(UserImportStatus.FAILED);
+    assertThat(job.getError()).isNotEmpty();
+  }
+
+  private UUID submit(UserImportFormat format, String content) throws IOException {
+    return importer
+        .submit(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))
+        .getUid();
+  }
+
+  private UserImportJobServiceModel await(UUID uid) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      UserImportJobServiceModel job = jobs.get(uid).orElseThrow(AssertionError::new);
+      if (job.getStatus() == UserImportStatus.COMPLETED
+          || job.getStatus() == UserImportStatus.FAILED) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("Import " + uid + " did not finish");
+  }
+}
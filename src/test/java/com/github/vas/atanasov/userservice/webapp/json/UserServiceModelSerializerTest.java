@@ -0,0 +1,41 @@
+package com.github.vas.atanasov.userservice.webapp.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.github.vas.atanasov.userservice.core.domain.UidStrategy;
+import com.github.vas.atanasov.userservice.core.domain.User;
+import com.github.vas.atanasov.userservice.service.models.UserServiceModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserServiceModelSerializerTest {
+  private final ObjectMapper beanMapper = Jackson2ObjectMapperBuilder.json().build();
+  private final ObjectMapper serializerMapper =
+      Jackson2ObjectMapperBuilder.json()
+          .modulesToInstall(new SimpleModule().addSerializer(new UserServiceModelSerializer()))
+          .build();
+
+  @Test
+  void serialize_writesSameJsonAsBeanSerializer() throws Exception {
+    List<UserServiceModel> users =
+        Arrays.asList(
+            UserServiceModel.from(
+                User.of(UidStrategy.TIME_ORDERED.next(), "username", "firstName", "lastName")),
+            UserServiceModel.from(
+                User.of(UidStrategy.TIME_ORDERED.next(), "username2", "firstName", null)),
+            new UserServiceModel());
+
+    assertThat(
+            serializerMapper
+                .getSerializerProviderInstance()
+                .findValueSerializer(UserServiceModel.class))
+        .isInstanceOf(UserServiceModelSerializer.class);
+    assertThat(serializerMapper.writeValueAsString(users))
+        .isEqualTo(beanMapper.writeValueAsString(users));
+  }
+}
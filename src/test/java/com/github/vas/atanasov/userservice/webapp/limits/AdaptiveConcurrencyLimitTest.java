@@ -0,0 +1,70 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimitTest {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+  @Test
+  void tryAcquire_beyondLimit_isRefusedUntilReleased() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isFalse();
+
+    limit.release(FAST);
+
+    assertThat(limit.getInFlight()).isEqualTo(1);
+    assertThat(limit.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void sample_withSteadyLatencyAtTheLimit_growsUpToMax() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 40);
+
+    for (int i = 0; i < 200 * AdaptiveConcurrencyLimit.WINDOW_SAMPLES; i++) {
+      limit.sample(FAST, limit.getLimit());
+    }
+
+    assertThat(limit.getLimit()).isEqualTo(40);
+  }
+
+  @Test
+  void sample_withRisingLatency_shrinksTowardsMin() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 5, 200);
+    for (int i = 0; i < 10 * AdaptiveConcurrencyLimit.WINDOW_SAMPLES; i++) {
+      limit.sample(FAST, 100);
+    }
+    int before = limit.getLimit();
+
+    for (int i = 0; i < 20 * AdaptiveConcurrencyLimit.WINDOW_SAMPLES; i++) {
+      limit.sample(SLOW, limit.getLimit());
+    }
+
+    assertThat(limit.getLimit()).isLessThan(before / 2).isGreaterThanOrEqualTo(5);
+  }
+
+  @Test
+  void sample_whileLimitIsBarelyUsed_keepsLimit() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100);
+
+    for (int i = 0; i < 50 * AdaptiveConcurrencyLimit.WINDOW_SAMPLES; i++) {
+      limit.sample(FAST, 3);
+    }
+
+    assertThat(limit.getLimit()).isEqualTo(20);
+  }
+
+  @Test
+  void constructor_withInitialOutsideBounds_throws() {
+    assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(50, 1, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,105 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+  private AdaptiveConcurrencyLimit reads;
+  private AdaptiveConcurrencyLimit writes;
+  private SimpleMeterRegistry meterRegistry;
+  private ConcurrencyLimitFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    reads = new AdaptiveConcurrencyLimit(1, 1, 10);
+    writes = new AdaptiveConcurrencyLimit(1, 1, 10);
+    meterRegistry = new SimpleMeterRegistry();
+    filter = new ConcurrencyLimitFilter(reads, writes, new ObjectMapper(), meterRegistry, 2);
+  }
+
+  @Test
+  void doFilter_underLimit_passesAndReleasesPermit() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/v1/users"), response, chain);
+
+    assertThat(chain.getRequest()).isNotNull();
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(reads.getInFlight()).isZero();
+  }
+
+  @Test
+  void doFilter_atLimit_rejectsWith503AndRetryAfter() throws Exception {
+    reads.tryAcquire();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/v1/users/scroll"), response, chain);
+
+    assertThat(chain.getRequest()).isNull();
+    assertThat(response.getStatus()).isEqualTo(503);
+    assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+    assertThat(response.getContentAsString()).contains("\"SERVICE_OVERLOADED\"");
+    assertThat(
+            meterRegistry
+                .get("users.concurrency.rejected")
+                .tag("operation", "read")
+                .counter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void doFilter_withReadsAtLimit_stillAdmitsWrites() throws Exception {
+    reads.tryAcquire();
+    MockHttpServletResponse post = new MockHttpServletResponse();
+    MockHttpServletResponse delete = new MockHttpServletResponse();
+    FilterChain holdsWritePermit =
+        (request, response) -> assertThat(writes.getInFlight()).isEqualTo(1);
+
+    filter.doFilter(new MockHttpServletRequest("POST", "/v1/users"), post, holdsWritePermit);
+    filter.doFilter(
+        new MockHttpServletRequest("DELETE", "/v1/users/f240e51b-7d19-47f9-a844-f8618000fff0"),
+        delete,
+        holdsWritePermit);
+
+    assertThat(post.getStatus()).isEqualTo(200);
+    assertThat(delete.getStatus()).isEqualTo(200);
+    assertThat(writes.getInFlight()).isZero();
+  }
+
+  @Test
+  void doFilter_forExport_isNotLimited() throws Exception {
+    reads.tryAcquire();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain = new MockFilterChain();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/v1/users/export"), response, chain);
+
+    assertThat(chain.getRequest()).isNotNull();
+    assertThat(reads.getInFlight()).isEqualTo(1);
+  }
+
+  @Test
+  void doFilter_withAsyncHandler_releasesOnCompletion() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/users");
+    request.setAsyncSupported(true);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+    assertThat(reads.getInFlight()).isEqualTo(1);
+    request.getAsyncContext().complete();
+    assertThat(reads.getInFlight()).isZero();
+  }
+}
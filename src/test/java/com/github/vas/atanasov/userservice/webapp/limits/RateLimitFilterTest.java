@@ -0,0 +1,82 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RateLimitFilter filter =
+      new RateLimitFilter(
+          new TokenBucketRateLimiter(1, 2, 100),
+          "X-API-Key",
+          Collections.singleton("integration-a"),
+          new ObjectMapper(),
+          meterRegistry);
+
+  @Test
+  void doFilter_withTokens_passesWithRateLimitHeaders() throws Exception {
+    MockHttpServletResponse response = send(request("10.0.0.1", null));
+
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getHeader(RateLimitFilter.LIMIT_HEADER)).isEqualTo("2");
+    assertThat(response.getHeader(RateLimitFilter.REMAINING_HEADER)).isEqualTo("1");
+    assertThat(response.getHeader(RateLimitFilter.RESET_HEADER)).isEqualTo("1");
+  }
+
+  @Test
+  void doFilter_withoutTokens_rejectsWith429InResponseWrapper() throws Exception {
+    send(request("10.0.0.2", null));
+    send(request("10.0.0.2", null));
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request("10.0.0.2", null), response, chain);
+
+    assertThat(chain.getRequest()).isNull();
+    assertThat(response.getStatus()).isEqualTo(429);
+    assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    assertThat(response.getHeader(RateLimitFilter.REMAINING_HEADER)).isEqualTo("0");
+    assertThat(response.getContentAsString())
+        .isEqualTo("{\"status\":\"FAILURE\",\"message\":\"RATE_LIMIT_EXCEEDED\"}");
+    assertThat(meterRegistry.get("users.rate.limit.rejected").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void doFilter_withApiKey_limitsByKeyInsteadOfAddress() throws Exception {
+    send(request("10.0.0.3", null));
+    send(request("10.0.0.3", null));
+
+    assertThat(send(request("10.0.0.3", "integration-a")).getStatus()).isEqualTo(200);
+    assertThat(send(request("10.0.0.4", "integration-a")).getStatus()).isEqualTo(200);
+    assertThat(send(request("10.0.0.5", "integration-a")).getStatus()).isEqualTo(429);
+  }
+
+  @Test
+  void doFilter_withUnknownApiKey_limitsByAddress() throws Exception {
+    assertThat(send(request("10.0.0.6", "rotated-1")).getStatus()).isEqualTo(200);
+    assertThat(send(request("10.0.0.6", "rotated-2")).getStatus()).isEqualTo(200);
+    assertThat(send(request("10.0.0.6", "integration-b")).getStatus()).isEqualTo(429);
+    assertThat(send(request("10.0.0.7", "rotated-1")).getStatus()).isEqualTo(200);
+  }
+
+  private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String address, String apiKey) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/users");
+    request.setRemoteAddr(address);
+    if (apiKey != null) request.addHeader("X-API-Key", apiKey);
+    return request;
+  }
+}
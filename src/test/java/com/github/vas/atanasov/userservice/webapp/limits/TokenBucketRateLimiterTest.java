@@ -0,0 +1,88 @@
+package com.github.vas.atanasov.userservice.webapp.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final AtomicLong now = new AtomicLong(-SECOND);
+
+  @Test
+  void tryAcquire_allowsBurst_thenRefusesUntilRefilled() {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, 100, now::get);
+
+    assertThat(limiter.tryAcquire("client").getRemaining()).isEqualTo(2);
+    assertThat(limiter.tryAcquire("client").getRemaining()).isEqualTo(1);
+    TokenBucketRateLimiter.Result last = limiter.tryAcquire("client");
+    TokenBucketRateLimiter.Result refused = limiter.tryAcquire("client");
+
+    assertThat(last.isAllowed()).isTrue();
+    assertThat(last.getRemaining()).isZero();
+    assertThat(last.getNanosUntilFull()).isEqualTo(3 * SECOND / 10);
+    assertThat(refused.isAllowed()).isFalse();
+    assertThat(refused.getNanosUntilAllowed()).isEqualTo(SECOND / 10);
+
+    now.addAndGet(SECOND / 10);
+    assertThat(limiter.tryAcquire("client").isAllowed()).isTrue();
+    assertThat(limiter.tryAcquire("client").isAllowed()).isFalse();
+  }
+
+  @Test
+  void tryAcquire_keepsSeparateBucketsPerClient() {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 100, now::get);
+
+    assertThat(limiter.tryAcquire("first").isAllowed()).isTrue();
+    assertThat(limiter.tryAcquire("first").isAllowed()).isFalse();
+    assertThat(limiter.tryAcquire("second").isAllowed()).isTrue();
+  }
+
+  @Test
+  void tryAcquire_beyondMaxClients_evictsIdleBucketsAndSharesOverflow() {
+    // One bucket per stripe
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 64, now::get);
+    for (int i = 0; i < 1000; i++) limiter.tryAcquire("client" + i);
+
+    assertThat(limiter.getClients()).isLessThanOrEqualTo(64);
+
+    now.addAndGet(2 * SECOND);
+    for (int i = 1000; i < 2000; i++) limiter.tryAcquire("client" + i);
+
+    assertThat(limiter.getClients()).isLessThanOrEqualTo(64);
+    assertThat(limiter.tryAcquire("client1999").isAllowed()).isFalse();
+  }
+
+  @Test
+  void tryAcquire_fromManyThreads_grantsExactlyTheBurst() throws Exception {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 500, 100, now::get);
+    AtomicInteger allowed = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("shared").isAllowed()) allowed.incrementAndGet();
+                  }
+                }));
+      }
+      for (Future<?> result : results) result.get();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(allowed.get()).isEqualTo(500);
+  }
+}
@@ -0,0 +1,86 @@
+package com.github.vas.atanasov.userservice.webapp.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vas.atanasov.userservice.utils.RequestTimings;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTimingFilterTest {
+  private final RequestTimingFilter filter =
+      new RequestTimingFilter(true, null, Collections.singleton("/v1/users/export"));
+
+  @Test
+  void doFilter_setsServerTimingOfRecordedPhases_afterBodyIsWritten() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(
+        new MockHttpServletRequest("GET", "/v1/users"), response, chain(RequestTimings.Phase.DB));
+
+    assertThat(response.getContentAsString()).isEqualTo("{\"status\":\"SUCCESS\"}");
+    assertThat(response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER))
+        .matches("db;dur=2\\.000, serialization;dur=0\\.250, total;dur=\\d+\\.\\d{3}");
+    assertThat(RequestTimings.current()).isNull();
+  }
+
+  @Test
+  void doFilter_onStreamingPath_passesResponseThroughWithoutHeader() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(
+        new MockHttpServletRequest("GET", "/v1/users/export"),
+        response,
+        chain(RequestTimings.Phase.DB));
+
+    assertThat(response.isCommitted()).isTrue();
+    assertThat(response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER)).isNull();
+  }
+
+  @Test
+  void serverTiming_formatsMillisWithMicrosecondPrecision() {
+    RequestTimings timings = new RequestTimings(0);
+    timings.add(RequestTimings.Phase.BIND, 1_234_567);
+    timings.add(RequestTimings.Phase.MAPPING, 5_000);
+
+    assertThat(RequestTimingFilter.serverTiming(timings, TimeUnit.MILLISECONDS.toNanos(12)))
+        .isEqualTo("bind;dur=1.234, mapping;dur=0.005, total;dur=12.000");
+  }
+
+  @Test
+  void accessLog_keepsServerErrorsAndSlowRequests_andSamplesTheRest() {
+    AccessLog never = new AccessLog(new ObjectMapper(), 0, 500);
+    AccessLog always = new AccessLog(new ObjectMapper(), 1, 500);
+
+    assertThat(never.isKept(200, TimeUnit.MILLISECONDS.toNanos(10))).isFalse();
+    assertThat(never.isKept(404, TimeUnit.MILLISECONDS.toNanos(10))).isFalse();
+    assertThat(never.isKept(503, TimeUnit.MILLISECONDS.toNanos(10))).isTrue();
+    assertThat(never.isKept(200, TimeUnit.MILLISECONDS.toNanos(500))).isTrue();
+    assertThat(always.isKept(200, TimeUnit.MILLISECONDS.toNanos(10))).isTrue();
+  }
+
+  // Records the phase and writes a flushed body, which would commit an unbuffered response
+  private static MockFilterChain chain(RequestTimings.Phase phase) {
+    return new MockFilterChain(
+        new HttpServlet() {
+          @Override
+          protected void service(HttpServletRequest request, HttpServletResponse response)
+              throws IOException {
+            RequestTimings.record(phase, TimeUnit.MILLISECONDS.toNanos(2));
+            RequestTimings.record(
+                RequestTimings.Phase.SERIALIZATION, TimeUnit.MICROSECONDS.toNanos(250));
+            response.getWriter().write("{\"status\":\"SUCCESS\"}");
+            response.flushBuffer();
+          }
+        });
+  }
+}